@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.benchmarks;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.FIFOLimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.FuzzyKeyMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LRULimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LargestLimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.SegmentedLruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.UsingFreqLimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.WTinyLfuMemoryCache;
+import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Bitmaps for benchmarks on plain JVM. Android framework classes come from the Robolectric <code>android-all</code>
+ * jar, whose Bitmap methods are backed by native code which isn't available here. So bitmaps are created without
+ * calling a constructor and serve as opaque values: their methods are never called. Caches which are created by
+ * {@link #createCache(String, int)} take sizes of bitmaps from this registry instead of from Bitmap itself.<br />
+ * Bitmaps must be created before benchmark starts: registry isn't thread-safe for writing.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class BenchmarkBitmaps {
+
+	private static final int BYTES_PER_PIXEL = 4; // ARGB_8888
+	private static final ObjectInstantiator<Bitmap> INSTANTIATOR = new ObjenesisStd().getInstantiatorOf(Bitmap.class);
+
+	private final Map<Bitmap, Dimensions> dimensions = new IdentityHashMap<Bitmap, Dimensions>();
+
+	/** Creates ARGB_8888 bitmap of incoming dimensions */
+	Bitmap create(int width, int height) {
+		Bitmap bitmap = INSTANTIATOR.newInstance();
+		dimensions.put(bitmap, new Dimensions(width, height));
+		return bitmap;
+	}
+
+	int getWidth(Bitmap bitmap) {
+		return dimensions.get(bitmap).width;
+	}
+
+	int getHeight(Bitmap bitmap) {
+		return dimensions.get(bitmap).height;
+	}
+
+	/** Returns size of bitmap pixels in bytes */
+	int sizeOf(Bitmap bitmap) {
+		Dimensions d = dimensions.get(bitmap);
+		return d.width * d.height * BYTES_PER_PIXEL;
+	}
+
+	/** Creates memory cache of incoming type which takes sizes of bitmaps from this registry */
+	MemoryCache createCache(String cacheType, int sizeLimit) {
+		if ("LruMemoryCache".equals(cacheType)) {
+			return newLruMemoryCache(sizeLimit);
+		} else if ("SegmentedLruMemoryCache".equals(cacheType)) {
+			return new SegmentedLruMemoryCache(sizeLimit) {
+				@Override
+				protected int sizeOf(Bitmap value) {
+					return BenchmarkBitmaps.this.sizeOf(value);
+				}
+			};
+		} else if ("WTinyLfuMemoryCache".equals(cacheType)) {
+			return new WTinyLfuMemoryCache(sizeLimit) {
+				@Override
+				protected int sizeOf(Bitmap value) {
+					return BenchmarkBitmaps.this.sizeOf(value);
+				}
+			};
+		} else if ("FIFOLimitedMemoryCache".equals(cacheType)) {
+			return new FIFOLimitedMemoryCache(sizeLimit) {
+				@Override
+				protected int getSize(Bitmap value) {
+					return sizeOf(value);
+				}
+			};
+		} else if ("LRULimitedMemoryCache".equals(cacheType)) {
+			return new LRULimitedMemoryCache(sizeLimit) {
+				@Override
+				protected int getSize(Bitmap value) {
+					return sizeOf(value);
+				}
+			};
+		} else if ("UsingFreqLimitedMemoryCache".equals(cacheType)) {
+			return new UsingFreqLimitedMemoryCache(sizeLimit) {
+				@Override
+				protected int getSize(Bitmap value) {
+					return sizeOf(value);
+				}
+			};
+		} else if ("LargestLimitedMemoryCache".equals(cacheType)) {
+			return new LargestLimitedMemoryCache(sizeLimit) {
+				@Override
+				protected int getSize(Bitmap value) {
+					return sizeOf(value);
+				}
+			};
+		} else if ("FuzzyKeyMemoryCache".equals(cacheType)) {
+			// The same way ImageLoader uses it when denyCacheImageMultipleSizesInMemory() is set
+			return new FuzzyKeyMemoryCache(newLruMemoryCache(sizeLimit));
+		}
+		throw new IllegalArgumentException("Unknown cache type: " + cacheType);
+	}
+
+	private LruMemoryCache newLruMemoryCache(int sizeLimit) {
+		return new LruMemoryCache(sizeLimit) {
+			@Override
+			protected int sizeOf(String key, Bitmap value) {
+				return BenchmarkBitmaps.this.sizeOf(value);
+			}
+		};
+	}
+
+	private static final class Dimensions {
+		final int width;
+		final int height;
+
+		Dimensions(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
+	}
+}
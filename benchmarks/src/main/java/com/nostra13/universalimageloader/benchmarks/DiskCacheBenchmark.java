@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.benchmarks;
+
+import com.nostra13.universalimageloader.cache.disc.IndexedDiskCache;
+import com.nostra13.universalimageloader.cache.disc.impl.UnlimitedDiskCache;
+import com.nostra13.universalimageloader.cache.disc.impl.ext.LruDiskCache;
+import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput and latency of {@link IndexedDiskCache} implementations: {@link LruDiskCache} (which is based on
+ * {@link com.nostra13.universalimageloader.cache.disc.impl.ext.DiskLruCache DiskLruCache}) and
+ * {@link UnlimitedDiskCache}. Requested images follow Zipfian distribution, file sizes are sizes of typical JPEGs
+ * (16 KB - 300 KB). Every benchmark runs in 1 thread and in 4 threads, use JMH option <code>-t</code> for other thread
+ * counts.
+ * <ul>
+ * <li><b>get</b> - lookup of cached file</li>
+ * <li><b>contains</b> - check whether image is cached (used for routing of display tasks)</li>
+ * <li><b>save</b> - writes image file (overwrites existing one); for LruDiskCache it also measures eviction</li>
+ * </ul>
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiskCacheBenchmark {
+
+	private static final int SEQUENCE_LENGTH = 1 << 14;
+
+	@Param({"DiskLruCache", "UnlimitedDiskCache"})
+	public String cacheType;
+
+	/** Size limit of LruDiskCache in MB. Total size of images is larger than this limit. */
+	@Param({"32"})
+	public int cacheSizeMb;
+
+	/** Count of distinct images */
+	@Param({"1000"})
+	public int imageCount;
+
+	@Param({"0.99"})
+	public double skew;
+
+	ImageWorkload workload;
+	byte[][] files;
+	ZipfianGenerator generator;
+	File cacheDir;
+	IndexedDiskCache cache;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		workload = new ImageWorkload(imageCount);
+		files = new byte[imageCount][];
+		for (int i = 0; i < imageCount; i++) {
+			files[i] = new byte[workload.getFileSize(i)];
+		}
+		generator = new ZipfianGenerator(imageCount, skew);
+
+		cacheDir = File.createTempFile("uil-bench", "");
+		if (!cacheDir.delete() || !cacheDir.mkdir()) throw new IOException("Can't create " + cacheDir);
+		cache = createCache(cacheType, cacheDir, cacheSizeMb * 1024L * 1024L);
+
+		for (int index : generator.sequence(SEQUENCE_LENGTH, 0)) {
+			save(index);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cache.clear();
+		cache.close();
+		File[] leftFiles = cacheDir.listFiles();
+		if (leftFiles != null) {
+			for (File file : leftFiles) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public File get(Requests requests) {
+		return cache.get(workload.uris[requests.next()]);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public File get_4Threads(Requests requests) {
+		return get(requests);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean contains(Requests requests) {
+		return cache.contains(workload.uris[requests.next()]);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean contains_4Threads(Requests requests) {
+		return contains(requests);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean save(Requests requests) throws IOException {
+		return save(requests.next());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean save_4Threads(Requests requests) throws IOException {
+		return save(requests);
+	}
+
+	private boolean save(int index) throws IOException {
+		return cache.save(workload.uris[index], new ByteArrayInputStream(files[index]), null);
+	}
+
+	static IndexedDiskCache createCache(String cacheType, File cacheDir, long sizeLimit) throws IOException {
+		if ("DiskLruCache".equals(cacheType)) {
+			return new LruDiskCache(cacheDir, new HashCodeFileNameGenerator(), sizeLimit);
+		} else if ("UnlimitedDiskCache".equals(cacheType)) {
+			return new UnlimitedDiskCache(cacheDir, null, new HashCodeFileNameGenerator());
+		}
+		throw new IllegalArgumentException("Unknown cache type: " + cacheType);
+	}
+
+	/**
+	 * Pre-generated sequence of requested images, every thread has its own sequence
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	@State(Scope.Thread)
+	public static class Requests {
+		private static int seed = 1;
+
+		private int[] sequence;
+		private int cursor;
+
+		@Setup(Level.Trial)
+		public void setUp(DiskCacheBenchmark benchmark) {
+			sequence = benchmark.generator.sequence(SEQUENCE_LENGTH, nextSeed());
+		}
+
+		int next() {
+			int index = sequence[cursor];
+			cursor = (cursor + 1) & (SEQUENCE_LENGTH - 1);
+			return index;
+		}
+
+		private static synchronized int nextSeed() {
+			return seed++;
+		}
+	}
+}
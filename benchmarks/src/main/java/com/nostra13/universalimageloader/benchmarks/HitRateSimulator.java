@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.benchmarks;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Replays traces of image requests against {@link MemoryCache} implementations and prints hit ratios. Every request is
+ * handled the way ImageLoader does it: lookup and put on miss.<br />
+ * Recorded traces are passed as file paths in arguments. Every line of trace file is one request:
+ * <code>[memory cache key] [width] [height]</code>. Without arguments synthetic traces are replayed:
+ * <ul>
+ * <li><b>zipf</b> - images of {@link ImageWorkload} with Zipfian popularity</li>
+ * <li><b>feed</b> - scroll of long feed: half of requests are to avatars and icons (~7 MB) with Zipfian
+ * popularity, the other half are to feed photos which are shown once or a few times in a row and never again</li>
+ * </ul>
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class HitRateSimulator {
+
+	/**
+	 * Caches which keep strong references only. Caches based on
+	 * {@link com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache LimitedMemoryCache} also keep weak
+	 * references to all Bitmaps they ever had, so their hit ratio depends on GC and can't be simulated.
+	 */
+	private static final String[] CACHE_TYPES = {"LruMemoryCache", "SegmentedLruMemoryCache", "WTinyLfuMemoryCache"};
+	private static final int[] CACHE_SIZES_MB = {4, 8, 16};
+	private static final int SYNTHETIC_TRACE_LENGTH = 200000;
+	private static final long SEED = 42;
+
+	private HitRateSimulator() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		List<Trace> traces = new ArrayList<Trace>();
+		if (args.length == 0) {
+			traces.add(zipfTrace());
+			traces.add(feedTrace());
+		} else {
+			for (String path : args) {
+				traces.add(readTrace(new File(path)));
+			}
+		}
+
+		for (Trace trace : traces) {
+			System.out.println(String.format("Trace: %s (%d requests)", trace.name, trace.keys.length));
+			System.out.print(String.format("%-30s", "Cache"));
+			for (int sizeMb : CACHE_SIZES_MB) {
+				System.out.print(String.format("%10s", sizeMb + " MB"));
+			}
+			System.out.println();
+			for (String cacheType : CACHE_TYPES) {
+				System.out.print(String.format("%-30s", cacheType));
+				for (int sizeMb : CACHE_SIZES_MB) {
+					MemoryCache cache = trace.bitmapRegistry.createCache(cacheType, sizeMb * 1024 * 1024);
+					System.out.print(String.format("%9.1f%%", 100 * replay(trace, cache)));
+				}
+				System.out.println();
+			}
+			System.out.println();
+		}
+	}
+
+	/** Returns hit ratio */
+	static double replay(Trace trace, MemoryCache cache) {
+		int hits = 0;
+		for (int i = 0; i < trace.keys.length; i++) {
+			if (cache.get(trace.keys[i]) != null) {
+				hits++;
+			} else {
+				cache.put(trace.keys[i], trace.bitmaps[i]);
+			}
+		}
+		return (double) hits / trace.keys.length;
+	}
+
+	static Trace zipfTrace() {
+		ImageWorkload workload = new ImageWorkload(2000);
+		int[] sequence = new ZipfianGenerator(2000, 0.99).sequence(SYNTHETIC_TRACE_LENGTH, SEED);
+		Trace trace = new Trace("zipf", SYNTHETIC_TRACE_LENGTH, workload.bitmapRegistry);
+		for (int i = 0; i < sequence.length; i++) {
+			trace.keys[i] = workload.memoryCacheKeys[sequence[i]];
+			trace.bitmaps[i] = workload.bitmaps[sequence[i]];
+		}
+		return trace;
+	}
+
+	static Trace feedTrace() {
+		int hotCount = 300;
+		ZipfianGenerator hotGenerator = new ZipfianGenerator(hotCount, 0.9);
+		BenchmarkBitmaps bitmapRegistry = new BenchmarkBitmaps();
+		Bitmap[] hotBitmaps = new Bitmap[hotCount];
+		for (int i = 0; i < hotCount; i++) {
+			hotBitmaps[i] = i % 2 == 0 ? bitmapRegistry.create(96, 96) : bitmapRegistry.create(48, 48);
+		}
+
+		Random random = new Random(SEED);
+		Trace trace = new Trace("feed", SYNTHETIC_TRACE_LENGTH, bitmapRegistry);
+		int photo = 0;
+		for (int i = 0; i < trace.keys.length; i++) {
+			if (random.nextBoolean()) {
+				int index = hotGenerator.next(random);
+				Bitmap bitmap = hotBitmaps[index];
+				trace.keys[i] = "http://images.example.com/avatars/" + index + ".png_"
+						+ bitmapRegistry.getWidth(bitmap) + "x" + bitmapRegistry.getHeight(bitmap);
+				trace.bitmaps[i] = bitmap;
+			} else {
+				// Photo is shown again when user scrolls back a bit
+				if (random.nextInt(3) != 0) photo++;
+				trace.keys[i] = "http://images.example.com/feed/" + photo + ".jpg_480x360";
+				trace.bitmaps[i] = bitmapRegistry.create(480, 360);
+			}
+		}
+		return trace;
+	}
+
+	static Trace readTrace(File file) throws IOException {
+		List<String> keys = new ArrayList<String>();
+		List<Bitmap> bitmaps = new ArrayList<Bitmap>();
+		Map<String, Bitmap> bitmapsByKey = new HashMap<String, Bitmap>();
+		BenchmarkBitmaps bitmapRegistry = new BenchmarkBitmaps();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() == 0) continue;
+
+				String[] parts = line.split("\\s+");
+				if (parts.length != 3) {
+					throw new IOException("Wrong trace line (expected \"[key] [width] [height]\"): " + line);
+				}
+				Bitmap bitmap = bitmapsByKey.get(parts[0]);
+				if (bitmap == null) {
+					bitmap = bitmapRegistry.create(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+					bitmapsByKey.put(parts[0], bitmap);
+				}
+				keys.add(parts[0]);
+				bitmaps.add(bitmap);
+			}
+		} finally {
+			reader.close();
+		}
+
+		Trace trace = new Trace(file.getName(), keys.size(), bitmapRegistry);
+		keys.toArray(trace.keys);
+		bitmaps.toArray(trace.bitmaps);
+		return trace;
+	}
+
+	/** Sequence of requested images */
+	static final class Trace {
+		final String name;
+		final String[] keys;
+		final Bitmap[] bitmaps;
+		final BenchmarkBitmaps bitmapRegistry;
+
+		Trace(String name, int length, BenchmarkBitmaps bitmapRegistry) {
+			this.name = name;
+			this.bitmapRegistry = bitmapRegistry;
+			keys = new String[length];
+			bitmaps = new Bitmap[length];
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.benchmarks;
+
+import android.graphics.Bitmap;
+
+import java.util.Random;
+
+/**
+ * Set of images which benchmarks work with. Image dimensions are distributed like in typical feed/gallery app:
+ * <ul>
+ * <li>60% - thumbnails (160x160, ~100 KB in memory)</li>
+ * <li>30% - list items (480x360, ~675 KB in memory)</li>
+ * <li>10% - full screen images (1080x720, ~3 MB in memory)</li>
+ * </ul>
+ * Memory cache keys are built the same way as ImageLoader builds them ("[uri]_[width]x[height]"). Bitmaps are
+ * {@linkplain BenchmarkBitmaps opaque}, caches for them are created by {@link #bitmapRegistry}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class ImageWorkload {
+
+	private static final String URI_PATTERN = "http://images.example.com/photos/%d.jpg";
+	private static final long SEED = 42;
+
+	final String[] uris;
+	final String[] memoryCacheKeys;
+	final Bitmap[] bitmaps;
+	final BenchmarkBitmaps bitmapRegistry = new BenchmarkBitmaps();
+
+	ImageWorkload(int imageCount) {
+		uris = new String[imageCount];
+		memoryCacheKeys = new String[imageCount];
+		bitmaps = new Bitmap[imageCount];
+
+		Random random = new Random(SEED);
+		for (int i = 0; i < imageCount; i++) {
+			int kind = random.nextInt(10);
+			int width;
+			int height;
+			if (kind < 6) {
+				width = 160;
+				height = 160;
+			} else if (kind < 9) {
+				width = 480;
+				height = 360;
+			} else {
+				width = 1080;
+				height = 720;
+			}
+			uris[i] = String.format(URI_PATTERN, i);
+			memoryCacheKeys[i] = uris[i] + "_" + width + "x" + height;
+			bitmaps[i] = bitmapRegistry.create(width, height);
+		}
+	}
+
+	/** Returns approximate size of image file (compressed JPEG) */
+	int getFileSize(int index) {
+		return bitmapRegistry.sizeOf(bitmaps[index]) / 10;
+	}
+}
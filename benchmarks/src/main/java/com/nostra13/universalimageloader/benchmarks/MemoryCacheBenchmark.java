@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.benchmarks;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput and latency of {@link MemoryCache} implementations. Requested images follow Zipfian
+ * distribution. Every benchmark runs in 1 thread and in 4 threads, use JMH option <code>-t</code> for other thread
+ * counts.
+ * <ul>
+ * <li><b>get</b> - lookups only (cache is warmed up, hit ratio depends on cache policy)</li>
+ * <li><b>getOrPut</b> - lookup and put on miss, the way ImageLoader uses cache</li>
+ * <li><b>put</b> - puts only, measures eviction cost</li>
+ * <li><b>contended</b> - lookups of "UI thread" while 3 "workers" look up and put images, the way cache is used
+ * during fling. Look at sample time of <code>contended:uiGet</code>.</li>
+ * </ul>
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemoryCacheBenchmark {
+
+	private static final int SEQUENCE_LENGTH = 1 << 16;
+
+	@Param({"LruMemoryCache", "SegmentedLruMemoryCache", "WTinyLfuMemoryCache", "FIFOLimitedMemoryCache",
+			"LRULimitedMemoryCache", "UsingFreqLimitedMemoryCache", "LargestLimitedMemoryCache", "FuzzyKeyMemoryCache"})
+	public String cacheType;
+
+	/** Size of cache in MB. 16 MB is the largest size LimitedMemoryCache works well with. */
+	@Param({"16"})
+	public int cacheSizeMb;
+
+	/** Count of distinct images. Total size of images is much larger than cache size. */
+	@Param({"2000"})
+	public int imageCount;
+
+	@Param({"0.99"})
+	public double skew;
+
+	ImageWorkload workload;
+	ZipfianGenerator generator;
+	MemoryCache cache;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		workload = new ImageWorkload(imageCount);
+		generator = new ZipfianGenerator(imageCount, skew);
+		cache = workload.bitmapRegistry.createCache(cacheType, cacheSizeMb * 1024 * 1024);
+
+		// Warm up cache with the same distribution which benchmark uses
+		for (int index : generator.sequence(SEQUENCE_LENGTH, 0)) {
+			cache.put(workload.memoryCacheKeys[index], workload.bitmaps[index]);
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Bitmap get(Requests requests) {
+		return cache.get(workload.memoryCacheKeys[requests.next()]);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Bitmap get_4Threads(Requests requests) {
+		return get(requests);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Bitmap getOrPut(Requests requests) {
+		int index = requests.next();
+		String key = workload.memoryCacheKeys[index];
+		Bitmap bitmap = cache.get(key);
+		if (bitmap == null) {
+			bitmap = workload.bitmaps[index];
+			cache.put(key, bitmap);
+		}
+		return bitmap;
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Bitmap getOrPut_4Threads(Requests requests) {
+		return getOrPut(requests);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean put(Requests requests) {
+		int index = requests.next();
+		return cache.put(workload.memoryCacheKeys[index], workload.bitmaps[index]);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean put_4Threads(Requests requests) {
+		return put(requests);
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(1)
+	public Bitmap uiGet(Requests requests) {
+		return get(requests);
+	}
+
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(3)
+	public Bitmap workerGetOrPut(Requests requests) {
+		return getOrPut(requests);
+	}
+
+	/**
+	 * Pre-generated sequence of requested images, every thread has its own sequence
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	@State(Scope.Thread)
+	public static class Requests {
+		private static int seed = 1;
+
+		private int[] sequence;
+		private int cursor;
+
+		@Setup(Level.Trial)
+		public void setUp(MemoryCacheBenchmark benchmark) {
+			sequence = benchmark.generator.sequence(SEQUENCE_LENGTH, nextSeed());
+		}
+
+		int next() {
+			int index = sequence[cursor];
+			cursor = (cursor + 1) & (SEQUENCE_LENGTH - 1);
+			return index;
+		}
+
+		private static synchronized int nextSeed() {
+			return seed++;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.benchmarks;
+
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building of memory cache key on every request with taking it from {@link MemoryCacheKeys pool}. Requested
+ * images follow Zipfian distribution, the same size is requested for every image (the way list of thumbnails is
+ * scrolled back and forth). Run with JMH option <code>-prof gc</code> and compare <code>gc.alloc.rate.norm</code>
+ * (bytes allocated per request):
+ * <ul>
+ * <li><b>build</b> - new key for every request</li>
+ * <li><b>obtain</b> - pooled key, new key is built for images requested for the first time (or evicted from pool)</li>
+ * </ul>
+ * Parameter <code>imageCount</code> larger than pool capacity shows cost of pool misses.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoryCacheKeysBenchmark {
+
+	private static final int SEQUENCE_LENGTH = 1 << 16;
+	private static final int WIDTH = 240;
+	private static final int HEIGHT = 320;
+
+	/** Count of distinct images */
+	@Param({"200", "2000", "20000"})
+	public int imageCount;
+
+	@Param({"0.99"})
+	public double skew;
+
+	private String[] uris;
+	private int[] sequence;
+	private int cursor;
+	private MemoryCacheKeys keys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		uris = new ImageWorkload(imageCount).uris;
+		sequence = new ZipfianGenerator(imageCount, skew).sequence(SEQUENCE_LENGTH, 0);
+		keys = new MemoryCacheKeys(MemoryCacheKeys.DEFAULT_CAPACITY);
+	}
+
+	@Benchmark
+	public String build() {
+		return MemoryCacheKeys.build(nextUri(), WIDTH, HEIGHT);
+	}
+
+	@Benchmark
+	public String obtain() {
+		return keys.obtain(nextUri(), WIDTH, HEIGHT);
+	}
+
+	private String nextUri() {
+		String uri = uris[sequence[cursor]];
+		cursor = (cursor + 1) & (SEQUENCE_LENGTH - 1);
+		return uri;
+	}
+}
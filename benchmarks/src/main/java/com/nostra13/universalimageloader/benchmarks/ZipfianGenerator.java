@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates integers in range [0, itemCount) with Zipfian distribution: item of rank <i>k</i> is requested with
+ * probability proportional to 1 / k<sup>skew</sup>. Popular items are scattered over the range, so popularity doesn't
+ * correlate with item index. Algorithm is taken from "Quickly Generating Billion-Record Synthetic Databases" (Gray et
+ * al.), it's the same as YCSB uses.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class ZipfianGenerator {
+
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 1099511628211L;
+
+	private final int itemCount;
+	private final double skew;
+	private final double alpha;
+	private final double zetaN;
+	private final double eta;
+	private final double halfPowSkew;
+
+	public ZipfianGenerator(int itemCount, double skew) {
+		if (itemCount < 1) throw new IllegalArgumentException("itemCount must be positive number");
+		this.itemCount = itemCount;
+		this.skew = skew;
+		double zeta2 = zeta(2, skew);
+		zetaN = zeta(itemCount, skew);
+		alpha = 1.0 / (1.0 - skew);
+		eta = (1 - Math.pow(2.0 / itemCount, 1 - skew)) / (1 - zeta2 / zetaN);
+		halfPowSkew = 1 + Math.pow(0.5, skew);
+	}
+
+	/** Returns next item index */
+	public int next(Random random) {
+		return scramble(nextRank(random));
+	}
+
+	/**
+	 * Fills array with item indexes. Pre-generated sequences keep cost of random generation out of measured code.
+	 */
+	public int[] sequence(int length, long seed) {
+		Random random = new Random(seed);
+		int[] sequence = new int[length];
+		for (int i = 0; i < length; i++) {
+			sequence[i] = next(random);
+		}
+		return sequence;
+	}
+
+	private int nextRank(Random random) {
+		double u = random.nextDouble();
+		double uz = u * zetaN;
+		if (uz < 1.0) return 0;
+		if (uz < halfPowSkew) return 1;
+		int rank = (int) (itemCount * Math.pow(eta * u - eta + 1, alpha));
+		return Math.min(rank, itemCount - 1);
+	}
+
+	private int scramble(int rank) {
+		long hash = FNV_OFFSET_BASIS;
+		long value = rank;
+		for (int i = 0; i < 8; i++) {
+			hash ^= value & 0xFF;
+			hash *= FNV_PRIME;
+			value >>= 8;
+		}
+		return (int) ((hash & Long.MAX_VALUE) % itemCount);
+	}
+
+	private static double zeta(int n, double skew) {
+		double sum = 0;
+		for (int i = 1; i <= n; i++) {
+			sum += 1 / Math.pow(i, skew);
+		}
+		return sum;
+	}
+
+	@Override
+	public String toString() {
+		return "Zipfian(n=" + itemCount + ", s=" + skew + ")";
+	}
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache;
+
+/**
+ * Listener for entries which were evicted from cache to keep cache within its limits
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see EvictingCache
+ * @since 1.9.6
+ */
+public interface EvictionListener {
+
+	/**
+	 * Is called when cache evicted an entry. Can be called on any thread, so implementation must be thread-safe and
+	 * fast.
+	 *
+	 * @param size Size of evicted entry (in bytes)
+	 */
+	void onEvicted(long size);
+}
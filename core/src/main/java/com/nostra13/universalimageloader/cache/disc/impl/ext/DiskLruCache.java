@@ -15,6 +15,8 @@
  */
 package com.nostra13.universalimageloader.cache.disc.impl.ext;
 
+import com.nostra13.universalimageloader.cache.EvictionListener;
+
 import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.EOFException;
@@ -34,6 +36,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -159,7 +162,10 @@ final class DiskLruCache implements Closeable {
 	 */
 	private final LinkedHashMap<String, Entry> lruEntries =
 			new LinkedHashMap<String, Entry>(0, 0.75f, true);
+	/** Keys of readable entries. Can be checked without taking cache lock. */
+	private final Map<String, Boolean> readableKeys = new ConcurrentHashMap<String, Boolean>();
 	private int redundantOpCount;
+	private volatile EvictionListener evictionListener;
 
 	/**
 	 * To differentiate between old and current snapshots, each entry is given
@@ -395,6 +401,9 @@ final class DiskLruCache implements Closeable {
 					size += entry.lengths[t];
 					fileCount++;
 				}
+				if (entry.readable) {
+					readableKeys.put(entry.key, Boolean.TRUE);
+				}
 			} else {
 				// 表示在编辑状态  在编辑状态的 脏数据 删除
 				entry.currentEditor = null;
@@ -472,6 +481,15 @@ final class DiskLruCache implements Closeable {
 		}
 	}
 
+	/**
+	 * Returns true if readable entry named {@code key} exists. Unlike
+	 * {@link #get(String)} this method doesn't take cache lock, doesn't touch
+	 * the file system and doesn't affect LRU order.
+	 */
+	public boolean contains(String key) {
+		return readableKeys.containsKey(key);
+	}
+
 	/**
 	 * Returns a snapshot of the entry named {@code key}, or null if it doesn't
 	 * exist is not currently readable. If a value is returned, it is moved to
@@ -591,6 +609,11 @@ final class DiskLruCache implements Closeable {
 		executorService.submit(cleanupCallable);
 	}
 
+	/** Sets listener which is notified about entries evicted to keep the cache within its limits */
+	void setEvictionListener(EvictionListener evictionListener) {
+		this.evictionListener = evictionListener;
+	}
+
 	/**
 	 * Returns the number of bytes currently being used to store the values in
 	 * this cache. This may be greater than the max size if a background
@@ -665,6 +688,7 @@ final class DiskLruCache implements Closeable {
 		if (entry.readable | success) {
 			// 编辑文件成功 修改为刻度
 			entry.readable = true;
+			readableKeys.put(entry.key, Boolean.TRUE);
 			//如果成功  加入一条清除记录
 			journalWriter.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
 			if (success) {
@@ -673,6 +697,7 @@ final class DiskLruCache implements Closeable {
 		} else {
 			// 失败的话, 加入一条 移除记录
 			lruEntries.remove(entry.key);
+			readableKeys.remove(entry.key);
 			journalWriter.write(REMOVE + ' ' + entry.key + '\n');
 		}
 		journalWriter.flush();
@@ -729,6 +754,7 @@ final class DiskLruCache implements Closeable {
 		journalWriter.append(REMOVE + ' ' + key + '\n');
 		// lru remove
 		lruEntries.remove(key);
+		readableKeys.remove(key);
 
 		// 这里是 操作次数 >2000 就需要重新构建了
 		if (journalRebuildRequired()) {
@@ -780,8 +806,7 @@ final class DiskLruCache implements Closeable {
 	 */
 	private void trimToSize() throws IOException {
 		while (size > maxSize) {
-			Map.Entry<String, Entry> toEvict = lruEntries.entrySet().iterator().next();
-			remove(toEvict.getKey());
+			evict(lruEntries.entrySet().iterator().next().getValue());
 		}
 	}
 
@@ -791,8 +816,20 @@ final class DiskLruCache implements Closeable {
 	 */
 	private void trimToFileCount() throws IOException {
 		while (fileCount > maxFileCount) {
-			Map.Entry<String, Entry> toEvict = lruEntries.entrySet().iterator().next();
-			remove(toEvict.getKey());
+			evict(lruEntries.entrySet().iterator().next().getValue());
+		}
+	}
+
+	private void evict(Entry entry) throws IOException {
+		long entrySize = 0;
+		for (long length : entry.lengths) {
+			entrySize += length;
+		}
+		if (remove(entry.key)) {
+			EvictionListener listener = evictionListener;
+			if (listener != null) {
+				listener.onEvicted(entrySize);
+			}
 		}
 	}
 
@@ -803,6 +840,7 @@ final class DiskLruCache implements Closeable {
 	 */
 	public void delete() throws IOException {
 		close();
+		readableKeys.clear();
 		Util.deleteContents(directory);
 	}
 
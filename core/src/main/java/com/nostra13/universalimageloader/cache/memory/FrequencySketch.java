@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+/**
+ * Probabilistic counter of access frequency of keys (count-min sketch with 4-bit counters). Frequencies of all keys are
+ * halved periodically, so sketch forgets old popularity and reflects the recent one.<br />
+ * Every <code>long</code> of the table keeps 16 counters. Key is mapped to 4 counters in 4 rows of the table, estimated
+ * frequency is the minimum of them, so it's never lower than the real one (until aging) and is at most 15.<br />
+ * <br />
+ * <b>NOTE:</b> Sketch isn't thread-safe, callers must synchronize access.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class FrequencySketch {
+
+	/** Maximal estimated frequency */
+	public static final int MAX_FREQUENCY = 15;
+
+	private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L};
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long ONE_MASK = 0x1111111111111111L;
+	private static final int SAMPLE_FACTOR = 10;
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] table;
+	private int tableMask;
+	/** Count of increments after which all frequencies are halved */
+	private int sampleSize;
+	private int additions;
+
+	/** @param expectedSize Expected count of distinct keys which are tracked (see {@link #ensureCapacity(int)}) */
+	public FrequencySketch(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("expectedSize < 0");
+		}
+		resize(expectedSize);
+	}
+
+	/**
+	 * Grows sketch if it's smaller than needed for <b>expectedSize</b> distinct keys. Frequencies are forgotten on
+	 * growth.
+	 */
+	public void ensureCapacity(int expectedSize) {
+		if (ceilingPowerOfTwo(expectedSize) > table.length) {
+			resize(expectedSize);
+		}
+	}
+
+	private void resize(int expectedSize) {
+		int capacity = ceilingPowerOfTwo(expectedSize);
+		table = new long[capacity];
+		tableMask = capacity - 1;
+		sampleSize = capacity > Integer.MAX_VALUE / SAMPLE_FACTOR ? Integer.MAX_VALUE : SAMPLE_FACTOR * capacity;
+		additions = 0;
+	}
+
+	/** Returns estimated count of recent accesses to <b>key</b> (from 0 to {@link #MAX_FREQUENCY}) */
+	public int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		int frequency = MAX_FREQUENCY;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/** Records access to <b>key</b>. Halves all frequencies if enough accesses were recorded since last aging. */
+	public void increment(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && ++additions == sampleSize) {
+			age();
+		}
+	}
+
+	/** Increments counter <b>j</b> (0..15) of table item <b>index</b> if it isn't saturated */
+	private boolean incrementAt(int index, int j) {
+		int offset = j << 2;
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) != mask) {
+			table[index] += 1L << offset;
+			return true;
+		}
+		return false;
+	}
+
+	/** Halves all counters */
+	void age() {
+		int oddCount = 0;
+		for (int i = 0; i < table.length; i++) {
+			oddCount += Long.bitCount(table[i] & ONE_MASK);
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions = (additions >>> 1) - (oddCount >>> 2);
+	}
+
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int) h & tableMask;
+	}
+
+	private static int spread(int h) {
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		h = ((h >>> 16) ^ h) * 0x45d9f3b;
+		return (h >>> 16) ^ h;
+	}
+
+	private static int ceilingPowerOfTwo(int n) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < n && capacity < (1 << 30)) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
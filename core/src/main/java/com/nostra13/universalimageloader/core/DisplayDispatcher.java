@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.MainThreadDispatcher;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers {@linkplain DisplayBitmapTask display tasks} to main thread in batches. Completed tasks are collected in
+ * queue and are run by single drain per frame, so burst of completed loads is displayed in one frame instead of many
+ * separate messages of main looper. Drain stops when
+ * {@linkplain ImageLoaderConfiguration.Builder#displayFrameBudget(int) frame budget} is spent, the rest of tasks is
+ * run in next frame.<br />
+ * Drains are aligned to frames by {@link MainThreadDispatcher#postFrame(Runnable)}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class DisplayDispatcher implements Runnable {
+
+	private final MainThreadDispatcher mainThread;
+	private final long frameBudget;
+
+	private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+	/** Runs on main thread and schedules drain on next frame */
+	private final Runnable drainScheduler = new Runnable() {
+		@Override
+		public void run() {
+			mainThread.postFrame(DisplayDispatcher.this);
+		}
+	};
+
+	/**
+	 * @param mainThread  Dispatcher of main thread
+	 * @param frameBudget Time which drain may take per frame (in milliseconds)
+	 */
+	DisplayDispatcher(MainThreadDispatcher mainThread, long frameBudget) {
+		this.mainThread = mainThread;
+		this.frameBudget = TimeUnit.MILLISECONDS.toNanos(frameBudget);
+	}
+
+	/** Enqueues task for running on main thread within one of next frames */
+	void dispatch(Runnable task) {
+		pendingTasks.offer(task);
+		if (drainScheduled.compareAndSet(false, true)) {
+			mainThread.post(drainScheduler, 0);
+		}
+	}
+
+	/** Drains pending tasks in frame. Runs on main thread. */
+	@Override
+	public void run() {
+		if (drain()) {
+			mainThread.postFrame(this);
+		}
+	}
+
+	/**
+	 * Runs pending tasks until queue is empty or frame budget is spent. Runs on main thread.
+	 *
+	 * @return <b>true</b> - if tasks are left for next frame and drain must be scheduled again; <b>false</b> -
+	 * otherwise
+	 */
+	boolean drain() {
+		long deadline = System.nanoTime() + frameBudget;
+		Runnable task;
+		while ((task = pendingTasks.poll()) != null) {
+			task.run();
+			if (System.nanoTime() >= deadline) break;
+		}
+		if (!pendingTasks.isEmpty()) return true;
+
+		drainScheduled.set(false);
+		// Task could be enqueued after the check but before the flag was reset
+		return !pendingTasks.isEmpty() && drainScheduled.compareAndSet(false, true);
+	}
+}
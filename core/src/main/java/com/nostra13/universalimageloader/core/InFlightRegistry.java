@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of operations which are in progress at the moment. The first task which comes for some key becomes an
+ * owner of the operation. Tasks which come later for the same key are attached to the running operation as waiters,
+ * so they don't occupy pool threads while the operation is running. When owner finishes the operation it takes all
+ * attached waiters and continues them itself.
+ *
+ * @param <T> Type of waiting tasks
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class InFlightRegistry<T> {
+
+	private final Map<String, List<T>> flights = new HashMap<String, List<T>>();
+
+	/**
+	 * Starts operation for incoming key or attaches incoming task to already running operation for this key.
+	 *
+	 * @return <b>true</b> - if task became an owner of operation; <b>false</b> - if task was attached as waiter to
+	 * operation which is already running
+	 */
+	synchronized boolean attach(String key, T task) {
+		List<T> waiters = flights.get(key);
+		if (waiters == null) {
+			flights.put(key, new ArrayList<T>(0));
+			return true;
+		}
+		waiters.add(task);
+		return false;
+	}
+
+	/**
+	 * Finishes operation for incoming key.
+	 *
+	 * @return Tasks which were waiting for operation (can be empty, never <b>null</b>)
+	 */
+	synchronized List<T> detach(String key) {
+		List<T> waiters = flights.remove(key);
+		return waiters == null ? Collections.<T>emptyList() : waiters;
+	}
+
+	/** Returns count of tasks which wait for operation for incoming key (0 if operation isn't running) */
+	synchronized int waiterCount(String key) {
+		List<T> waiters = flights.get(key);
+		return waiters == null ? 0 : waiters.size();
+	}
+
+	/** Returns count of running operations */
+	synchronized int size() {
+		return flights.size();
+	}
+
+	/** Forgets all running operations and their waiters */
+	synchronized void clear() {
+		flights.clear();
+	}
+}
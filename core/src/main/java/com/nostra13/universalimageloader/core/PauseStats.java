@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+/**
+ * Statistics of {@link ImageLoader} pauses: how long ImageLoader was paused and how many display tasks were held back
+ * during pauses.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see ImageLoader#pause()
+ * @see ImageLoader#getPauseStats()
+ * @since 1.9.6
+ */
+public final class PauseStats {
+
+	private volatile int pauseCount;
+	private volatile long lastPauseDuration;
+	private volatile int lastHeldTaskCount;
+	private volatile long totalPauseDuration;
+	private volatile long totalHeldTaskCount;
+
+	PauseStats() {
+	}
+
+	/** Must be called under engine pause lock */
+	void record(long pauseDuration, int heldTaskCount) {
+		pauseCount++;
+		lastPauseDuration = pauseDuration;
+		lastHeldTaskCount = heldTaskCount;
+		totalPauseDuration += pauseDuration;
+		totalHeldTaskCount += heldTaskCount;
+	}
+
+	/** Returns count of finished pauses */
+	public int getPauseCount() {
+		return pauseCount;
+	}
+
+	/** Returns duration (in milliseconds) of last finished pause */
+	public long getLastPauseDuration() {
+		return lastPauseDuration;
+	}
+
+	/** Returns count of display tasks which were held back during last finished pause */
+	public int getLastHeldTaskCount() {
+		return lastHeldTaskCount;
+	}
+
+	/** Returns total duration (in milliseconds) of all finished pauses */
+	public long getTotalPauseDuration() {
+		return totalPauseDuration;
+	}
+
+	/** Returns total count of display tasks which were held back during all finished pauses */
+	public long getTotalHeldTaskCount() {
+		return totalHeldTaskCount;
+	}
+
+	@Override
+	public String toString() {
+		return "PauseStats[pauses=" + pauseCount + ", last=" + lastPauseDuration + "ms/" + lastHeldTaskCount
+				+ " tasks, total=" + totalPauseDuration + "ms/" + totalHeldTaskCount + " tasks]";
+	}
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.MainThreadDispatcher;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers {@linkplain ProgressUpdate progress updates} of all active downloads on main thread in batches. Updates are
+ * collected in queue and delivered by single drain which runs not more often than once per
+ * {@linkplain ImageLoaderConfiguration.Builder#progressUpdateInterval(int) interval}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class ProgressDispatcher implements Runnable {
+
+	private final MainThreadDispatcher mainThread;
+	private final long interval;
+
+	private final Queue<Runnable> pendingUpdates = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+	/** Time of last drain (in milliseconds, see {@link System#nanoTime()}) */
+	private volatile long lastDrainTime;
+
+	/**
+	 * @param mainThread Dispatcher of main thread
+	 * @param interval   Minimal interval between deliveries (in milliseconds)
+	 */
+	ProgressDispatcher(MainThreadDispatcher mainThread, long interval) {
+		this.mainThread = mainThread;
+		this.interval = interval;
+		lastDrainTime = uptimeMillis() - interval;
+	}
+
+	/** Enqueues update which {@linkplain ProgressUpdate#set(int, int) became pending} for delivery */
+	void dispatch(Runnable update) {
+		pendingUpdates.offer(update);
+		if (drainScheduled.compareAndSet(false, true)) {
+			long delay = lastDrainTime + interval - uptimeMillis();
+			mainThread.post(this, delay > 0 ? delay : 0);
+		}
+	}
+
+	/** Drains all pending updates. Runs on main thread. */
+	@Override
+	public void run() {
+		drainScheduled.set(false);
+		lastDrainTime = uptimeMillis();
+		Runnable update;
+		while ((update = pendingUpdates.poll()) != null) {
+			update.run();
+		}
+	}
+
+	private static long uptimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of time which display tasks spend in queue (from submitting to start of execution), collected separately
+ * for every {@linkplain LoadingPriority priority}. Can be used to verify effect of task priorities.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see ImageLoader#getQueueWaitStats()
+ * @since 1.9.6
+ */
+public final class QueueWaitStats {
+
+	private static final int LANES_COUNT = LoadingPriority.values().length;
+
+	private final AtomicLongArray taskCounts = new AtomicLongArray(LANES_COUNT);
+	private final AtomicLongArray totalWaitTimes = new AtomicLongArray(LANES_COUNT);
+	private final AtomicLongArray maxWaitTimes = new AtomicLongArray(LANES_COUNT);
+
+	QueueWaitStats() {
+	}
+
+	void record(LoadingPriority priority, long waitTime) {
+		int lane = priority.ordinal();
+		taskCounts.incrementAndGet(lane);
+		totalWaitTimes.addAndGet(lane, waitTime);
+		long max;
+		do {
+			max = maxWaitTimes.get(lane);
+		} while (waitTime > max && !maxWaitTimes.compareAndSet(lane, max, waitTime));
+	}
+
+	/** Returns count of tasks of incoming priority which were taken from queue */
+	public long getTaskCount(LoadingPriority priority) {
+		return taskCounts.get(priority.ordinal());
+	}
+
+	/** Returns average queue wait time (in milliseconds) of tasks of incoming priority */
+	public long getAverageWaitTime(LoadingPriority priority) {
+		int lane = priority.ordinal();
+		long count = taskCounts.get(lane);
+		return count == 0 ? 0 : totalWaitTimes.get(lane) / count;
+	}
+
+	/** Returns maximum queue wait time (in milliseconds) of tasks of incoming priority */
+	public long getMaxWaitTime(LoadingPriority priority) {
+		return maxWaitTimes.get(priority.ordinal());
+	}
+
+	/** Resets all collected statistics */
+	public void reset() {
+		for (int i = 0; i < LANES_COUNT; i++) {
+			taskCounts.set(i, 0);
+			totalWaitTimes.set(i, 0);
+			maxWaitTimes.set(i, 0);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("QueueWaitStats[");
+		for (LoadingPriority priority : LoadingPriority.values()) {
+			if (priority.ordinal() > 0) sb.append(", ");
+			sb.append(priority).append(": count=").append(getTaskCount(priority))
+					.append(", avg=").append(getAverageWaitTime(priority))
+					.append("ms, max=").append(getMaxWaitTime(priority)).append("ms");
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * State of {@linkplain DisplayImageOptions.Builder#groupTag(Object) task groups}: whether group is paused and which
+ * {@linkplain CancelToken cancel token} tasks of group share. Tags are compared by {@link Object#equals(Object)}, so
+ * equal tags mean the same group. Tags are held strongly:
+ * <ul>
+ * <li>paused group is kept until it's resumed, so held tasks of group are never stranded;</li>
+ * <li>token of group is kept while there are tasks which share it. Group is forgotten when it's cancelled or when all
+ * its tasks are gone, so tag object (e.g. Activity) isn't leaked.</li>
+ * </ul>
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class TaskGroups {
+
+	private final Map<Object, TokenReference> tokens = new HashMap<Object, TokenReference>();
+	private final ReferenceQueue<CancelToken> collectedTokens = new ReferenceQueue<CancelToken>();
+	private final Set<Object> pausedGroups = new HashSet<Object>();
+
+	/** Returns cancel token which is shared by tasks of group created at this moment */
+	synchronized CancelToken getToken(Object tag) {
+		expungeCollectedTokens();
+		TokenReference reference = tokens.get(tag);
+		CancelToken token = reference == null ? null : reference.get();
+		if (token == null) {
+			token = new CancelToken();
+			tokens.put(tag, new TokenReference(tag, token, collectedTokens));
+		}
+		return token;
+	}
+
+	/** Cancels all tasks of group which were created before this moment */
+	synchronized void cancel(Object tag) {
+		expungeCollectedTokens();
+		TokenReference reference = tokens.remove(tag);
+		CancelToken token = reference == null ? null : reference.get();
+		if (token != null) {
+			token.cancelled = true;
+		}
+	}
+
+	/** @return <b>true</b> - if group wasn't paused before; <b>false</b> - otherwise */
+	synchronized boolean pause(Object tag) {
+		return pausedGroups.add(tag);
+	}
+
+	/** @return <b>true</b> - if group was paused before; <b>false</b> - otherwise */
+	synchronized boolean resume(Object tag) {
+		return pausedGroups.remove(tag);
+	}
+
+	synchronized boolean isPaused(Object tag) {
+		return !pausedGroups.isEmpty() && pausedGroups.contains(tag);
+	}
+
+	/** Returns count of groups which are remembered at the moment (paused groups and groups with alive tasks) */
+	synchronized int size() {
+		expungeCollectedTokens();
+		Set<Object> tags = new HashSet<Object>(tokens.keySet());
+		tags.addAll(pausedGroups);
+		return tags.size();
+	}
+
+	/** Forgets groups whose tasks are all gone */
+	private void expungeCollectedTokens() {
+		Reference<? extends CancelToken> reference;
+		while ((reference = collectedTokens.poll()) != null) {
+			TokenReference tokenReference = (TokenReference) reference;
+			// Group could get new token after cancellation
+			if (tokens.get(tokenReference.tag) == tokenReference) {
+				tokens.remove(tokenReference.tag);
+			}
+		}
+	}
+
+	/** Token which is shared by tasks of group. Token is marked when group is cancelled. */
+	static final class CancelToken {
+		private volatile boolean cancelled;
+
+		boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	private static final class TokenReference extends WeakReference<CancelToken> {
+		final Object tag;
+
+		TokenReference(Object tag, CancelToken token, ReferenceQueue<CancelToken> queue) {
+			super(token, queue);
+			this.tag = tag;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.utils.L;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel. Keeps delayed tasks in buckets of the wheel and passes them to
+ * {@linkplain ExpirationListener listener} when their delay is over. Scheduling and cancellation of task take constant
+ * time. The only timer thread is started lazily and sleeps while there are no scheduled tasks.
+ *
+ * @param <T> Type of scheduled tasks
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class TimingWheel<T> implements Runnable {
+
+	private static final String THREAD_NAME = "uil-timer";
+
+	private final long tickDuration;
+	private final Entry<T>[] wheel;
+	private final int mask;
+	private final ExpirationListener<T> listener;
+
+	private final Map<T, Entry<T>> entries = new IdentityHashMap<T, Entry<T>>();
+	private final Object lock = new Object();
+	private Thread worker;
+	private long startTime;
+	private long tick;
+
+	/**
+	 * @param tickDuration Duration of one tick of the wheel (in milliseconds). Defines precision of delays.
+	 * @param ticksPerWheel Count of buckets in the wheel. Is rounded up to power of two.
+	 * @param listener      Listener which receives tasks when their delay is over. It's called on timer thread.
+	 */
+	TimingWheel(long tickDuration, int ticksPerWheel, ExpirationListener<T> listener) {
+		int size = 1;
+		while (size < ticksPerWheel) {
+			size <<= 1;
+		}
+		this.tickDuration = tickDuration;
+		this.wheel = newWheel(size);
+		this.mask = size - 1;
+		this.listener = listener;
+	}
+
+	/**
+	 * Schedules task. Task which is already scheduled isn't scheduled again.
+	 *
+	 * @param delay Delay (in milliseconds) after which task will be passed to listener
+	 */
+	void schedule(T task, long delay) {
+		synchronized (lock) {
+			if (entries.containsKey(task)) return;
+
+			long now = now();
+			if (entries.isEmpty()) {
+				// Wheel was idle, so there is no need to catch up missed ticks
+				startTime = now;
+				tick = 0;
+			}
+			long deadlineTick = (now + delay - startTime + tickDuration - 1) / tickDuration - 1;
+			if (deadlineTick < tick) {
+				deadlineTick = tick;
+			}
+			Entry<T> entry = new Entry<T>(task, (int) (deadlineTick & mask), (deadlineTick - tick) / wheel.length);
+			link(entry);
+			entries.put(task, entry);
+
+			if (worker == null) {
+				worker = new Thread(this, THREAD_NAME);
+				worker.setDaemon(true);
+				worker.start();
+			} else {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Cancels scheduled task.
+	 *
+	 * @return <b>true</b> - if task was cancelled; <b>false</b> - if task wasn't scheduled or its delay is already
+	 * over
+	 */
+	boolean cancel(T task) {
+		synchronized (lock) {
+			Entry<T> entry = entries.remove(task);
+			if (entry == null) return false;
+			unlink(entry);
+			return true;
+		}
+	}
+
+	/** Returns count of scheduled tasks */
+	int size() {
+		synchronized (lock) {
+			return entries.size();
+		}
+	}
+
+	/** Cancels all scheduled tasks */
+	void clear() {
+		synchronized (lock) {
+			for (int i = 0; i < wheel.length; i++) {
+				wheel[i] = null;
+			}
+			entries.clear();
+		}
+	}
+
+	@Override
+	public void run() {
+		List<T> expired = new ArrayList<T>();
+		while (true) {
+			synchronized (lock) {
+				try {
+					while (entries.isEmpty()) {
+						lock.wait();
+					}
+					long sleepTime = startTime + (tick + 1) * tickDuration - now();
+					if (sleepTime > 0) {
+						lock.wait(sleepTime);
+						continue;
+					}
+				} catch (InterruptedException e) {
+					worker = null;
+					return;
+				}
+				expireBucket((int) (tick & mask), expired);
+				tick++;
+			}
+			for (T task : expired) {
+				try {
+					listener.onExpired(task);
+				} catch (RuntimeException e) {
+					L.e(e);
+				}
+			}
+			expired.clear();
+		}
+	}
+
+	/** Returns monotonic time (in milliseconds) which isn't affected by changes of wall-clock time */
+	private static long now() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Entry<T>[] newWheel(int size) {
+		return (Entry<T>[]) new Entry<?>[size];
+	}
+
+	private void expireBucket(int bucket, List<T> expired) {
+		Entry<T> entry = wheel[bucket];
+		while (entry != null) {
+			Entry<T> next = entry.next;
+			if (entry.remainingRounds <= 0) {
+				unlink(entry);
+				entries.remove(entry.task);
+				expired.add(entry.task);
+			} else {
+				entry.remainingRounds--;
+			}
+			entry = next;
+		}
+	}
+
+	private void link(Entry<T> entry) {
+		Entry<T> head = wheel[entry.bucket];
+		entry.next = head;
+		if (head != null) {
+			head.prev = entry;
+		}
+		wheel[entry.bucket] = entry;
+	}
+
+	private void unlink(Entry<T> entry) {
+		if (entry.prev == null) {
+			wheel[entry.bucket] = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next != null) {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = null;
+		entry.next = null;
+	}
+
+	private static final class Entry<T> {
+		final T task;
+		final int bucket;
+		long remainingRounds;
+		Entry<T> prev;
+		Entry<T> next;
+
+		Entry(T task, int bucket, long remainingRounds) {
+			this.task = task;
+			this.bucket = bucket;
+			this.remainingRounds = remainingRounds;
+		}
+	}
+
+	/**
+	 * Listener of task expiration
+	 *
+	 * @param <T> Type of scheduled tasks
+	 */
+	interface ExpirationListener<T> {
+		/** Is called on timer thread when delay of task is over */
+		void onExpired(T task);
+	}
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Priority lane of display task. Tasks of higher priority are always taken for execution before tasks of lower
+ * priority. Tasks of the same priority are ordered according to {@link QueueProcessingType}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public enum LoadingPriority {
+	/** For images which must be shown as soon as possible (e.g. hero image of screen) */
+	IMMEDIATE,
+	/** For images which are visible on screen. Default priority. */
+	VISIBLE,
+	/** For images which will be probably shown soon (e.g. next page of list) */
+	PREFETCH,
+	/** For images which are not expected to be shown soon */
+	BACKGROUND
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Runs tasks on main (UI) thread of platform. ImageLoader delivers display results and progress updates through it, so
+ * scheduling of these deliveries doesn't depend on Android and can be run and measured on plain JVM.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public interface MainThreadDispatcher {
+
+	/** @return <b>true</b> - if current thread is main thread; <b>false</b> - otherwise */
+	boolean isMainThread();
+
+	/**
+	 * Runs task on main thread after delay.
+	 *
+	 * @param delay Delay (in milliseconds), <b>0</b> means the task is run as soon as possible
+	 * @return <b>true</b> - if task was scheduled; <b>false</b> - otherwise (e.g. main thread is finishing)
+	 */
+	boolean post(Runnable task, long delay);
+
+	/**
+	 * Runs task on main thread when next frame starts. Is called on main thread. Frames are drawn on main thread, so
+	 * task which is run per frame doesn't delay drawing longer than it runs itself.
+	 */
+	void postFrame(Runnable task);
+}
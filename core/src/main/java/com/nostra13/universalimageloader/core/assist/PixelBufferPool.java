@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+/**
+ * Pool of pixel buffers (e.g. {@code android.graphics.Bitmap}) which aren't used anymore and can be reused for new
+ * images.
+ *
+ * @param <B> Type of pixel buffer
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public interface PixelBufferPool<B> {
+
+	/**
+	 * Puts buffer into pool. Caller must not use buffer after it was accepted.
+	 *
+	 * @return <b>true</b> - if buffer was put into pool; <b>false</b> - otherwise
+	 */
+	boolean put(B buffer);
+
+	/**
+	 * Removes incoming buffer from pool.
+	 *
+	 * @return <b>true</b> - if buffer was in pool; <b>false</b> - otherwise
+	 */
+	boolean remove(B buffer);
+}
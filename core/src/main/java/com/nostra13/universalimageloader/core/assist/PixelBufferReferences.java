@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Counts references to pixel buffers which are displayed, so buffers evicted from memory cache get into
+ * {@linkplain PixelBufferPool pool} only when nothing displays them anymore. View acquires reference to buffer when
+ * buffer is displayed in it and releases reference when another image is bound to the view. Buffer which is handed to
+ * code out of ImageLoader's control (e.g. to listener of view-less request) is {@linkplain #retain(Object) retained}
+ * and never gets into pool.<br />
+ * Unreferenced evicted buffer is put into pool immediately. Referenced one is put into pool when its last reference is
+ * released. Buffers are held weakly, so buffers of views collected by GC don't leak.<br />
+ * All methods are thread-safe.
+ *
+ * @param <B> Type of pixel buffer
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class PixelBufferReferences<B> {
+
+	private final PixelBufferPool<B> pool;
+	private final Map<B, Reference> references = new WeakHashMap<B, Reference>();
+
+	public PixelBufferReferences(PixelBufferPool<B> pool) {
+		if (pool == null) {
+			throw new IllegalArgumentException("pool must not be null");
+		}
+		this.pool = pool;
+	}
+
+	/**
+	 * Acquires reference to buffer. If buffer was already put into pool (it was evicted from memory cache right before
+	 * it was displayed) then it's taken back from pool.
+	 */
+	public void acquire(B buffer) {
+		if (buffer == null) return;
+
+		synchronized (this) {
+			obtainReference(buffer).count++;
+		}
+	}
+
+	/**
+	 * Keeps buffer out of pool for as long as the buffer is alive. Is used for buffers which are handed to code which
+	 * doesn't release them. If buffer was already put into pool then it's taken back from pool.
+	 */
+	public void retain(B buffer) {
+		if (buffer == null) return;
+
+		synchronized (this) {
+			obtainReference(buffer).retained = true;
+		}
+	}
+
+	/** Releases reference to buffer. Evicted buffer is put into pool when its last reference is released. */
+	public void release(B buffer) {
+		if (buffer == null) return;
+
+		synchronized (this) {
+			Reference reference = references.get(buffer);
+			if (reference == null) return;
+
+			if (--reference.count > 0 || reference.retained) return;
+
+			references.remove(buffer);
+			if (reference.evicted) {
+				pool.put(buffer);
+			}
+		}
+	}
+
+	/** Is called when buffer was evicted from memory cache. Buffer is put into pool if it isn't referenced. */
+	public void onEvicted(B buffer) {
+		if (buffer == null) return;
+
+		synchronized (this) {
+			Reference reference = references.get(buffer);
+			if (reference != null) {
+				reference.evicted = true;
+			} else {
+				pool.put(buffer);
+			}
+		}
+	}
+
+	/** @return Count of references to buffer */
+	public synchronized int getReferenceCount(B buffer) {
+		Reference reference = references.get(buffer);
+		return reference == null ? 0 : reference.count;
+	}
+
+	/** Returns reference to buffer, takes buffer back from pool if it was already put there. Must be called under lock. */
+	private Reference obtainReference(B buffer) {
+		Reference reference = references.get(buffer);
+		if (reference == null) {
+			reference = new Reference();
+			references.put(buffer, reference);
+		}
+		if (pool.remove(buffer)) {
+			reference.evicted = true;
+		}
+		return reference;
+	}
+
+	private static final class Reference {
+		int count;
+		/** Whether buffer was evicted from memory cache */
+		boolean evicted;
+		/** Whether buffer must never get into pool */
+		boolean retained;
+	}
+}
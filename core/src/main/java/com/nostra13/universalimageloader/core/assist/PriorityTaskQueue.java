@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Unbounded blocking queue of tasks which keeps separate lane for every {@link LoadingPriority}. Task is always taken
+ * from the highest non-empty lane. Tasks within a lane are taken in FIFO or LIFO order (depends on
+ * {@link QueueProcessingType}). Tasks which don't implement {@link Prioritized} are placed into
+ * {@link LoadingPriority#VISIBLE} lane.<br />
+ * Removal of a task from the queue takes constant time.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+	private static final LoadingPriority DEFAULT_PRIORITY = LoadingPriority.VISIBLE;
+	private static final int LANES_COUNT = LoadingPriority.values().length;
+
+	private final boolean lifo;
+
+	private final Node[] heads = new Node[LANES_COUNT];
+	private final Node[] tails = new Node[LANES_COUNT];
+	private final int[] laneSizes = new int[LANES_COUNT];
+	private final Map<Runnable, Node> nodes = new IdentityHashMap<Runnable, Node>();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+
+	public PriorityTaskQueue(QueueProcessingType tasksProcessingType) {
+		lifo = tasksProcessingType == QueueProcessingType.LIFO;
+	}
+
+	/**
+	 * Adds task to the tail of the lane of its priority. Task which is queued already isn't duplicated: it's only moved
+	 * into the lane of its current priority (if priority was changed), and offer is still successful. So executor
+	 * doesn't reject repeated submission of the same task.
+	 */
+	@Override
+	public boolean offer(Runnable task) {
+		if (task == null) throw new NullPointerException();
+		lock.lock();
+		try {
+			Node queuedNode = nodes.get(task);
+			if (queuedNode != null) {
+				int lane = laneOf(task);
+				if (queuedNode.lane != lane) {
+					unlink(queuedNode);
+					queuedNode.lane = lane;
+					link(queuedNode);
+				}
+				return true;
+			}
+			Node node = new Node(task, laneOf(task));
+			link(node);
+			nodes.put(task, node);
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void put(Runnable task) {
+		offer(task);
+	}
+
+	@Override
+	public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+		return offer(task);
+	}
+
+	@Override
+	public Runnable poll() {
+		lock.lock();
+		try {
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			Runnable task;
+			while ((task = dequeue()) == null) {
+				notEmpty.await();
+			}
+			return task;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			Runnable task;
+			while ((task = dequeue()) == null) {
+				if (nanos <= 0) return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return task;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable peek() {
+		lock.lock();
+		try {
+			Node node = next();
+			return node == null ? null : node.task;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		lock.lock();
+		try {
+			Node node = nodes.remove(o);
+			if (node == null) return false;
+			unlink(node);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		lock.lock();
+		try {
+			return nodes.containsKey(o);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return nodes.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Moves queued task into the lane of its current {@linkplain Prioritized#getPriority() priority}. Task is placed
+	 * into the lane as if it was offered just now. Call it when priority of already queued task was changed.
+	 *
+	 * @return <b>true</b> - if task is in queue; <b>false</b> - otherwise
+	 */
+	public boolean reprioritize(Runnable task) {
+		lock.lock();
+		try {
+			Node node = nodes.get(task);
+			if (node == null) return false;
+			unlink(node);
+			node.lane = laneOf(task);
+			link(node);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns count of queued tasks of incoming priority */
+	public int size(LoadingPriority priority) {
+		lock.lock();
+		try {
+			return laneSizes[priority.ordinal()];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int drainTo(Collection<? super Runnable> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super Runnable> c, int maxElements) {
+		if (c == null) throw new NullPointerException();
+		if (c == this) throw new IllegalArgumentException();
+		lock.lock();
+		try {
+			int n = 0;
+			Runnable task;
+			while (n < maxElements && (task = dequeue()) != null) {
+				c.add(task);
+				n++;
+			}
+			return n;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			for (int i = 0; i < LANES_COUNT; i++) {
+				heads[i] = null;
+				tails[i] = null;
+				laneSizes[i] = 0;
+			}
+			nodes.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns iterator over snapshot of queued tasks in order they would be taken from the queue */
+	@Override
+	public Iterator<Runnable> iterator() {
+		final List<Runnable> snapshot = new ArrayList<Runnable>();
+		lock.lock();
+		try {
+			for (int i = 0; i < LANES_COUNT; i++) {
+				if (lifo) {
+					for (Node node = tails[i]; node != null; node = node.prev) {
+						snapshot.add(node.task);
+					}
+				} else {
+					for (Node node = heads[i]; node != null; node = node.next) {
+						snapshot.add(node.task);
+					}
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		return new Iterator<Runnable>() {
+			private int cursor;
+			private Runnable last;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < snapshot.size();
+			}
+
+			@Override
+			public Runnable next() {
+				if (cursor >= snapshot.size()) throw new NoSuchElementException();
+				last = snapshot.get(cursor++);
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) throw new IllegalStateException();
+				PriorityTaskQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	private int laneOf(Runnable task) {
+		LoadingPriority priority = null;
+		if (task instanceof Prioritized) {
+			priority = ((Prioritized) task).getPriority();
+		}
+		return (priority == null ? DEFAULT_PRIORITY : priority).ordinal();
+	}
+
+	/** Must be called under lock */
+	private Node next() {
+		for (int i = 0; i < LANES_COUNT; i++) {
+			Node node = lifo ? tails[i] : heads[i];
+			if (node != null) return node;
+		}
+		return null;
+	}
+
+	/** Must be called under lock */
+	private Runnable dequeue() {
+		Node node = next();
+		if (node == null) return null;
+		unlink(node);
+		nodes.remove(node.task);
+		return node.task;
+	}
+
+	private void link(Node node) {
+		int lane = node.lane;
+		node.prev = tails[lane];
+		node.next = null;
+		if (tails[lane] == null) {
+			heads[lane] = node;
+		} else {
+			tails[lane].next = node;
+		}
+		tails[lane] = node;
+		laneSizes[lane]++;
+	}
+
+	private void unlink(Node node) {
+		int lane = node.lane;
+		if (node.prev == null) {
+			heads[lane] = node.next;
+		} else {
+			node.prev.next = node.next;
+		}
+		if (node.next == null) {
+			tails[lane] = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+		node.prev = null;
+		node.next = null;
+		laneSizes[lane]--;
+	}
+
+	private static final class Node {
+		final Runnable task;
+		int lane;
+		Node prev;
+		Node next;
+
+		Node(Runnable task, int lane) {
+			this.task = task;
+			this.lane = lane;
+		}
+	}
+
+	/**
+	 * Task which has {@linkplain LoadingPriority priority}
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	public interface Prioritized {
+		/** Returns priority of task (can be <b>null</b>, then default priority is used) */
+		LoadingPriority getPriority();
+	}
+}
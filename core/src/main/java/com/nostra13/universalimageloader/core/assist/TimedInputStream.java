@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decorator for {@link java.io.InputStream InputStream}. Measures time spent in reading from wrapped stream.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class TimedInputStream extends InputStream {
+
+	private final InputStream stream;
+	private long readTime;
+
+	public TimedInputStream(InputStream stream) {
+		this.stream = stream;
+	}
+
+	/** Returns total time (in nanoseconds) spent in reading from wrapped stream */
+	public long getReadTime() {
+		return readTime;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return stream.available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		stream.close();
+	}
+
+	@Override
+	public void mark(int readLimit) {
+		stream.mark(readLimit);
+	}
+
+	@Override
+	public int read() throws IOException {
+		long start = System.nanoTime();
+		try {
+			return stream.read();
+		} finally {
+			readTime += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public int read(byte[] buffer) throws IOException {
+		return read(buffer, 0, buffer.length);
+	}
+
+	@Override
+	public int read(byte[] buffer, int byteOffset, int byteCount) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return stream.read(buffer, byteOffset, byteCount);
+		} finally {
+			readTime += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void reset() throws IOException {
+		stream.reset();
+	}
+
+	@Override
+	public long skip(long byteCount) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return stream.skip(byteCount);
+		} finally {
+			readTime += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public boolean markSupported() {
+		return stream.markSupported();
+	}
+}
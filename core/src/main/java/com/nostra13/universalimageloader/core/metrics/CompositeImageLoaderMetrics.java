@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.metrics;
+
+/**
+ * Passes all events to several {@link ImageLoaderMetrics}. E.g. allows to collect
+ * {@linkplain HistogramImageLoaderMetrics histograms} and {@linkplain RequestTracer trace} at the same time.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class CompositeImageLoaderMetrics implements ImageLoaderMetrics {
+
+	private final ImageLoaderMetrics[] metrics;
+
+	public CompositeImageLoaderMetrics(ImageLoaderMetrics... metrics) {
+		for (ImageLoaderMetrics m : metrics) {
+			if (m == null) throw new IllegalArgumentException("metrics must not contain null");
+		}
+		this.metrics = metrics.clone();
+	}
+
+	@Override
+	public void onStageFinished(Stage stage, int requestId, String imageUri, long duration) {
+		for (ImageLoaderMetrics m : metrics) {
+			m.onStageFinished(stage, requestId, imageUri, duration);
+		}
+	}
+
+	@Override
+	public void onCacheEvent(CacheEvent event) {
+		for (ImageLoaderMetrics m : metrics) {
+			m.onCacheEvent(event);
+		}
+	}
+
+	@Override
+	public void onQueueDepth(TaskQueue queue, int depth) {
+		for (ImageLoaderMetrics m : metrics) {
+			m.onQueueDepth(queue, depth);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Default {@link ImageLoaderMetrics}. Keeps {@linkplain LatencyHistogram latency histogram} for every
+ * {@linkplain Stage stage} (values are in microseconds), counters of {@linkplain CacheEvent cache events} and current
+ * and maximum depths of {@linkplain TaskQueue task queues}. Collected data can be dumped by {@link #dump()}.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class HistogramImageLoaderMetrics implements ImageLoaderMetrics {
+
+	private static final Stage[] STAGES = Stage.values();
+	private static final CacheEvent[] CACHE_EVENTS = CacheEvent.values();
+	private static final TaskQueue[] QUEUES = TaskQueue.values();
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+	private final AtomicLongArray cacheEventCounts = new AtomicLongArray(CACHE_EVENTS.length);
+	private final AtomicIntegerArray queueDepths = new AtomicIntegerArray(QUEUES.length);
+	private final AtomicIntegerArray maxQueueDepths = new AtomicIntegerArray(QUEUES.length);
+
+	public HistogramImageLoaderMetrics() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	@Override
+	public void onStageFinished(Stage stage, int requestId, String imageUri, long duration) {
+		histograms[stage.ordinal()].record(duration / 1000);
+	}
+
+	@Override
+	public void onCacheEvent(CacheEvent event) {
+		cacheEventCounts.incrementAndGet(event.ordinal());
+	}
+
+	@Override
+	public void onQueueDepth(TaskQueue queue, int depth) {
+		int i = queue.ordinal();
+		queueDepths.set(i, depth);
+		int max;
+		do {
+			max = maxQueueDepths.get(i);
+		} while (depth > max && !maxQueueDepths.compareAndSet(i, max, depth));
+	}
+
+	/** Returns histogram of durations (in microseconds) of incoming stage */
+	public LatencyHistogram getHistogram(Stage stage) {
+		return histograms[stage.ordinal()];
+	}
+
+	/** Returns count of incoming cache events */
+	public long getCacheEventCount(CacheEvent event) {
+		return cacheEventCounts.get(event.ordinal());
+	}
+
+	/** Returns last reported depth of incoming queue */
+	public int getQueueDepth(TaskQueue queue) {
+		return queueDepths.get(queue.ordinal());
+	}
+
+	/** Returns maximum reported depth of incoming queue */
+	public int getMaxQueueDepth(TaskQueue queue) {
+		return maxQueueDepths.get(queue.ordinal());
+	}
+
+	/** Clears all collected data */
+	public void reset() {
+		for (LatencyHistogram histogram : histograms) {
+			histogram.reset();
+		}
+		for (int i = 0; i < CACHE_EVENTS.length; i++) {
+			cacheEventCounts.set(i, 0);
+		}
+		for (int i = 0; i < QUEUES.length; i++) {
+			queueDepths.set(i, 0);
+			maxQueueDepths.set(i, 0);
+		}
+	}
+
+	/** Returns human-readable report of all collected data. Durations are in microseconds. */
+	public String dump() {
+		StringBuilder sb = new StringBuilder("ImageLoaderMetrics (durations in us)\n");
+		for (Stage stage : STAGES) {
+			LatencyHistogram histogram = histograms[stage.ordinal()];
+			if (histogram.getCount() == 0) continue;
+			sb.append(stage).append(": ").append(histogram).append('\n');
+		}
+		sb.append("Cache events:");
+		for (CacheEvent event : CACHE_EVENTS) {
+			sb.append(' ').append(event).append('=').append(getCacheEventCount(event));
+		}
+		sb.append("\nQueue depths:");
+		for (TaskQueue queue : QUEUES) {
+			sb.append(' ').append(queue).append('=').append(getQueueDepth(queue)).append(" (max ")
+					.append(getMaxQueueDepth(queue)).append(')');
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return dump();
+	}
+}
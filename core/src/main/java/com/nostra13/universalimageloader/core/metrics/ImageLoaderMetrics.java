@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.metrics;
+
+/**
+ * Receives timings of every stage of image requests, cache hit/miss/eviction events and depths of task queues.
+ * Implementation is set by <code>ImageLoaderConfiguration.Builder.metrics(...)</code>.<br />
+ * <b>NOTE:</b> Methods are called from loading threads, main thread and cache threads, often on a hot path. So
+ * implementation must be thread-safe and must not block.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see HistogramImageLoaderMetrics
+ * @since 1.9.6
+ */
+public interface ImageLoaderMetrics {
+
+	/**
+	 * Is called when request finished a stage
+	 *
+	 * @param stage     Finished stage
+	 * @param requestId ID of request, unique for every display call within ImageLoader instance
+	 * @param imageUri  URI of requested image
+	 * @param duration  Duration of the stage (in nanoseconds)
+	 */
+	void onStageFinished(Stage stage, int requestId, String imageUri, long duration);
+
+	/** Is called on every lookup in memory or disk cache, on every eviction from them and on every lookup in bitmap pool */
+	void onCacheEvent(CacheEvent event);
+
+	/**
+	 * Is called when task is put into queue
+	 *
+	 * @param queue Queue the task was put into
+	 * @param depth Count of tasks waiting in the queue
+	 */
+	void onQueueDepth(TaskQueue queue, int depth);
+
+	/** Stages of image request */
+	public static enum Stage {
+		/** From submitting of task to start of its execution */
+		QUEUE_WAIT,
+		/** Waiting for another task which was loading or downloading the same image */
+		URI_LOCK_WAIT,
+		/** From request to downloader until stream of image is received (time to first byte) */
+		NETWORK_FIRST_BYTE,
+		/** Reading of image stream from downloader */
+		NETWORK_TRANSFER,
+		/** Writing of downloaded image to disk cache (without time spent on reading the stream) */
+		DISK_WRITE,
+		/** Decoding of image bounds (only for decoders which report it, e.g. <code>BaseImageDecoder</code>) */
+		DECODE_BOUNDS,
+		/** Whole decoding of image including decoding of bounds, scaling and rotation */
+		DECODE,
+		/** Pre-processing of image before caching in memory */
+		PRE_PROCESS,
+		/** Post-processing of image before displaying */
+		POST_PROCESS,
+		/** Displaying of image on main thread */
+		DISPLAY
+	}
+
+	/** Events of memory and disk caches and of bitmap pool */
+	public static enum CacheEvent {
+		MEMORY_HIT, MEMORY_MISS, MEMORY_EVICTION, DISK_HIT, DISK_MISS, DISK_EVICTION,
+		/** Image was decoded into pooled bitmap */
+		BITMAP_POOL_HIT,
+		/** Bitmap pool had no bitmap compatible with decoded image */
+		BITMAP_POOL_MISS
+	}
+
+	/** Queues of tasks */
+	public static enum TaskQueue {
+		/** Queue of tasks which load images from network or other sources */
+		SOURCE,
+		/** Queue of tasks which load images cached on disk and decode downloaded images */
+		CACHED,
+		/** Tasks held back while ImageLoader or their group is paused */
+		HELD
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link ImageLoaderMetrics} which records stages of requests into pre-allocated ring buffer. Every record keeps
+ * request ID, hash of image URI, stage, start time and duration. Recording doesn't take locks and doesn't allocate
+ * objects, so tracer can be left enabled. When buffer is full the oldest records are overwritten.<br />
+ * Recorded trace can be written in <a href="https://github.com/catapult-project/catapult/wiki/Trace-Event-Format">Chrome
+ * trace event format</a> by {@link #writeChromeTrace(Writer)} and opened in <code>chrome://tracing</code>. Every request
+ * is shown as separate row there.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see CompositeImageLoaderMetrics
+ * @since 1.9.6
+ */
+public class RequestTracer implements ImageLoaderMetrics {
+
+	/** Default count of records kept by tracer */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	private static final Stage[] STAGES = Stage.values();
+
+	private final int mask;
+	private final long[] startTimes;
+	private final long[] durations;
+	private final int[] requestIds;
+	private final int[] uriHashes;
+	private final byte[] stages;
+	/** Sequence number (+1) of record in every slot, <b>0</b> while slot is being written */
+	private final AtomicLongArray sequences;
+	private final AtomicLong cursor = new AtomicLong();
+
+	public RequestTracer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/** @param capacity Max count of kept records. Is rounded up to power of two. */
+	public RequestTracer(int capacity) {
+		if (capacity <= 0 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity must be in range [1..2^30]");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) size <<= 1;
+		mask = size - 1;
+		startTimes = new long[size];
+		durations = new long[size];
+		requestIds = new int[size];
+		uriHashes = new int[size];
+		stages = new byte[size];
+		sequences = new AtomicLongArray(size);
+	}
+
+	@Override
+	public void onStageFinished(Stage stage, int requestId, String imageUri, long duration) {
+		long endTime = System.nanoTime();
+		long sequence = cursor.getAndIncrement();
+		int i = (int) (sequence & mask);
+		sequences.set(i, 0);
+		startTimes[i] = endTime - duration;
+		durations[i] = duration;
+		requestIds[i] = requestId;
+		uriHashes[i] = imageUri == null ? 0 : imageUri.hashCode();
+		stages[i] = (byte) stage.ordinal();
+		sequences.lazySet(i, sequence + 1);
+	}
+
+	@Override
+	public void onCacheEvent(CacheEvent event) {
+	}
+
+	@Override
+	public void onQueueDepth(TaskQueue queue, int depth) {
+	}
+
+	/** Returns max count of kept records */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/** Forgets all recorded stages */
+	public void clear() {
+		for (int i = 0; i <= mask; i++) {
+			sequences.set(i, 0);
+		}
+	}
+
+	/**
+	 * Writes recorded stages (from the oldest to the newest) as JSON in Chrome trace event format. Can be called while
+	 * tracer is recording, records which are overwritten during writing are skipped.
+	 */
+	public void writeChromeTrace(Writer writer) throws IOException {
+		writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+		long end = cursor.get();
+		long start = Math.max(0, end - getCapacity());
+		boolean first = true;
+		for (long sequence = start; sequence < end; sequence++) {
+			int i = (int) (sequence & mask);
+			if (sequences.get(i) != sequence + 1) continue;
+			long startTime = startTimes[i];
+			long duration = durations[i];
+			int requestId = requestIds[i];
+			int uriHash = uriHashes[i];
+			int stage = stages[i];
+			if (sequences.get(i) != sequence + 1) continue; // Record was overwritten while reading
+
+			if (!first) writer.write(',');
+			first = false;
+			writer.write("\n{\"name\":\"");
+			writer.write(STAGES[stage].name());
+			writer.write("\",\"cat\":\"image\",\"ph\":\"X\",\"pid\":1,\"tid\":");
+			writer.write(String.valueOf(requestId));
+			writer.write(",\"ts\":");
+			writeMicros(writer, startTime);
+			writer.write(",\"dur\":");
+			writeMicros(writer, duration);
+			writer.write(",\"args\":{\"uri\":\"");
+			writer.write(Integer.toHexString(uriHash));
+			writer.write("\"}}");
+		}
+		writer.write("\n]}\n");
+		writer.flush();
+	}
+
+	private static void writeMicros(Writer writer, long nanos) throws IOException {
+		if (nanos < 0) {
+			writer.write('-');
+			nanos = -nanos;
+		}
+		writer.write(String.valueOf(nanos / 1000));
+		int fraction = (int) (nanos % 1000);
+		writer.write('.');
+		if (fraction < 100) writer.write('0');
+		if (fraction < 10) writer.write('0');
+		writer.write(String.valueOf(fraction));
+	}
+}
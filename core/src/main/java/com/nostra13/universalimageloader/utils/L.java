@@ -15,20 +15,30 @@
  *******************************************************************************/
 package com.nostra13.universalimageloader.utils;
 
-import android.util.Log;
-import com.nostra13.universalimageloader.core.ImageLoader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
 /**
- * "Less-word" analog of Android {@link android.util.Log logger}
+ * "Less-word" analog of Android {@link android.util.Log logger}. Logs are passed to {@link LogWriter} which can be
+ * changed by {@link #setLogWriter(LogWriter)}, by default they are printed into standard output streams.
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @since 1.6.4
  */
 public final class L {
 
+	/** Priority constants (the same values as Android {@link android.util.Log} uses) */
+	public static final int DEBUG = 3;
+	public static final int INFO = 4;
+	public static final int WARN = 5;
+	public static final int ERROR = 6;
+
+	private static final String TAG = "ImageLoader";
 	private static final String LOG_FORMAT = "%1$s\n%2$s";
 	private static volatile boolean writeDebugLogs = false;
 	private static volatile boolean writeLogs = true;
+	private static volatile LogWriter logWriter = new StreamLogWriter();
+	private static boolean logWriterSet = false;
 
 	private L() {
 	}
@@ -54,7 +64,7 @@ public final class L {
 	}
 
 	/**
-	 * Enables/disables detail logging of {@link ImageLoader} work.
+	 * Enables/disables detail logging of {@link com.nostra13.universalimageloader.core.ImageLoader ImageLoader} work.
 	 * Consider {@link com.nostra13.universalimageloader.utils.L#disableLogging()} to disable
 	 * ImageLoader logging completely (even error logs)<br />
 	 * Debug logs are disabled by default.
@@ -63,35 +73,60 @@ public final class L {
 		L.writeDebugLogs = writeDebugLogs;
 	}
 
-	/** Enables/disables logging of {@link ImageLoader} completely (even error logs). */
+	/** Enables/disables logging of {@link com.nostra13.universalimageloader.core.ImageLoader ImageLoader} completely (even error logs). */
 	public static void writeLogs(boolean writeLogs) {
 		L.writeLogs = writeLogs;
 	}
 
+	/**
+	 * Sets writer which logs are passed to. Android library sets writer which passes logs to LogCat.
+	 *
+	 * @throws IllegalArgumentException if passed <b>logWriter</b> is null
+	 */
+	public static synchronized void setLogWriter(LogWriter logWriter) {
+		if (logWriter == null) throw new IllegalArgumentException("logWriter can't be null");
+		L.logWriter = logWriter;
+		logWriterSet = true;
+	}
+
+	/**
+	 * Sets default writer which logs are passed to. Writer is set only if no writer was set before (by
+	 * {@link #setLogWriter(LogWriter)} or by previous call of this method).
+	 *
+	 * @return <b>true</b> - if writer was set; <b>false</b> - if another writer was set before
+	 * @throws IllegalArgumentException if passed <b>logWriter</b> is null
+	 */
+	public static synchronized boolean setDefaultLogWriter(LogWriter logWriter) {
+		if (logWriter == null) throw new IllegalArgumentException("logWriter can't be null");
+		if (logWriterSet) return false;
+		setLogWriter(logWriter);
+		return true;
+	}
+
 	public static void d(String message, Object... args) {
 		if (writeDebugLogs) {
-			log(Log.DEBUG, null, message, args);
+			log(DEBUG, null, message, args);
 		}
 	}
 
 	public static void i(String message, Object... args) {
-		log(Log.INFO, null, message, args);
+		log(INFO, null, message, args);
 	}
 
 	public static void w(String message, Object... args) {
-		log(Log.WARN, null, message, args);
+		log(WARN, null, message, args);
 	}
 
 	public static void e(Throwable ex) {
-		log(Log.ERROR, ex, null);
+		log(ERROR, ex, null);
 	}
 
 	public static void e(String message, Object... args) {
-		log(Log.ERROR, null, message, args);
+		log(ERROR, null, message, args);
 	}
 
 	public static void e(Throwable ex, String message, Object... args) {
-		log(Log.ERROR, ex, message, args);
+		log(ERROR, ex, message, args);
 	}
 
 	private static void log(int priority, Throwable ex, String message, Object... args) {
@@ -105,9 +140,30 @@ public final class L {
 			log = message;
 		} else {
 			String logMessage = message == null ? ex.getMessage() : message;
-			String logBody = Log.getStackTraceString(ex);
+			String logBody = getStackTraceString(ex);
 			log = String.format(LOG_FORMAT, logMessage, logBody);
 		}
-		Log.println(priority, ImageLoader.TAG, log);
+		logWriter.println(priority, TAG, log);
+	}
+
+	private static String getStackTraceString(Throwable ex) {
+		StringWriter sw = new StringWriter();
+		PrintWriter pw = new PrintWriter(sw);
+		ex.printStackTrace(pw);
+		pw.flush();
+		return sw.toString();
+	}
+
+	/**
+	 * Writes logs into standard output stream (errors and warnings - into standard error stream)
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	private static class StreamLogWriter implements LogWriter {
+		@Override
+		public void println(int priority, String tag, String message) {
+			(priority >= WARN ? System.err : System.out).println(tag + ": " + message);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.utils;
+
+/**
+ * Destination of {@linkplain L ImageLoader logs}
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public interface LogWriter {
+	/**
+	 * Writes log message
+	 *
+	 * @param priority Priority of message ({@link L#DEBUG}, {@link L#INFO}, {@link L#WARN} or {@link L#ERROR})
+	 * @param tag      Tag of message
+	 * @param message  Formatted message (with stack trace of exception if any)
+	 */
+	void println(int priority, String tag, String message);
+}
@@ -0,0 +1,70 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+	@Test
+	public void testFrequencyIsCounted() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 5; i++) {
+			sketch.increment("hot");
+		}
+		sketch.increment("warm");
+
+		Assertions.assertThat(sketch.frequency("hot")).isEqualTo(5);
+		Assertions.assertThat(sketch.frequency("warm")).isEqualTo(1);
+		Assertions.assertThat(sketch.frequency("cold")).isEqualTo(0);
+	}
+
+	@Test
+	public void testFrequencyIsSaturated() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 100; i++) {
+			sketch.increment("hot");
+		}
+
+		Assertions.assertThat(sketch.frequency("hot")).isEqualTo(FrequencySketch.MAX_FREQUENCY);
+	}
+
+	@Test
+	public void testAging() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(512);
+		for (int i = 0; i < 8; i++) {
+			sketch.increment("hot");
+		}
+		sketch.age();
+
+		Assertions.assertThat(sketch.frequency("hot")).isEqualTo(4);
+	}
+
+	@Test
+	public void testOldPopularityIsForgotten() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(16);
+		for (int i = 0; i < 10; i++) {
+			sketch.increment("old");
+		}
+		for (int i = 0; i < 10000; i++) {
+			sketch.increment("key" + i);
+		}
+
+		Assertions.assertThat(sketch.frequency("old")).isLessThan(10);
+	}
+
+	@Test
+	public void testEnsureCapacityResetsFrequencies() throws Exception {
+		FrequencySketch sketch = new FrequencySketch(16);
+		sketch.increment("key");
+		sketch.ensureCapacity(16);
+		Assertions.assertThat(sketch.frequency("key")).isEqualTo(1);
+
+		sketch.ensureCapacity(1024);
+		Assertions.assertThat(sketch.frequency("key")).isEqualTo(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongExpectedSize() throws Exception {
+		new FrequencySketch(-1);
+	}
+}
@@ -0,0 +1,74 @@
+package com.nostra13.universalimageloader.core;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DisplayDispatcherTest {
+
+	private ManualMainThread mainThread;
+	private AtomicInteger runs;
+
+	@Before
+	public void setUp() throws Exception {
+		mainThread = new ManualMainThread();
+		runs = new AtomicInteger();
+	}
+
+	@Test
+	public void testBurstOfTasksIsRunInOneFrame() throws Exception {
+		DisplayDispatcher dispatcher = new DisplayDispatcher(mainThread, 1000);
+		for (int i = 0; i < 3; i++) {
+			dispatcher.dispatch(countingTask());
+		}
+		Assertions.assertThat(mainThread.posts).hasSize(1);
+
+		mainThread.runPosts();
+		Assertions.assertThat(runs.get()).isEqualTo(0);
+		mainThread.runFrame();
+
+		Assertions.assertThat(runs.get()).isEqualTo(3);
+		Assertions.assertThat(mainThread.frameTasks).isEmpty();
+	}
+
+	@Test
+	public void testTasksOverFrameBudgetAreRunInNextFrame() throws Exception {
+		DisplayDispatcher dispatcher = new DisplayDispatcher(mainThread, 0);
+		for (int i = 0; i < 2; i++) {
+			dispatcher.dispatch(countingTask());
+		}
+		mainThread.runPosts();
+
+		mainThread.runFrame();
+		Assertions.assertThat(runs.get()).isEqualTo(1);
+		mainThread.runFrame();
+		Assertions.assertThat(runs.get()).isEqualTo(2);
+		Assertions.assertThat(mainThread.frameTasks).isEmpty();
+	}
+
+	@Test
+	public void testTaskDispatchedAfterDrainSchedulesNewDrain() throws Exception {
+		DisplayDispatcher dispatcher = new DisplayDispatcher(mainThread, 1000);
+		dispatcher.dispatch(countingTask());
+		mainThread.runPosts();
+		mainThread.runFrame();
+
+		dispatcher.dispatch(countingTask());
+		Assertions.assertThat(mainThread.posts).hasSize(1);
+		mainThread.runPosts();
+		mainThread.runFrame();
+
+		Assertions.assertThat(runs.get()).isEqualTo(2);
+	}
+
+	private Runnable countingTask() {
+		return new Runnable() {
+			@Override
+			public void run() {
+				runs.incrementAndGet();
+			}
+		};
+	}
+}
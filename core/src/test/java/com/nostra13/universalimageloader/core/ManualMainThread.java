@@ -0,0 +1,49 @@
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.MainThreadDispatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Main thread which runs posted tasks and frames only when test asks it to */
+class ManualMainThread implements MainThreadDispatcher {
+	final List<Runnable> posts = new ArrayList<Runnable>();
+	final List<Long> postDelays = new ArrayList<Long>();
+	final List<Runnable> frameTasks = new ArrayList<Runnable>();
+
+	@Override
+	public boolean isMainThread() {
+		return true;
+	}
+
+	@Override
+	public boolean post(Runnable task, long delay) {
+		posts.add(task);
+		postDelays.add(delay);
+		return true;
+	}
+
+	@Override
+	public void postFrame(Runnable task) {
+		frameTasks.add(task);
+	}
+
+	/** Runs tasks posted so far (ignoring their delays) */
+	void runPosts() {
+		List<Runnable> tasks = new ArrayList<Runnable>(posts);
+		posts.clear();
+		postDelays.clear();
+		for (Runnable task : tasks) {
+			task.run();
+		}
+	}
+
+	/** Runs tasks waiting for next frame */
+	void runFrame() {
+		List<Runnable> tasks = new ArrayList<Runnable>(frameTasks);
+		frameTasks.clear();
+		for (Runnable task : tasks) {
+			task.run();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.nostra13.universalimageloader.core;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProgressDispatcherTest {
+
+	private final ManualMainThread mainThread = new ManualMainThread();
+	private final AtomicInteger deliveries = new AtomicInteger();
+
+	@Test
+	public void testPendingUpdatesAreDeliveredByOneDrain() throws Exception {
+		ProgressDispatcher dispatcher = new ProgressDispatcher(mainThread, 1000);
+		dispatcher.dispatch(countingUpdate());
+		dispatcher.dispatch(countingUpdate());
+
+		Assertions.assertThat(mainThread.posts).hasSize(1);
+		Assertions.assertThat(mainThread.postDelays).containsExactly(0L);
+		mainThread.runPosts();
+		Assertions.assertThat(deliveries.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testNextDrainWaitsForInterval() throws Exception {
+		ProgressDispatcher dispatcher = new ProgressDispatcher(mainThread, 1000);
+		dispatcher.dispatch(countingUpdate());
+		mainThread.runPosts();
+
+		dispatcher.dispatch(countingUpdate());
+		Assertions.assertThat(mainThread.postDelays).hasSize(1);
+		Assertions.assertThat(mainThread.postDelays.get(0)).isGreaterThan(0L).isLessThanOrEqualTo(1000L);
+	}
+
+	private Runnable countingUpdate() {
+		return new Runnable() {
+			@Override
+			public void run() {
+				deliveries.incrementAndGet();
+			}
+		};
+	}
+}
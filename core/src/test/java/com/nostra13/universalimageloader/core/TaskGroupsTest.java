@@ -0,0 +1,86 @@
+package com.nostra13.universalimageloader.core;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class TaskGroupsTest {
+
+	@Test
+	public void testEqualTagsMeanTheSameGroup() throws Exception {
+		TaskGroups groups = new TaskGroups();
+		Assertions.assertThat(groups.pause(new Tag(1))).isTrue();
+		Assertions.assertThat(groups.pause(new Tag(1))).isFalse();
+		Assertions.assertThat(groups.isPaused(new Tag(1))).isTrue();
+		Assertions.assertThat(groups.isPaused(new Tag(2))).isFalse();
+
+		TaskGroups.CancelToken token = groups.getToken(new Tag(1));
+		Assertions.assertThat(groups.getToken(new Tag(1))).isSameAs(token);
+		groups.cancel(new Tag(1));
+		Assertions.assertThat(token.isCancelled()).isTrue();
+
+		Assertions.assertThat(groups.resume(new Tag(1))).isTrue();
+		Assertions.assertThat(groups.isPaused(new Tag(1))).isFalse();
+	}
+
+	@Test
+	public void testPausedGroupIsKeptUntilResume() throws Exception {
+		TaskGroups groups = new TaskGroups();
+		groups.pause(new Tag(1));
+		collectGarbage();
+
+		Assertions.assertThat(groups.isPaused(new Tag(1))).isTrue();
+		Assertions.assertThat(groups.resume(new Tag(1))).isTrue();
+		Assertions.assertThat(groups.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testCancelAffectsOnlyExistingTasks() throws Exception {
+		TaskGroups groups = new TaskGroups();
+		TaskGroups.CancelToken oldToken = groups.getToken(new Tag(1));
+		TaskGroups.CancelToken otherToken = groups.getToken(new Tag(2));
+		groups.cancel(new Tag(1));
+
+		TaskGroups.CancelToken newToken = groups.getToken(new Tag(1));
+		Assertions.assertThat(oldToken.isCancelled()).isTrue();
+		Assertions.assertThat(newToken.isCancelled()).isFalse();
+		Assertions.assertThat(newToken).isNotSameAs(oldToken);
+		Assertions.assertThat(otherToken.isCancelled()).isFalse();
+	}
+
+	@Test
+	public void testGroupIsForgottenWhenItsTasksAreGone() throws Exception {
+		TaskGroups groups = new TaskGroups();
+		TaskGroups.CancelToken token = groups.getToken(new Tag(1));
+		groups.getToken(new Tag(2));
+		for (int i = 0; i < 50 && groups.size() > 1; i++) {
+			collectGarbage();
+		}
+
+		Assertions.assertThat(groups.size()).isEqualTo(1);
+		Assertions.assertThat(groups.getToken(new Tag(1))).isSameAs(token);
+	}
+
+	private static void collectGarbage() throws InterruptedException {
+		System.gc();
+		Thread.sleep(10);
+	}
+
+	/** Tag which is equal to other instances with the same id */
+	private static final class Tag {
+		private final int id;
+
+		Tag(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Tag && ((Tag) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.nostra13.universalimageloader.core;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TimingWheelTest {
+
+	private static final long TICK = 10;
+
+	@Test
+	public void testTaskExpiresAfterDelay() throws Exception {
+		RecordingListener listener = new RecordingListener(1);
+		TimingWheel<String> wheel = new TimingWheel<String>(TICK, 8, listener);
+		long start = System.nanoTime();
+		wheel.schedule("task", 50);
+
+		Assertions.assertThat(listener.expired.await(1, TimeUnit.SECONDS)).isTrue();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		Assertions.assertThat(elapsed).isGreaterThanOrEqualTo(50 - TICK);
+		Assertions.assertThat(listener.tasks).containsExactly("task");
+		Assertions.assertThat(wheel.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testDelayLongerThanWheelRound() throws Exception {
+		RecordingListener listener = new RecordingListener(2);
+		TimingWheel<String> wheel = new TimingWheel<String>(TICK, 4, listener);
+		wheel.schedule("late", 100);
+		wheel.schedule("early", 20);
+
+		Assertions.assertThat(listener.expired.await(1, TimeUnit.SECONDS)).isTrue();
+		Assertions.assertThat(listener.tasks).containsExactly("early", "late");
+	}
+
+	@Test
+	public void testCancelledTaskDoesNotExpire() throws Exception {
+		RecordingListener listener = new RecordingListener(1);
+		TimingWheel<String> wheel = new TimingWheel<String>(TICK, 8, listener);
+		wheel.schedule("cancelled", 30);
+		wheel.schedule("kept", 60);
+
+		Assertions.assertThat(wheel.cancel("cancelled")).isTrue();
+		Assertions.assertThat(wheel.cancel("cancelled")).isFalse();
+		Assertions.assertThat(listener.expired.await(1, TimeUnit.SECONDS)).isTrue();
+		Assertions.assertThat(listener.tasks).containsExactly("kept");
+	}
+
+	@Test
+	public void testScheduledTaskIsNotScheduledAgain() throws Exception {
+		TimingWheel<String> wheel = new TimingWheel<String>(TICK, 8, new RecordingListener(1));
+		wheel.schedule("task", 1000);
+		wheel.schedule("task", 1000);
+
+		Assertions.assertThat(wheel.size()).isEqualTo(1);
+		wheel.clear();
+		Assertions.assertThat(wheel.size()).isEqualTo(0);
+	}
+
+	private static class RecordingListener implements TimingWheel.ExpirationListener<String> {
+		final List<String> tasks = new CopyOnWriteArrayList<String>();
+		final CountDownLatch expired;
+
+		RecordingListener(int count) {
+			expired = new CountDownLatch(count);
+		}
+
+		@Override
+		public void onExpired(String task) {
+			tasks.add(task);
+			expired.countDown();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.nostra13.universalimageloader.core.assist;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class PixelBufferReferencesTest {
+
+	private SetPool pool;
+	private PixelBufferReferences<Object> references;
+	private Object buffer;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new SetPool();
+		references = new PixelBufferReferences<Object>(pool);
+		buffer = new Object();
+	}
+
+	@Test
+	public void testUnreferencedEvictedBufferIsPooled() throws Exception {
+		references.onEvicted(buffer);
+
+		Assertions.assertThat(pool.buffers).containsOnly(buffer);
+	}
+
+	@Test
+	public void testReferencedEvictedBufferIsPooledOnLastRelease() throws Exception {
+		references.acquire(buffer);
+		references.acquire(buffer);
+		references.onEvicted(buffer);
+		references.release(buffer);
+		Assertions.assertThat(pool.buffers).isEmpty();
+
+		references.release(buffer);
+		Assertions.assertThat(pool.buffers).containsOnly(buffer);
+		Assertions.assertThat(references.getReferenceCount(buffer)).isEqualTo(0);
+	}
+
+	@Test
+	public void testAcquiredBufferIsTakenBackFromPool() throws Exception {
+		references.onEvicted(buffer);
+		references.acquire(buffer);
+		Assertions.assertThat(pool.buffers).isEmpty();
+
+		references.release(buffer);
+		Assertions.assertThat(pool.buffers).containsOnly(buffer);
+	}
+
+	@Test
+	public void testReleasedNotEvictedBufferIsNotPooled() throws Exception {
+		references.acquire(buffer);
+		references.release(buffer);
+
+		Assertions.assertThat(pool.buffers).isEmpty();
+	}
+
+	private static class SetPool implements PixelBufferPool<Object> {
+		final Set<Object> buffers = new HashSet<Object>();
+
+		@Override
+		public boolean put(Object buffer) {
+			return buffers.add(buffer);
+		}
+
+		@Override
+		public boolean remove(Object buffer) {
+			return buffers.remove(buffer);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package com.nostra13.universalimageloader.core.assist;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class PriorityTaskQueueTest {
+
+	@Test
+	public void testHigherPriorityIsTakenFirst() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.FIFO);
+		Runnable background = new TestTask(LoadingPriority.BACKGROUND);
+		Runnable visible = new TestTask(LoadingPriority.VISIBLE);
+		Runnable immediate = new TestTask(LoadingPriority.IMMEDIATE);
+		queue.offer(background);
+		queue.offer(visible);
+		queue.offer(immediate);
+
+		Assertions.assertThat(queue.poll()).isSameAs(immediate);
+		Assertions.assertThat(queue.poll()).isSameAs(visible);
+		Assertions.assertThat(queue.poll()).isSameAs(background);
+		Assertions.assertThat(queue.poll()).isNull();
+	}
+
+	@Test
+	public void testFifoWithinPriority() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.FIFO);
+		Runnable first = new TestTask(LoadingPriority.VISIBLE);
+		Runnable second = new TestTask(LoadingPriority.VISIBLE);
+		queue.offer(first);
+		queue.offer(second);
+
+		Assertions.assertThat(queue.poll()).isSameAs(first);
+		Assertions.assertThat(queue.poll()).isSameAs(second);
+	}
+
+	@Test
+	public void testLifoWithinPriority() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.LIFO);
+		Runnable first = new TestTask(LoadingPriority.VISIBLE);
+		Runnable second = new TestTask(LoadingPriority.VISIBLE);
+		Runnable prefetch = new TestTask(LoadingPriority.PREFETCH);
+		queue.offer(prefetch);
+		queue.offer(first);
+		queue.offer(second);
+
+		Assertions.assertThat(queue.poll()).isSameAs(second);
+		Assertions.assertThat(queue.poll()).isSameAs(first);
+		Assertions.assertThat(queue.poll()).isSameAs(prefetch);
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.FIFO);
+		Runnable first = new TestTask(LoadingPriority.VISIBLE);
+		Runnable second = new TestTask(LoadingPriority.VISIBLE);
+		Runnable third = new TestTask(LoadingPriority.VISIBLE);
+		queue.offer(first);
+		queue.offer(second);
+		queue.offer(third);
+
+		Assertions.assertThat(queue.remove(second)).isTrue();
+		Assertions.assertThat(queue.remove(second)).isFalse();
+		Assertions.assertThat(queue.size()).isEqualTo(2);
+		Assertions.assertThat(queue.size(LoadingPriority.VISIBLE)).isEqualTo(2);
+		Assertions.assertThat(queue.poll()).isSameAs(first);
+		Assertions.assertThat(queue.poll()).isSameAs(third);
+	}
+
+	@Test
+	public void testNotPrioritizedTaskHasDefaultPriority() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.FIFO);
+		Runnable prefetch = new TestTask(LoadingPriority.PREFETCH);
+		Runnable plain = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		queue.offer(prefetch);
+		queue.offer(plain);
+
+		Assertions.assertThat(queue.poll()).isSameAs(plain);
+		Assertions.assertThat(queue.poll()).isSameAs(prefetch);
+	}
+
+	@Test
+	public void testReprioritize() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.FIFO);
+		TestTask visible = new TestTask(LoadingPriority.VISIBLE);
+		TestTask background = new TestTask(LoadingPriority.BACKGROUND);
+		queue.offer(visible);
+		queue.offer(background);
+
+		background.priority = LoadingPriority.IMMEDIATE;
+		Assertions.assertThat(queue.reprioritize(background)).isTrue();
+		Assertions.assertThat(queue.reprioritize(new TestTask(LoadingPriority.VISIBLE))).isFalse();
+		Assertions.assertThat(queue.size(LoadingPriority.BACKGROUND)).isEqualTo(0);
+		Assertions.assertThat(queue.size(LoadingPriority.IMMEDIATE)).isEqualTo(1);
+		Assertions.assertThat(queue.poll()).isSameAs(background);
+		Assertions.assertThat(queue.poll()).isSameAs(visible);
+	}
+
+	@Test
+	public void testDuplicateOfferIsAcceptedOnce() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.FIFO);
+		TestTask visible = new TestTask(LoadingPriority.VISIBLE);
+		TestTask background = new TestTask(LoadingPriority.BACKGROUND);
+		queue.offer(visible);
+		queue.offer(background);
+
+		background.priority = LoadingPriority.IMMEDIATE;
+		Assertions.assertThat(queue.offer(background)).isTrue();
+		Assertions.assertThat(queue.size()).isEqualTo(2);
+		Assertions.assertThat(queue.size(LoadingPriority.IMMEDIATE)).isEqualTo(1);
+		Assertions.assertThat(queue.poll()).isSameAs(background);
+		Assertions.assertThat(queue.poll()).isSameAs(visible);
+		Assertions.assertThat(queue.poll()).isNull();
+	}
+
+	@Test
+	public void testExecutorAcceptsDuplicateSubmission() throws Exception {
+		PriorityTaskQueue queue = new PriorityTaskQueue(QueueProcessingType.FIFO);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(0, 1, 0, TimeUnit.MILLISECONDS, queue);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ignored) {
+				}
+			}
+		});
+		started.await();
+		TestTask task = new TestTask(LoadingPriority.VISIBLE);
+		executor.execute(task);
+		executor.execute(task); // must not throw RejectedExecutionException
+
+		Assertions.assertThat(queue.size()).isEqualTo(1);
+		release.countDown();
+		executor.shutdown();
+		Assertions.assertThat(executor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private static class TestTask implements Runnable, PriorityTaskQueue.Prioritized {
+		private LoadingPriority priority;
+
+		TestTask(LoadingPriority priority) {
+			this.priority = priority;
+		}
+
+		@Override
+		public LoadingPriority getPriority() {
+			return priority;
+		}
+
+		@Override
+		public void run() {
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.nostra13.universalimageloader.core.metrics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBucketsCoverValues() throws Exception {
+		for (long value : new long[]{0, 1, 7, 8, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE}) {
+			long upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value));
+			Assertions.assertThat(upperBound).isGreaterThanOrEqualTo(value);
+			Assertions.assertThat(upperBound - value).isLessThanOrEqualTo(value / 8);
+		}
+	}
+
+	@Test
+	public void testPercentiles() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+
+		Assertions.assertThat(histogram.getCount()).isEqualTo(1000);
+		Assertions.assertThat(histogram.getMax()).isEqualTo(1000);
+		Assertions.assertThat(histogram.getMean()).isEqualTo(500);
+		Assertions.assertThat(histogram.getPercentile(50)).isBetween(500L, 500L + 500 / 8);
+		Assertions.assertThat(histogram.getPercentile(99)).isBetween(990L, 1000L);
+		Assertions.assertThat(histogram.getPercentile(100)).isEqualTo(1000);
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(42);
+		histogram.reset();
+
+		Assertions.assertThat(histogram.getCount()).isEqualTo(0);
+		Assertions.assertThat(histogram.getPercentile(50)).isEqualTo(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongPercentile() throws Exception {
+		new LatencyHistogram().getPercentile(0);
+	}
+}
@@ -0,0 +1,53 @@
+package com.nostra13.universalimageloader.core.metrics;
+
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.Stage;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+public class RequestTracerTest {
+
+	@Test
+	public void testCapacityIsRoundedUp() throws Exception {
+		Assertions.assertThat(new RequestTracer(1000).getCapacity()).isEqualTo(1024);
+		Assertions.assertThat(new RequestTracer(1024).getCapacity()).isEqualTo(1024);
+	}
+
+	@Test
+	public void testChromeTrace() throws Exception {
+		RequestTracer tracer = new RequestTracer(4);
+		tracer.onStageFinished(Stage.DECODE, 7, "http://host/image.png", 1500);
+
+		String trace = writeTrace(tracer);
+		Assertions.assertThat(trace).startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+		Assertions.assertThat(trace).contains("\"name\":\"DECODE\"", "\"ph\":\"X\"", "\"tid\":7", "\"dur\":1.500",
+				"\"uri\":\"" + Integer.toHexString("http://host/image.png".hashCode()) + "\"");
+	}
+
+	@Test
+	public void testOldestRecordsAreOverwritten() throws Exception {
+		RequestTracer tracer = new RequestTracer(2);
+		tracer.onStageFinished(Stage.QUEUE_WAIT, 1, "uri", 0);
+		tracer.onStageFinished(Stage.DECODE, 2, "uri", 0);
+		tracer.onStageFinished(Stage.DISPLAY, 3, "uri", 0);
+
+		String trace = writeTrace(tracer);
+		Assertions.assertThat(trace).doesNotContain("QUEUE_WAIT").contains("DECODE", "DISPLAY");
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		RequestTracer tracer = new RequestTracer(2);
+		tracer.onStageFinished(Stage.DECODE, 1, "uri", 0);
+		tracer.clear();
+
+		Assertions.assertThat(writeTrace(tracer)).doesNotContain("DECODE");
+	}
+
+	private static String writeTrace(RequestTracer tracer) throws Exception {
+		StringWriter writer = new StringWriter();
+		tracer.writeChromeTrace(writer);
+		return writer.toString();
+	}
+}
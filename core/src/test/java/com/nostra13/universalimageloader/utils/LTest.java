@@ -0,0 +1,31 @@
+package com.nostra13.universalimageloader.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LTest {
+
+	@Test
+	public void testDefaultWriterDoesNotReplaceSetWriter() throws Exception {
+		RecordingWriter writer = new RecordingWriter();
+		RecordingWriter defaultWriter = new RecordingWriter();
+		L.setLogWriter(writer);
+
+		Assertions.assertThat(L.setDefaultLogWriter(defaultWriter)).isFalse();
+		L.w("message");
+		Assertions.assertThat(writer.messages).containsExactly("message");
+		Assertions.assertThat(defaultWriter.messages).isEmpty();
+	}
+
+	private static class RecordingWriter implements LogWriter {
+		final List<String> messages = new ArrayList<String>();
+
+		@Override
+		public void println(int priority, String tag, String message) {
+			messages.add(message);
+		}
+	}
+}
@@ -60,7 +60,8 @@ public interface DiskCache {
 	boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException;
 
 	/**
-	 * Saves image bitmap in disk cache.
+	 * Saves image bitmap in disk cache. Bitmap is handed over to disk cache which may recycle it, so caller mustn't use
+	 * bitmap after this call.
 	 *
 	 * @param imageUri Original image URI
 	 * @param bitmap   Image bitmap
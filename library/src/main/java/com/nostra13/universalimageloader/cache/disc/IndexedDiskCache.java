@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.disc;
+
+/**
+ * {@link DiskCache} which keeps in-memory index of cached images, so presence of image is checked without file system
+ * access. ImageLoader routes display tasks on caller thread if disk cache is indexed, otherwise images are looked up
+ * in disk cache on separate thread.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public interface IndexedDiskCache extends DiskCache {
+	/**
+	 * Returns whether image for incoming URI is cached. Check must be fast (without file system access) because it's
+	 * used to route display tasks on caller thread. Result is a hint only: cached file can be removed right after the
+	 * check, so result of {@link #get(String)} still must be checked.
+	 *
+	 * @param imageUri Original image URI
+	 * @return <b>true</b> - if image is cached; <b>false</b> - otherwise
+	 */
+	boolean contains(String imageUri);
+}
@@ -16,9 +16,9 @@
 package com.nostra13.universalimageloader.cache.disc.impl;
 
 import android.graphics.Bitmap;
-import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.disc.IndexedDiskCache;
 import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
-import com.nostra13.universalimageloader.core.DefaultConfigurationFactory;
+import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
 import com.nostra13.universalimageloader.utils.IoUtils;
 
 import java.io.BufferedOutputStream;
@@ -27,6 +27,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Base disk cache.
@@ -35,7 +38,7 @@ import java.io.OutputStream;
  * @see FileNameGenerator
  * @since 1.0.0
  */
-public abstract class BaseDiskCache implements DiskCache {
+public abstract class BaseDiskCache implements IndexedDiskCache {
 	/** {@value */
 	public static final int DEFAULT_BUFFER_SIZE = 32 * 1024; // 32 Kb
 	/**
@@ -54,6 +57,8 @@ public abstract class BaseDiskCache implements DiskCache {
 	//文件后缀名
 	private static final String TEMP_IMAGE_POSTFIX = ".tmp";
 
+	private static final String INDEXER_THREAD_NAME = "uil-disk-index";
+
 	/**
 	 * 缓存目录
 	 */
@@ -71,6 +76,14 @@ public abstract class BaseDiskCache implements DiskCache {
 	protected Bitmap.CompressFormat compressFormat = DEFAULT_COMPRESS_FORMAT;
 	protected int compressQuality = DEFAULT_COMPRESS_QUALITY;
 
+	/**
+	 * Names of cached files. Allows to check presence of image without file system access. Files which were cached
+	 * before are indexed on background thread on first check (see {@link #contains(String)}), so cache creation (which
+	 * usually happens on main thread) doesn't read cache directory.
+	 */
+	private final Map<String, Boolean> cachedFileNames = new ConcurrentHashMap<String, Boolean>();
+	private final AtomicBoolean indexingStarted = new AtomicBoolean();
+
 	/** @param cacheDir Directory for file caching */
 	public BaseDiskCache(File cacheDir) {
 		this(cacheDir, null);
@@ -81,7 +94,7 @@ public abstract class BaseDiskCache implements DiskCache {
 	 * @param reserveCacheDir null-ok; Reserve directory for file caching. It's used when the primary directory isn't available.
 	 */
 	public BaseDiskCache(File cacheDir, File reserveCacheDir) {
-		this(cacheDir, reserveCacheDir, DefaultConfigurationFactory.createFileNameGenerator());
+		this(cacheDir, reserveCacheDir, new HashCodeFileNameGenerator());
 	}
 
 	/**
@@ -104,6 +117,35 @@ public abstract class BaseDiskCache implements DiskCache {
 		this.fileNameGenerator = fileNameGenerator;
 	}
 
+	/** Starts indexing of cached files on background thread if it wasn't started yet */
+	private void indexCachedFilesIfNeed() {
+		if (!indexingStarted.compareAndSet(false, true)) return;
+
+		Thread indexer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				indexCachedFiles(cacheDir);
+				if (reserveCacheDir != null) {
+					indexCachedFiles(reserveCacheDir);
+				}
+			}
+		}, INDEXER_THREAD_NAME);
+		indexer.setDaemon(true);
+		indexer.setPriority(Thread.MIN_PRIORITY);
+		indexer.start();
+	}
+
+	private void indexCachedFiles(File dir) {
+		String[] fileNames = dir.list();
+		if (fileNames != null) {
+			for (String fileName : fileNames) {
+				if (!fileName.endsWith(TEMP_IMAGE_POSTFIX)) {
+					cachedFileNames.put(fileName, Boolean.TRUE);
+				}
+			}
+		}
+	}
+
 	@Override
 	public File getDirectory() {
 		return cacheDir;
@@ -111,7 +153,22 @@ public abstract class BaseDiskCache implements DiskCache {
 
 	@Override
 	public File get(String imageUri) {
-		return getFile(imageUri);
+		File imageFile = getFile(imageUri);
+		if (!imageFile.exists()) {
+			// File could be deleted by system (e.g. when device is low on storage), index mustn't report it anymore
+			cachedFileNames.remove(imageFile.getName());
+		}
+		return imageFile;
+	}
+
+	/**
+	 * Checks index of cached files. Files which were cached before this cache was created aren't reported until they
+	 * are indexed on background thread.
+	 */
+	@Override
+	public boolean contains(String imageUri) {
+		indexCachedFilesIfNeed();
+		return cachedFileNames.containsKey(fileNameGenerator.generate(imageUri));
 	}
 
 	/**
@@ -140,6 +197,8 @@ public abstract class BaseDiskCache implements DiskCache {
 			if (!loaded) {
 				// 保存失败 tmp文件删除
 				tmpFile.delete();
+			} else {
+				cachedFileNames.put(imageFile.getName(), Boolean.TRUE);
 			}
 		}
 		return loaded;
@@ -172,6 +231,8 @@ public abstract class BaseDiskCache implements DiskCache {
 			}
 			if (!savedSuccessfully) {
 				tmpFile.delete();
+			} else {
+				cachedFileNames.put(imageFile.getName(), Boolean.TRUE);
 			}
 		}
 		bitmap.recycle();
@@ -180,7 +241,9 @@ public abstract class BaseDiskCache implements DiskCache {
 
 	@Override
 	public boolean remove(String imageUri) {
-		return getFile(imageUri).delete();
+		File imageFile = getFile(imageUri);
+		cachedFileNames.remove(imageFile.getName());
+		return imageFile.delete();
 	}
 
 	@Override
@@ -196,6 +259,7 @@ public abstract class BaseDiskCache implements DiskCache {
 				f.delete();
 			}
 		}
+		cachedFileNames.clear();
 	}
 
 	/** Returns file object (not null) for incoming image URI. File object can reference to non-existing file.
@@ -17,7 +17,7 @@ package com.nostra13.universalimageloader.cache.disc.impl;
 
 import android.graphics.Bitmap;
 import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
-import com.nostra13.universalimageloader.core.DefaultConfigurationFactory;
+import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
 import com.nostra13.universalimageloader.utils.IoUtils;
 
 import java.io.File;
@@ -42,9 +42,9 @@ public class LimitedAgeDiskCache extends BaseDiskCache {
 	private final long maxFileAge;
 
 	/**
-	 * 文件 和 时间的对应的map
+	 * 文件名 和 时间的对应的map. Keyed by file name so it's checked without file system access.
 	 */
-	private final Map<File, Long> loadingDates = Collections.synchronizedMap(new HashMap<File, Long>());
+	private final Map<String, Long> loadingDates = Collections.synchronizedMap(new HashMap<String, Long>());
 
 	/**
 	 * @param cacheDir Directory for file caching
@@ -52,7 +52,7 @@ public class LimitedAgeDiskCache extends BaseDiskCache {
 	 *                 treatment (and therefore be reloaded).
 	 */
 	public LimitedAgeDiskCache(File cacheDir, long maxAge) {
-		this(cacheDir, null, DefaultConfigurationFactory.createFileNameGenerator(), maxAge);
+		this(cacheDir, null, new HashCodeFileNameGenerator(), maxAge);
 	}
 
 	/**
@@ -61,7 +61,7 @@ public class LimitedAgeDiskCache extends BaseDiskCache {
 	 *                 treatment (and therefore be reloaded).
 	 */
 	public LimitedAgeDiskCache(File cacheDir, File reserveCacheDir, long maxAge) {
-		this(cacheDir, reserveCacheDir, DefaultConfigurationFactory.createFileNameGenerator(), maxAge);
+		this(cacheDir, reserveCacheDir, new HashCodeFileNameGenerator(), maxAge);
 	}
 
 	/**
@@ -82,8 +82,9 @@ public class LimitedAgeDiskCache extends BaseDiskCache {
 	public File get(String imageUri) {
 		File file = super.get(imageUri);
 		if (file != null && file.exists()) {
+			String fileName = fileNameGenerator.generate(imageUri);
 			boolean cached;
-			Long loadingDate = loadingDates.get(file);
+			Long loadingDate = loadingDates.get(fileName);
 			if (loadingDate == null) {
 				cached = false;
 				loadingDate = file.lastModified();
@@ -93,15 +94,23 @@ public class LimitedAgeDiskCache extends BaseDiskCache {
 
 			if (System.currentTimeMillis() - loadingDate > maxFileAge) {
 				// 过期 删除该文件
-				file.delete();
-				loadingDates.remove(file);
+				super.remove(imageUri);
+				loadingDates.remove(fileName);
 			} else if (!cached) {
-				loadingDates.put(file, loadingDate);
+				loadingDates.put(fileName, loadingDate);
 			}
 		}
 		return file;
 	}
 
+	@Override
+	public boolean contains(String imageUri) {
+		if (!super.contains(imageUri)) return false;
+		// Age of file which wasn't used yet is unknown without file system access, consider it as cached
+		Long loadingDate = loadingDates.get(fileNameGenerator.generate(imageUri));
+		return loadingDate == null || System.currentTimeMillis() - loadingDate <= maxFileAge;
+	}
+
 	// 保存图片的时候 也会记录下时间
 	@Override
 	public boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException {
@@ -119,7 +128,7 @@ public class LimitedAgeDiskCache extends BaseDiskCache {
 
 	@Override
 	public boolean remove(String imageUri) {
-		loadingDates.remove(getFile(imageUri));
+		loadingDates.remove(fileNameGenerator.generate(imageUri));
 		return super.remove(imageUri);
 	}
 
@@ -134,6 +143,6 @@ public class LimitedAgeDiskCache extends BaseDiskCache {
 		File file = getFile(imageUri);
 		long currentTime = System.currentTimeMillis();
 		file.setLastModified(currentTime);
-		loadingDates.put(file, currentTime);
+		loadingDates.put(file.getName(), currentTime);
 	}
 }
\ No newline at end of file
@@ -16,7 +16,9 @@
 package com.nostra13.universalimageloader.cache.disc.impl.ext;
 
 import android.graphics.Bitmap;
-import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+import com.nostra13.universalimageloader.cache.disc.IndexedDiskCache;
 import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
 import com.nostra13.universalimageloader.utils.IoUtils;
 import com.nostra13.universalimageloader.utils.L;
@@ -38,7 +40,7 @@ import java.io.OutputStream;
  * @see FileNameGenerator
  * @since 1.9.2
  */
-public class LruDiskCache implements DiskCache {
+public class LruDiskCache implements IndexedDiskCache, EvictingCache {
 	/** {@value */
 	public static final int DEFAULT_BUFFER_SIZE = 32 * 1024; // 32 Kb
 	/** {@value */
@@ -53,6 +55,7 @@ public class LruDiskCache implements DiskCache {
 	protected DiskLruCache cache;
 	// 预备的的缓存目录
 	private File reserveCacheDir;
+	private volatile EvictionListener evictionListener;
 
 	protected final FileNameGenerator fileNameGenerator;
 
@@ -115,6 +118,7 @@ public class LruDiskCache implements DiskCache {
 		try {
 			// 初始化 缓存 对象
 			cache = DiskLruCache.open(cacheDir, 1, 1, cacheMaxSize, cacheMaxFileCount);
+			cache.setEvictionListener(evictionListener);
 		} catch (IOException e) {
 			L.e(e);
 			if (reserveCacheDir != null) {
@@ -149,6 +153,12 @@ public class LruDiskCache implements DiskCache {
 		}
 	}
 
+	@Override
+	public boolean contains(String imageUri) {
+		DiskLruCache cache = this.cache;
+		return cache != null && cache.contains(getKey(imageUri));
+	}
+
 	@Override
 	public boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener) throws IOException {
 		// 更具 key 获取一个 Editor
@@ -245,6 +255,15 @@ public class LruDiskCache implements DiskCache {
 		return fileNameGenerator.generate(imageUri);
 	}
 
+	@Override
+	public void setEvictionListener(EvictionListener listener) {
+		evictionListener = listener;
+		DiskLruCache cache = this.cache;
+		if (cache != null) {
+			cache.setEvictionListener(listener);
+		}
+	}
+
 	public void setBufferSize(int bufferSize) {
 		this.bufferSize = bufferSize;
 	}
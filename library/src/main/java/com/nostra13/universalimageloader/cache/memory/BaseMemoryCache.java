@@ -28,7 +28,7 @@ import java.util.*;
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @since 1.0.0
  */
-public abstract class BaseMemoryCache implements MemoryCache {
+public abstract class BaseMemoryCache implements IndexedMemoryCache {
 
 	/** Stores not strong references to objects
 	 *
@@ -36,6 +36,8 @@ public abstract class BaseMemoryCache implements MemoryCache {
 	 *
 	 * */
 	private final Map<String, Reference<Bitmap>> softMap = Collections.synchronizedMap(new HashMap<String, Reference<Bitmap>>());
+	/** Keys of {@link #softMap} by image URI. It's updated under lock of {@link #softMap}. */
+	private final ImageUriKeyIndex uriIndex = new ImageUriKeyIndex();
 
 	@Override
 	public Bitmap get(String key) {
@@ -49,13 +51,23 @@ public abstract class BaseMemoryCache implements MemoryCache {
 
 	@Override
 	public boolean put(String key, Bitmap value) {
-		softMap.put(key, createReference(value));
+		synchronized (softMap) {
+			if (softMap.put(key, createReference(value)) == null) {
+				uriIndex.add(key);
+			}
+		}
 		return true;
 	}
 
 	@Override
 	public Bitmap remove(String key) {
-		Reference<Bitmap> bmpRef = softMap.remove(key);
+		Reference<Bitmap> bmpRef;
+		synchronized (softMap) {
+			bmpRef = softMap.remove(key);
+			if (bmpRef != null) {
+				uriIndex.remove(key);
+			}
+		}
 		return bmpRef == null ? null : bmpRef.get();
 	}
 
@@ -66,9 +78,17 @@ public abstract class BaseMemoryCache implements MemoryCache {
 		}
 	}
 
+	@Override
+	public Collection<String> keysForImageUri(String imageUri) {
+		return uriIndex.get(imageUri);
+	}
+
 	@Override
 	public void clear() {
-		softMap.clear();
+		synchronized (softMap) {
+			softMap.clear();
+			uriIndex.clear();
+		}
 	}
 
 	/** Creates {@linkplain Reference not strong} reference of value */
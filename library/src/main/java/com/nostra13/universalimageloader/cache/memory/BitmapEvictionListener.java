@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+
+/**
+ * {@linkplain EvictionListener Eviction listener} which also receives evicted bitmaps. Memory cache passes evicted
+ * bitmap to {@link #onEvicted(String, Bitmap)} only if cache doesn't keep any reference to it anymore (e.g.
+ * {@link LimitedMemoryCache} doesn't do it because evicted bitmaps stay in its weak map).
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public interface BitmapEvictionListener extends EvictionListener {
+
+	/**
+	 * Is called after {@link #onEvicted(long)} when cache evicted an entry. Can be called on any thread, so
+	 * implementation must be thread-safe and fast.
+	 *
+	 * @param key    Key of evicted entry
+	 * @param bitmap Evicted bitmap
+	 */
+	void onEvicted(String key, Bitmap bitmap);
+}
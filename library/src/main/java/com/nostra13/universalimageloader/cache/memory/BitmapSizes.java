@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+/**
+ * Calculates memory size of {@link Bitmap bitmaps} for memory caches and pools.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class BitmapSizes {
+
+	private BitmapSizes() {
+	}
+
+	/**
+	 * Returns size of memory allocated for bitmap (in bytes). Since Android 4.4 bitmap can be decoded into larger
+	 * {@linkplain android.graphics.BitmapFactory.Options#inBitmap reused bitmap}, so its allocation is taken instead of
+	 * size of pixels.
+	 */
+	public static int sizeOf(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= 19) {
+			return getAllocationByteCount(bitmap);
+		}
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	@TargetApi(19)
+	private static int getAllocationByteCount(Bitmap bitmap) {
+		return bitmap.getAllocationByteCount();
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of memory cache keys by image URI for {@linkplain IndexedMemoryCache indexed memory caches}. Cache adds key to
+ * index when it puts new entry and removes key when entry is removed or evicted.<br />
+ * All methods are thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class ImageUriKeyIndex {
+
+	private final Map<String, Set<String>> keysByUri = new HashMap<String, Set<String>>();
+
+	public synchronized void add(String key) {
+		String imageUri = extractImageUri(key);
+		Set<String> keys = keysByUri.get(imageUri);
+		if (keys == null) {
+			keys = new HashSet<String>(2);
+			keysByUri.put(imageUri, keys);
+		}
+		keys.add(key);
+	}
+
+	public synchronized void remove(String key) {
+		String imageUri = extractImageUri(key);
+		Set<String> keys = keysByUri.get(imageUri);
+		if (keys != null && keys.remove(key) && keys.isEmpty()) {
+			keysByUri.remove(imageUri);
+		}
+	}
+
+	/** Returns copy of keys for incoming image URI */
+	public synchronized List<String> get(String imageUri) {
+		Collection<String> keys = keysByUri.get(imageUri);
+		return keys == null ? new ArrayList<String>(0) : new ArrayList<String>(keys);
+	}
+
+	public synchronized void clear() {
+		keysByUri.clear();
+	}
+
+	/**
+	 * Returns keys of all cached sizes of image with incoming URI. Keys of
+	 * {@linkplain IndexedMemoryCache indexed cache} are taken from its index, keys of other caches are scanned.
+	 */
+	public static List<String> findKeys(MemoryCache cache, String imageUri) {
+		if (cache instanceof IndexedMemoryCache) {
+			return new ArrayList<String>(((IndexedMemoryCache) cache).keysForImageUri(imageUri));
+		}
+		List<String> keys = new ArrayList<String>();
+		for (String key : cache.keys()) {
+			if (imageUri.equals(extractImageUri(key))) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns image URI which incoming memory cache key was
+	 * {@linkplain com.nostra13.universalimageloader.utils.MemoryCacheUtils#generateKey(String,
+	 * com.nostra13.universalimageloader.core.assist.ImageSize) generated} for. Returns key itself if it has no size
+	 * part (<b>_[width]x[height]</b> at the end of key).
+	 */
+	public static String extractImageUri(String memoryCacheKey) {
+		int uriEnd = MemoryCacheKeys.uriEnd(memoryCacheKey);
+		return uriEnd == memoryCacheKey.length() ? memoryCacheKey : memoryCacheKey.substring(0, uriEnd);
+	}
+}
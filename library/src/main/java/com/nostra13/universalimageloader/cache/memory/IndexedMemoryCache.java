@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import java.util.Collection;
+
+/**
+ * {@link MemoryCache} which keeps index of its keys by image URI, so all cached sizes of image are found without scan
+ * of all keys. Key consists of image URI and size (see
+ * {@link com.nostra13.universalimageloader.utils.MemoryCacheUtils#generateKey(String,
+ * com.nostra13.universalimageloader.core.assist.ImageSize) MemoryCacheUtils.generateKey(...)}).
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see ImageUriKeyIndex
+ * @since 1.9.6
+ */
+public interface IndexedMemoryCache extends MemoryCache {
+	/** Returns keys of all cached sizes of image with incoming URI. Returned collection can be freely modified. */
+	Collection<String> keysForImageUri(String imageUri);
+}
@@ -17,11 +17,12 @@ package com.nostra13.universalimageloader.cache.memory;
 
 import android.graphics.Bitmap;
 
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
 import com.nostra13.universalimageloader.utils.L;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -46,7 +47,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @see BaseMemoryCache
  * @since 1.0.0
  */
-public abstract class LimitedMemoryCache extends BaseMemoryCache {
+public abstract class LimitedMemoryCache extends BaseMemoryCache implements TrimmableMemoryCache, EvictingCache {
 
 	private static final int MAX_NORMAL_CACHE_SIZE_IN_MB = 16;
 	private static final int MAX_NORMAL_CACHE_SIZE = MAX_NORMAL_CACHE_SIZE_IN_MB * 1024 * 1024;
@@ -59,12 +60,14 @@ public abstract class LimitedMemoryCache extends BaseMemoryCache {
 	private final AtomicInteger cacheSize;
 
 	/**
-	 * Contains strong references to stored objects. Each next object is added last. If hard cache size will exceed
-	 * limit then first object is deleted (but it continue exist at {@link #softMap} and can be collected by GC at any
-	 * time)
-	 * 强引用 lsit
+	 * Contains strong references to stored objects (and count of references to every object). If hard cache size will
+	 * exceed limit then object chosen by {@link #removeNext()} is deleted (but it continue exist at {@link #softMap}
+	 * and can be collected by GC at any time). Hash map is used so object is found and removed in O(1).
+	 * 强引用
 	 */
-	private final List<Bitmap> hardCache = Collections.synchronizedList(new LinkedList<Bitmap>());
+	private final Map<Bitmap, Integer> hardCache = new HashMap<Bitmap, Integer>();
+
+	private volatile EvictionListener evictionListener;
 
 	/** @param sizeLimit Maximum size for cache (in bytes) */
 	public LimitedMemoryCache(int sizeLimit) {
@@ -78,25 +81,20 @@ public abstract class LimitedMemoryCache extends BaseMemoryCache {
 	@Override
 	public boolean put(String key, Bitmap value) {
 		boolean putSuccessfully = false;
+		// Drop previous value of the key so it isn't counted twice in hard cache size
+		if (super.get(key) != null) {
+			remove(key);
+		}
 		// Try to add value to hard cache
 		int valueSize = getSize(value);
 		int sizeLimit = getSizeLimit();
-		int curCacheSize = cacheSize.get();
 		if (valueSize < sizeLimit) {
 			// 如果图片的缓存小于 最大值
 
-			// 这里循环逻辑是
 			// 如果当期那 缓存 加上 这张Bitmap 的缓存大于 最大限制的话
-			// 那么就从强应用中 取走一个 Bitmap 独享
-			// 取走的规则  由子类 removeNext 来决定
-			while (curCacheSize + valueSize > sizeLimit) {
-
-				Bitmap removedValue = removeNext();
-				if (hardCache.remove(removedValue)) {
-					curCacheSize = cacheSize.addAndGet(-getSize(removedValue));
-				}
-			}
-			hardCache.add(value);
+			// 那么就从强应用中 取走 Bitmap, 取走的规则 由子类 removeNext 来决定
+			trimHardCache(sizeLimit - valueSize);
+			addToHardCache(value);
 			cacheSize.addAndGet(valueSize);
 
 			putSuccessfully = true;
@@ -117,7 +115,7 @@ public abstract class LimitedMemoryCache extends BaseMemoryCache {
 	public Bitmap remove(String key) {
 		Bitmap value = super.get(key);
 		if (value != null) {
-			if (hardCache.remove(value)) {
+			if (removeFromHardCache(value)) {
 				cacheSize.addAndGet(-getSize(value));
 			}
 		}
@@ -126,11 +124,65 @@ public abstract class LimitedMemoryCache extends BaseMemoryCache {
 
 	@Override
 	public void clear() {
-		hardCache.clear();
+		synchronized (hardCache) {
+			hardCache.clear();
+		}
 		cacheSize.set(0);
 		super.clear();
 	}
 
+	/**
+	 * Removes Bitmaps chosen by {@link #removeNext()} from hard cache. They still can be got from soft cache until GC
+	 * collects them.
+	 */
+	@Override
+	public void trim(float fraction) {
+		trimHardCache(fraction <= 0 ? -1 : (int) (getSizeLimit() * fraction));
+	}
+
+	private void trimHardCache(int targetSize) {
+		int curCacheSize = cacheSize.get();
+		while (curCacheSize > targetSize) {
+			Bitmap removedValue = removeNext();
+			if (removedValue == null) break;
+			if (removeFromHardCache(removedValue)) {
+				int removedSize = getSize(removedValue);
+				curCacheSize = cacheSize.addAndGet(-removedSize);
+				EvictionListener listener = evictionListener;
+				if (listener != null) {
+					listener.onEvicted(removedSize);
+				}
+			}
+		}
+	}
+
+	private void addToHardCache(Bitmap value) {
+		synchronized (hardCache) {
+			Integer count = hardCache.get(value);
+			hardCache.put(value, count == null ? 1 : count + 1);
+		}
+	}
+
+	/** Removes one reference to <b>value</b> from hard cache. Returns <b>true</b> if hard cache contained it. */
+	private boolean removeFromHardCache(Bitmap value) {
+		synchronized (hardCache) {
+			Integer count = hardCache.get(value);
+			if (count == null) return false;
+
+			if (count == 1) {
+				hardCache.remove(value);
+			} else {
+				hardCache.put(value, count - 1);
+			}
+			return true;
+		}
+	}
+
+	@Override
+	public void setEvictionListener(EvictionListener listener) {
+		evictionListener = listener;
+	}
+
 	protected int getSizeLimit() {
 		return sizeLimit;
 	}
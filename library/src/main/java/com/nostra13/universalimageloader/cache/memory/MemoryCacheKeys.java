@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pool of memory cache keys (<b>[imageUri]_[width]x[height]</b>). Keys are interned per image URI, so repeated request
+ * of the same image with the same size returns the same key instance and doesn't allocate anything. Pool keeps keys of
+ * recently requested URIs only, keys of other URIs are built again on request. URI is admitted to pool on its second
+ * request only, so image which is requested once costs just building of the key.<br />
+ * All methods are thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class MemoryCacheKeys {
+
+	/** Default count of image URIs which keys are kept in pool */
+	public static final int DEFAULT_CAPACITY = 512;
+
+	/** Max count of sizes kept per image URI, older sizes are replaced by new ones */
+	private static final int MAX_VARIANTS_PER_URI = 4;
+
+	private static final char URI_AND_SIZE_SEPARATOR = '_';
+	private static final char WIDTH_AND_HEIGHT_SEPARATOR = 'x';
+
+	private final Map<String, Variants> variantsByUri;
+
+	/**
+	 * Bits of hash codes of recently requested URIs which aren't pooled yet. It's reset after every <b>capacity</b>
+	 * requests of such URIs, so only URIs requested twice within this window are pooled.
+	 */
+	private final long[] requestedUris;
+	private final int capacity;
+	private int requestedUriCount;
+
+	/** @param capacity Max count of image URIs which keys are kept in pool */
+	public MemoryCacheKeys(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity <= 0");
+		}
+		this.capacity = capacity;
+		// 8 bits per URI keep false positive rate low enough
+		requestedUris = new long[Integer.highestOneBit(Math.max(capacity * 8 / 64, 1) * 2 - 1)];
+		variantsByUri = new LinkedHashMap<String, Variants>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Variants> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/** Returns key for incoming image URI and size. Returns the same instance for the same arguments while it's pooled. */
+	public synchronized String obtain(String imageUri, int width, int height) {
+		Variants variants = variantsByUri.get(imageUri);
+		if (variants == null) {
+			if (markRequested(imageUri)) {
+				// The first request of URI, don't pool it yet
+				return build(imageUri, width, height);
+			}
+			variants = new Variants();
+			variantsByUri.put(imageUri, variants);
+		}
+		String key = variants.find(width, height);
+		if (key == null) {
+			key = build(imageUri, width, height);
+			variants.add(width, height, key);
+		}
+		return key;
+	}
+
+	/** Returns count of image URIs which keys are pooled now */
+	public synchronized int size() {
+		return variantsByUri.size();
+	}
+
+	public synchronized void clear() {
+		variantsByUri.clear();
+		Arrays.fill(requestedUris, 0L);
+		requestedUriCount = 0;
+	}
+
+	/** Marks URI as requested. Returns <b>true</b> if URI wasn't marked before. */
+	private boolean markRequested(String imageUri) {
+		int hash = imageUri.hashCode();
+		hash ^= hash >>> 16;
+		int bit = hash & (requestedUris.length * 64 - 1);
+		long mask = 1L << bit;
+		int word = bit >>> 6;
+		if ((requestedUris[word] & mask) != 0) return false;
+
+		if (++requestedUriCount > capacity) {
+			Arrays.fill(requestedUris, 0L);
+			requestedUriCount = 1;
+		}
+		requestedUris[word] |= mask;
+		return true;
+	}
+
+	/** Builds new key for incoming image URI and size, key isn't pooled. */
+	public static String build(String imageUri, int width, int height) {
+		return new StringBuilder(imageUri).append(URI_AND_SIZE_SEPARATOR).append(width)
+				.append(WIDTH_AND_HEIGHT_SEPARATOR).append(height).toString();
+	}
+
+	/**
+	 * Compares image URIs of incoming keys like {@link String#compareTo(String)} does, without extracting of URIs from
+	 * keys.
+	 */
+	public static int compareImageUris(String key1, String key2) {
+		int end1 = uriEnd(key1);
+		int end2 = uriEnd(key2);
+		int length = Math.min(end1, end2);
+		for (int i = 0; i < length; i++) {
+			char c1 = key1.charAt(i);
+			char c2 = key2.charAt(i);
+			if (c1 != c2) {
+				return c1 - c2;
+			}
+		}
+		return end1 - end2;
+	}
+
+	/**
+	 * Returns target size which incoming key was built for.
+	 *
+	 * @return Target size or <b>null</b> if key has no size part
+	 */
+	public static ImageSize parseTargetSize(String key) {
+		int width = parseTargetWidth(key);
+		int height = parseTargetHeight(key);
+		return width < 0 || height < 0 ? null : new ImageSize(width, height);
+	}
+
+	/** Returns target width which incoming key was built for or <b>-1</b> if key has no size part. Doesn't allocate. */
+	public static int parseTargetWidth(String key) {
+		int uriEnd = uriEnd(key);
+		if (uriEnd == key.length()) return -1;
+		return parseSize(key, uriEnd + 1, key.indexOf(WIDTH_AND_HEIGHT_SEPARATOR, uriEnd + 1));
+	}
+
+	/** Returns target height which incoming key was built for or <b>-1</b> if key has no size part. Doesn't allocate. */
+	public static int parseTargetHeight(String key) {
+		int uriEnd = uriEnd(key);
+		if (uriEnd == key.length()) return -1;
+		return parseSize(key, key.indexOf(WIDTH_AND_HEIGHT_SEPARATOR, uriEnd + 1) + 1, key.length());
+	}
+
+	/**
+	 * Returns index of separator of image URI and size part (<b>_[width]x[height]</b> at the end of key) or length of
+	 * key if key has no size part. URI itself can contain separator chars, only trailing size part is considered.
+	 */
+	static int uriEnd(String key) {
+		int heightStart = skipDigits(key, key.length());
+		if (heightStart == key.length() || heightStart == 0
+				|| key.charAt(heightStart - 1) != WIDTH_AND_HEIGHT_SEPARATOR) {
+			return key.length();
+		}
+		int widthStart = skipDigits(key, heightStart - 1);
+		if (widthStart == heightStart - 1 || widthStart == 0
+				|| key.charAt(widthStart - 1) != URI_AND_SIZE_SEPARATOR) {
+			return key.length();
+		}
+		return widthStart - 1;
+	}
+
+	/** Returns index of the first char of digits sequence which ends before <b>end</b> index */
+	private static int skipDigits(String key, int end) {
+		int i = end;
+		while (i > 0 && isDigit(key.charAt(i - 1))) {
+			i--;
+		}
+		return i;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/** Parses decimal digits of key in [start, end) range. Returns -1 if number doesn't fit into int. */
+	private static int parseSize(String key, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = key.charAt(i) - '0';
+			if (value > (Integer.MAX_VALUE - digit) / 10) return -1;
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/** Pooled sizes and keys of one image URI */
+	private static final class Variants {
+		final int[] widths = new int[MAX_VARIANTS_PER_URI];
+		final int[] heights = new int[MAX_VARIANTS_PER_URI];
+		final String[] keys = new String[MAX_VARIANTS_PER_URI];
+		int next;
+
+		String find(int width, int height) {
+			for (int i = 0; i < MAX_VARIANTS_PER_URI; i++) {
+				if (keys[i] != null && widths[i] == width && heights[i] == height) {
+					return keys[i];
+				}
+			}
+			return null;
+		}
+
+		void add(int width, int height, String key) {
+			widths[next] = width;
+			heights[next] = height;
+			keys[next] = key;
+			next = (next + 1) % MAX_VARIANTS_PER_URI;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory;
+
+/**
+ * {@link MemoryCache} which can shrink on request, e.g. when system is low on memory. Trimming evicts entries once, then
+ * cache grows up to its maximum size again.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public interface TrimmableMemoryCache extends MemoryCache {
+	/**
+	 * Evicts entries until size of cache is at or below incoming fraction of its maximum size.
+	 *
+	 * @param fraction Fraction of maximum size in range [0..1]. <b>0</b> evicts all entries.
+	 */
+	void trim(float fraction);
+}
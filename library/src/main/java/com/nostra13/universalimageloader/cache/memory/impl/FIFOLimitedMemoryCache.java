@@ -16,13 +16,15 @@
 package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
 import com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Limited {@link Bitmap bitmap} cache. Provides {@link Bitmap bitmaps} storing. Size of all stored bitmaps will not to
@@ -47,7 +49,12 @@ import java.util.List;
  */
 public class FIFOLimitedMemoryCache extends LimitedMemoryCache {
 
-	private final List<Bitmap> queue = Collections.synchronizedList(new LinkedList<Bitmap>());
+	/**
+	 * Bitmaps in order of putting (and count of cached entries for every Bitmap, so Bitmap cached under several keys is
+	 * evicted as many times as it's counted in hard cache). Linked hash map removes any Bitmap and the first one in
+	 * O(1).
+	 */
+	private final Map<Bitmap, Integer> queue = Collections.synchronizedMap(new LinkedHashMap<Bitmap, Integer>());
 
 	public FIFOLimitedMemoryCache(int sizeLimit) {
 		super(sizeLimit);
@@ -57,7 +64,10 @@ public class FIFOLimitedMemoryCache extends LimitedMemoryCache {
 	public boolean put(String key, Bitmap value) {
 		// 先调用 父类的put  如果父类put 成功 再把Bitmap 存到自己的对了中
 		if (super.put(key, value)) {
-			queue.add(value);
+			synchronized (queue) {
+				Integer count = queue.get(value);
+				queue.put(value, count == null ? 1 : count + 1);
+			}
 			return true;
 		} else {
 			return false;
@@ -68,7 +78,9 @@ public class FIFOLimitedMemoryCache extends LimitedMemoryCache {
 	public Bitmap remove(String key) {
 		Bitmap value = super.get(key);
 		if (value != null) {
-			queue.remove(value);
+			synchronized (queue) {
+				removeFromQueue(value);
+			}
 		}
 		return super.remove(key);
 	}
@@ -81,13 +93,32 @@ public class FIFOLimitedMemoryCache extends LimitedMemoryCache {
 
 	@Override
 	protected int getSize(Bitmap value) {
-		return value.getRowBytes() * value.getHeight();
+		return BitmapSizes.sizeOf(value);
 	}
 
 	@Override
 	protected Bitmap removeNext() {
-		//  这个貌似 好像是 list 的唯一 用处 去 删除到 最先放进去的
-		return queue.remove(0);
+		//  删除 最先放进去的
+		synchronized (queue) {
+			Iterator<Bitmap> it = queue.keySet().iterator();
+			if (!it.hasNext()) return null;
+
+			Bitmap firstValue = it.next();
+			removeFromQueue(firstValue);
+			return firstValue;
+		}
+	}
+
+	/** Removes one entry of <b>value</b> from queue. Must be called under lock of {@link #queue}. */
+	private void removeFromQueue(Bitmap value) {
+		Integer count = queue.get(value);
+		if (count == null) return;
+
+		if (count == 1) {
+			queue.remove(value);
+		} else {
+			queue.put(value, count - 1);
+		}
 	}
 
 	@Override
@@ -17,7 +17,12 @@ package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
 
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+import com.nostra13.universalimageloader.cache.memory.ImageUriKeyIndex;
+import com.nostra13.universalimageloader.cache.memory.IndexedMemoryCache;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimmableMemoryCache;
 
 import java.util.Collection;
 import java.util.Comparator;
@@ -39,15 +44,25 @@ import java.util.Comparator;
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @since 1.0.0
  */
-public class FuzzyKeyMemoryCache implements MemoryCache {
+public class FuzzyKeyMemoryCache implements IndexedMemoryCache, TrimmableMemoryCache, EvictingCache {
 
 	private final MemoryCache cache;
 	private final Comparator<String> keyComparator;
 
+	/**
+	 * Keys of the same image URI are considered as equal. If wrapped cache is {@linkplain IndexedMemoryCache indexed}
+	 * then equal keys are found by its index without scan of all keys.
+	 *
+	 * @param cache Wrapped memory cache
+	 */
+	public FuzzyKeyMemoryCache(MemoryCache cache) {
+		this(cache, null);
+	}
+
 	/**
 	 *
 	 * @param cache  其他 缓存
-	 * @param keyComparator  String的一个 比较器
+	 * @param keyComparator  String的一个 比较器, <b>null</b> - keys of the same image URI are equal
 	 */
 	public FuzzyKeyMemoryCache(MemoryCache cache, Comparator<String> keyComparator) {
 		this.cache = cache;
@@ -56,6 +71,14 @@ public class FuzzyKeyMemoryCache implements MemoryCache {
 
 	@Override
 	public boolean put(String key, Bitmap value) {
+		if (keyComparator == null) {
+			synchronized (cache) {
+				for (String keyToRemove : ImageUriKeyIndex.findKeys(cache, ImageUriKeyIndex.extractImageUri(key))) {
+					cache.remove(keyToRemove);
+				}
+			}
+			return cache.put(key, value);
+		}
 		// Search equal key and remove this entry
 		synchronized (cache) {
 			String keyToRemove = null;
@@ -86,13 +109,36 @@ public class FuzzyKeyMemoryCache implements MemoryCache {
 		return cache.remove(key);
 	}
 
+	@Override
+	public Collection<String> keysForImageUri(String imageUri) {
+		return ImageUriKeyIndex.findKeys(cache, imageUri);
+	}
+
 	@Override
 	public void clear() {
 		cache.clear();
 	}
 
+	/** Trims wrapped cache if it's {@linkplain TrimmableMemoryCache trimmable}, otherwise clears it if fraction is 0 */
+	@Override
+	public void trim(float fraction) {
+		if (cache instanceof TrimmableMemoryCache) {
+			((TrimmableMemoryCache) cache).trim(fraction);
+		} else if (fraction <= 0) {
+			cache.clear();
+		}
+	}
+
 	@Override
 	public Collection<String> keys() {
 		return cache.keys();
 	}
+
+	/** Passes listener to wrapped cache if it {@linkplain EvictingCache reports evictions} */
+	@Override
+	public void setEvictionListener(EvictionListener listener) {
+		if (cache instanceof EvictingCache) {
+			((EvictingCache) cache).setEvictionListener(listener);
+		}
+	}
 }
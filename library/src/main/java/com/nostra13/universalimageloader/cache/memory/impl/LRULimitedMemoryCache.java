@@ -16,6 +16,7 @@
 package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
 import com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache;
 
 import java.lang.ref.Reference;
@@ -90,7 +91,7 @@ public class LRULimitedMemoryCache extends LimitedMemoryCache {
 
 	@Override
 	protected int getSize(Bitmap value) {
-		return value.getRowBytes() * value.getHeight();
+		return BitmapSizes.sizeOf(value);
 	}
 
 	@Override
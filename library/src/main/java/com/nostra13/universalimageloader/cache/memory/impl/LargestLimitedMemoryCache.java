@@ -16,15 +16,11 @@
 package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
 import com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 
 /**
  * Limited {@link Bitmap bitmap} cache. Provides {@link Bitmap bitmaps} storing. Size of all stored bitmaps will not to
@@ -42,14 +38,14 @@ import java.util.Set;
  */
 public class LargestLimitedMemoryCache extends LimitedMemoryCache {
 	/**
-	 * Contains strong references to stored objects (keys) and sizes of the objects. If hard cache
+	 * Contains strong references to stored objects ordered by sizes of the objects. If hard cache
 	 * size will exceed limit then object with the largest size is deleted (but it continue exist at
 	 * {@link #softMap} and can be collected by GC at any time)
 	 *
 	 *
 	 * 存储了 Bitmap 和 Size 的对应关系
 	 */
-	private final Map<Bitmap, Integer> valueSizes = Collections.synchronizedMap(new HashMap<Bitmap, Integer>());
+	private final RankedBitmaps valueSizes = new RankedBitmaps();
 
 	public LargestLimitedMemoryCache(int sizeLimit) {
 		super(sizeLimit);
@@ -82,35 +78,16 @@ public class LargestLimitedMemoryCache extends LimitedMemoryCache {
 
 	@Override
 	protected int getSize(Bitmap value) {
-		return value.getRowBytes() * value.getHeight();
+		return BitmapSizes.sizeOf(value);
 	}
 
 	@Override
 	protected Bitmap removeNext() {
-		Integer maxSize = null;
-		Bitmap largestValue = null;
-		Set<Entry<Bitmap, Integer>> entries = valueSizes.entrySet();
-		synchronized (valueSizes) {
-			// 这里找到最大的 key
-			for (Entry<Bitmap, Integer> entry : entries) {
-				if (largestValue == null) {
-					largestValue = entry.getKey();
-					maxSize = entry.getValue();
-				} else {
-					Integer size = entry.getValue();
-					if (size > maxSize) {
-						maxSize = size;
-						largestValue = entry.getKey();
-					}
-				}
-			}
-		}
 		// 吧最大 Bitmap 删除
-		valueSizes.remove(largestValue);
 		// 主要 在子类中 只需要  把 自己本类的集合中对应的改值 移除
 		// 这里返回 移除的Bitmap
 		// 父类 会继续 把它从 父类的集合中移除
-		return largestValue;
+		return valueSizes.pollHighest();
 	}
 
 	@Override
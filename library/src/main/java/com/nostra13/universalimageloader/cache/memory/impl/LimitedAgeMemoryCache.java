@@ -17,7 +17,12 @@ package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
 
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+import com.nostra13.universalimageloader.cache.memory.ImageUriKeyIndex;
+import com.nostra13.universalimageloader.cache.memory.IndexedMemoryCache;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimmableMemoryCache;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -34,7 +39,7 @@ import java.util.Map;
  * @see MemoryCache
  * @since 1.3.1
  */
-public class LimitedAgeMemoryCache implements MemoryCache {
+public class LimitedAgeMemoryCache implements IndexedMemoryCache, TrimmableMemoryCache, EvictingCache {
 
 	private final MemoryCache cache;
 
@@ -91,9 +96,32 @@ public class LimitedAgeMemoryCache implements MemoryCache {
 		return cache.keys();
 	}
 
+	@Override
+	public Collection<String> keysForImageUri(String imageUri) {
+		return ImageUriKeyIndex.findKeys(cache, imageUri);
+	}
+
 	@Override
 	public void clear() {
 		cache.clear();
 		loadingDates.clear();
 	}
+
+	/** Trims wrapped cache if it's {@linkplain TrimmableMemoryCache trimmable}, otherwise clears it if fraction is 0 */
+	@Override
+	public void trim(float fraction) {
+		if (cache instanceof TrimmableMemoryCache) {
+			((TrimmableMemoryCache) cache).trim(fraction);
+		} else if (fraction <= 0) {
+			cache.clear();
+		}
+	}
+
+	/** Passes listener to wrapped cache if it {@linkplain EvictingCache reports evictions} */
+	@Override
+	public void setEvictionListener(EvictionListener listener) {
+		if (cache instanceof EvictingCache) {
+			((EvictingCache) cache).setEvictionListener(listener);
+		}
+	}
 }
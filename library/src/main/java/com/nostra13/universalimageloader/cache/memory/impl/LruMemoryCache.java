@@ -2,7 +2,14 @@ package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
 
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+import com.nostra13.universalimageloader.cache.memory.BitmapEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
+import com.nostra13.universalimageloader.cache.memory.ImageUriKeyIndex;
+import com.nostra13.universalimageloader.cache.memory.IndexedMemoryCache;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimmableMemoryCache;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -21,17 +28,21 @@ import java.util.Map;
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @since 1.8.1
  */
-public class LruMemoryCache implements MemoryCache {
+public class LruMemoryCache implements IndexedMemoryCache, TrimmableMemoryCache, EvictingCache {
 
 	/**
 	 * LinkedHashMap
 	 */
 	private final LinkedHashMap<String, Bitmap> map;
+	/** Keys of {@link #map} by image URI */
+	private final ImageUriKeyIndex uriIndex = new ImageUriKeyIndex();
 
 	private final int maxSize;
 	/** Size of this cache in bytes */
 	private int size;
 
+	private volatile EvictionListener evictionListener;
+
 	/** @param maxSize Maximum sum of the sizes of the Bitmaps in this cache */
 	public LruMemoryCache(int maxSize) {
 		if (maxSize <= 0) {
@@ -68,6 +79,8 @@ public class LruMemoryCache implements MemoryCache {
 			Bitmap previous = map.put(key, value);
 			if (previous != null) {
 				size -= sizeOf(key, previous);
+			} else {
+				uriIndex.add(key);
 			}
 		}
 		// 检查是否 超过了最大限制
@@ -104,8 +117,16 @@ public class LruMemoryCache implements MemoryCache {
 				value = toEvict.getValue();
 				// 删除 对应 Bitmap
 				map.remove(key);
+				uriIndex.remove(key);
 				size -= sizeOf(key, value);
 			}
+			EvictionListener listener = evictionListener;
+			if (listener != null) {
+				listener.onEvicted(sizeOf(key, value));
+				if (listener instanceof BitmapEvictionListener) {
+					((BitmapEvictionListener) listener).onEvicted(key, value);
+				}
+			}
 		}
 	}
 
@@ -120,11 +141,17 @@ public class LruMemoryCache implements MemoryCache {
 			Bitmap previous = map.remove(key);
 			if (previous != null) {
 				size -= sizeOf(key, previous);
+				uriIndex.remove(key);
 			}
 			return previous;
 		}
 	}
 
+	@Override
+	public void setEvictionListener(EvictionListener listener) {
+		evictionListener = listener;
+	}
+
 	@Override
 	public Collection<String> keys() {
 		synchronized (this) {
@@ -132,18 +159,28 @@ public class LruMemoryCache implements MemoryCache {
 		}
 	}
 
+	@Override
+	public Collection<String> keysForImageUri(String imageUri) {
+		return uriIndex.get(imageUri);
+	}
+
 	@Override
 	public void clear() {
 		trimToSize(-1); // -1 will evict 0-sized elements
 	}
 
+	@Override
+	public void trim(float fraction) {
+		trimToSize(fraction <= 0 ? -1 : (int) (maxSize * fraction));
+	}
+
 	/**
 	 * Returns the size {@code Bitmap} in bytes.
 	 * <p/>
 	 * An entry's size must not change while it is in the cache.
 	 */
-	private int sizeOf(String key, Bitmap value) {
-		return value.getRowBytes() * value.getHeight();
+	protected int sizeOf(String key, Bitmap value) {
+		return BitmapSizes.sizeOf(value);
 	}
 
 	@Override
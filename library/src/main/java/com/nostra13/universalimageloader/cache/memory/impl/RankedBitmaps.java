@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of Bitmaps ordered by integer rank (usage count, size, etc.). Bitmaps of the same rank are kept in insertion
+ * order. Bitmap with the lowest or the highest rank is found in O(log n), change of rank and removal take O(log n) too,
+ * no full scan is needed.<br />
+ * All methods are thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class RankedBitmaps {
+
+	private final Map<Bitmap, Integer> ranks = new HashMap<Bitmap, Integer>();
+	private final TreeMap<Integer, LinkedHashSet<Bitmap>> buckets = new TreeMap<Integer, LinkedHashSet<Bitmap>>();
+
+	/** Adds Bitmap with incoming rank or changes rank of Bitmap if it's already added */
+	synchronized void put(Bitmap value, int rank) {
+		Integer oldRank = ranks.put(value, rank);
+		if (oldRank != null) {
+			removeFromBucket(value, oldRank);
+		}
+		LinkedHashSet<Bitmap> bucket = buckets.get(rank);
+		if (bucket == null) {
+			bucket = new LinkedHashSet<Bitmap>();
+			buckets.put(rank, bucket);
+		}
+		bucket.add(value);
+	}
+
+	/** Increments rank of Bitmap if it's added */
+	synchronized void increment(Bitmap value) {
+		Integer rank = ranks.get(value);
+		if (rank != null && rank < Integer.MAX_VALUE) {
+			put(value, rank + 1);
+		}
+	}
+
+	synchronized boolean remove(Bitmap value) {
+		Integer rank = ranks.remove(value);
+		if (rank == null) return false;
+
+		removeFromBucket(value, rank);
+		return true;
+	}
+
+	/** Removes and returns the eldest Bitmap with the lowest rank or <b>null</b> if there are no Bitmaps */
+	synchronized Bitmap pollLowest() {
+		return buckets.isEmpty() ? null : poll(buckets.firstKey());
+	}
+
+	/** Removes and returns the eldest Bitmap with the highest rank or <b>null</b> if there are no Bitmaps */
+	synchronized Bitmap pollHighest() {
+		return buckets.isEmpty() ? null : poll(buckets.lastKey());
+	}
+
+	synchronized void clear() {
+		ranks.clear();
+		buckets.clear();
+	}
+
+	private Bitmap poll(Integer rank) {
+		LinkedHashSet<Bitmap> bucket = buckets.get(rank);
+		Iterator<Bitmap> it = bucket.iterator();
+		Bitmap value = it.next();
+		it.remove();
+		ranks.remove(value);
+		if (bucket.isEmpty()) {
+			buckets.remove(rank);
+		}
+		return value;
+	}
+
+	private void removeFromBucket(Bitmap value, Integer rank) {
+		LinkedHashSet<Bitmap> bucket = buckets.get(rank);
+		bucket.remove(value);
+		if (bucket.isEmpty()) {
+			buckets.remove(rank);
+		}
+	}
+}
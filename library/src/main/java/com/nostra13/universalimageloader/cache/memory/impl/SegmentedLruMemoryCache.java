@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+import com.nostra13.universalimageloader.cache.memory.BitmapEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
+import com.nostra13.universalimageloader.cache.memory.ImageUriKeyIndex;
+import com.nostra13.universalimageloader.cache.memory.IndexedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimmableMemoryCache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of Bitmaps which is split into independently locked segments, so lookups of different keys don't wait for
+ * each other. {@link LruMemoryCache} serializes every {@link #get(String)} on the whole cache because each lookup
+ * reorders the queue.<br />
+ * Segments share one limit of total size. Every segment keeps its entries in access order and remembers time of last
+ * access of every entry. When the limit is exceeded the eldest entries among all segments are evicted, so eviction
+ * order is close to LRU of the whole cache. Lookups touch only the lock of their segment, only puts which exceed the
+ * limit visit all segments.<br />
+ * <br />
+ * <b>NOTE:</b> This cache uses only strong references for stored Bitmaps.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class SegmentedLruMemoryCache implements IndexedMemoryCache, TrimmableMemoryCache, EvictingCache {
+
+	/** {@value} */
+	public static final int DEFAULT_SEGMENT_COUNT = 8;
+
+	private final Segment[] segments;
+	private final int segmentMask;
+	/** Keys of all segments by image URI. It's updated under lock of segment which key belongs to. */
+	private final ImageUriKeyIndex uriIndex = new ImageUriKeyIndex();
+
+	private final int maxSize;
+	/** Size of this cache in bytes */
+	private final AtomicLong size = new AtomicLong();
+
+	private volatile EvictionListener evictionListener;
+
+	/** @param maxSize Maximum sum of the sizes of the Bitmaps in this cache */
+	public SegmentedLruMemoryCache(int maxSize) {
+		this(maxSize, DEFAULT_SEGMENT_COUNT);
+	}
+
+	/**
+	 * @param maxSize      Maximum sum of the sizes of the Bitmaps in this cache
+	 * @param segmentCount Count of segments. It's rounded up to power of two. Count of threads which access the cache
+	 *                     concurrently is a good choice.
+	 */
+	public SegmentedLruMemoryCache(int maxSize, int segmentCount) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		if (segmentCount <= 0) {
+			throw new IllegalArgumentException("segmentCount <= 0");
+		}
+		this.maxSize = maxSize;
+		int count = 1;
+		while (count < segmentCount) {
+			count <<= 1;
+		}
+		segments = new Segment[count];
+		for (int i = 0; i < count; i++) {
+			segments[i] = new Segment(uriIndex);
+		}
+		segmentMask = count - 1;
+	}
+
+	/** Returns the Bitmap for {@code key} if it exists in the cache. This returns null if a Bitmap is not cached. */
+	@Override
+	public final Bitmap get(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		return segmentFor(key).get(key);
+	}
+
+	/** Caches {@code Bitmap} for {@code key}. The Bitmap becomes the most recently used one. */
+	@Override
+	public final boolean put(String key, Bitmap value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("key == null || value == null");
+		}
+
+		Entry entry = new Entry(key, value, sizeOf(value));
+		Entry previous = segmentFor(key).put(key, entry);
+		size.addAndGet(previous == null ? entry.size : entry.size - previous.size);
+		trimToSize(maxSize);
+		return true;
+	}
+
+	/** Removes the entry for {@code key} if it exists. */
+	@Override
+	public final Bitmap remove(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		Entry previous = segmentFor(key).remove(key);
+		if (previous == null) return null;
+
+		size.addAndGet(-previous.size);
+		return previous.bitmap;
+	}
+
+	/**
+	 * Evicts the eldest entries of all segments until the total size is at or below the requested size.
+	 *
+	 * @param maxSize the maximum size of the cache before returning. May be -1 to evict even 0-sized elements.
+	 */
+	private void trimToSize(long maxSize) {
+		while (size.get() > maxSize) {
+			Segment victim = null;
+			long eldestAccessTime = Long.MAX_VALUE;
+			for (Segment segment : segments) {
+				Entry eldest = segment.peekEldest();
+				if (eldest != null && (victim == null || eldest.accessTime - eldestAccessTime < 0)) {
+					victim = segment;
+					eldestAccessTime = eldest.accessTime;
+				}
+			}
+			if (victim == null) break; // All segments are empty
+
+			Entry evicted = victim.removeEldest();
+			if (evicted == null) continue; // Segment was emptied by another thread meanwhile
+
+			size.addAndGet(-evicted.size);
+			EvictionListener listener = evictionListener;
+			if (listener != null) {
+				listener.onEvicted(evicted.size);
+				if (listener instanceof BitmapEvictionListener) {
+					((BitmapEvictionListener) listener).onEvicted(evicted.key, evicted.bitmap);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void setEvictionListener(EvictionListener listener) {
+		evictionListener = listener;
+	}
+
+	@Override
+	public Collection<String> keys() {
+		Collection<String> keys = new HashSet<String>();
+		for (Segment segment : segments) {
+			segment.collectKeys(keys);
+		}
+		return keys;
+	}
+
+	@Override
+	public Collection<String> keysForImageUri(String imageUri) {
+		return uriIndex.get(imageUri);
+	}
+
+	@Override
+	public void clear() {
+		trimToSize(-1); // -1 will evict 0-sized elements
+	}
+
+	@Override
+	public void trim(float fraction) {
+		trimToSize(fraction <= 0 ? -1 : (long) (maxSize * fraction));
+	}
+
+	private Segment segmentFor(String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return segments[h & segmentMask];
+	}
+
+	/**
+	 * Returns the size {@code Bitmap} in bytes.
+	 * <p/>
+	 * An entry's size must not change while it is in the cache.
+	 */
+	protected int sizeOf(Bitmap value) {
+		return BitmapSizes.sizeOf(value);
+	}
+
+	@Override
+	public final String toString() {
+		return String.format("SegmentedLruCache[maxSize=%d, segments=%d]", maxSize, segments.length);
+	}
+
+	/** Cached Bitmap with its size and time of last access */
+	private static final class Entry {
+		final String key;
+		final Bitmap bitmap;
+		final int size;
+		/** Time of last access (in nanoseconds, see {@link System#nanoTime()}) */
+		volatile long accessTime;
+
+		Entry(String key, Bitmap bitmap, int size) {
+			this.key = key;
+			this.bitmap = bitmap;
+			this.size = size;
+			accessTime = System.nanoTime();
+		}
+	}
+
+	/** Part of cache with its own lock and LRU queue */
+	private static final class Segment {
+
+		private final LinkedHashMap<String, Entry> map = new LinkedHashMap<String, Entry>(0, 0.75f, true);
+		private final ImageUriKeyIndex uriIndex;
+
+		Segment(ImageUriKeyIndex uriIndex) {
+			this.uriIndex = uriIndex;
+		}
+
+		synchronized Bitmap get(String key) {
+			Entry entry = map.get(key);
+			if (entry == null) return null;
+
+			entry.accessTime = System.nanoTime();
+			return entry.bitmap;
+		}
+
+		synchronized Entry put(String key, Entry entry) {
+			Entry previous = map.put(key, entry);
+			if (previous == null) {
+				uriIndex.add(key);
+			}
+			return previous;
+		}
+
+		synchronized Entry remove(String key) {
+			Entry previous = map.remove(key);
+			if (previous != null) {
+				uriIndex.remove(key);
+			}
+			return previous;
+		}
+
+		synchronized Entry peekEldest() {
+			Iterator<Entry> it = map.values().iterator();
+			return it.hasNext() ? it.next() : null;
+		}
+
+		synchronized Entry removeEldest() {
+			Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator();
+			if (!it.hasNext()) return null;
+
+			Entry eldest = it.next().getValue();
+			it.remove();
+			uriIndex.remove(eldest.key);
+			return eldest;
+		}
+
+		synchronized void collectKeys(Collection<String> keys) {
+			keys.addAll(map.keySet());
+		}
+	}
+}
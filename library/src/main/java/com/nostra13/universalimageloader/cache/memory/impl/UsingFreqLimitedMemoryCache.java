@@ -16,15 +16,11 @@
 package com.nostra13.universalimageloader.cache.memory.impl;
 
 import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
 import com.nostra13.universalimageloader.cache.memory.LimitedMemoryCache;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 
 /**
  * Limited {@link Bitmap bitmap} cache. Provides {@link Bitmap bitmaps} storing. Size of all stored bitmaps will not to
@@ -42,11 +38,11 @@ import java.util.Set;
  */
 public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 	/**
-	 * Contains strong references to stored objects (keys) and last object usage date (in milliseconds). If hard cache
-	 * size will exceed limit then object with the least frequently usage is deleted (but it continue exist at
-	 * {@link #softMap} and can be collected by GC at any time)
+	 * Contains strong references to stored objects grouped by usage count. If hard cache size will exceed limit then
+	 * object with the least frequently usage is deleted (but it continue exist at {@link #softMap} and can be collected
+	 * by GC at any time). Objects with the same usage count are deleted in order of putting.
 	 */
-	private final Map<Bitmap, Integer> usingCounts = Collections.synchronizedMap(new HashMap<Bitmap, Integer>());
+	private final RankedBitmaps usingCounts = new RankedBitmaps();
 
 	public UsingFreqLimitedMemoryCache(int sizeLimit) {
 		super(sizeLimit);
@@ -67,11 +63,8 @@ public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 		Bitmap value = super.get(key);
 		// Increment usage count for value if value is contained in hardCahe
 		if (value != null) {
-			Integer usageCount = usingCounts.get(value);
-			if (usageCount != null) {
-				// get 就 使用次数+1
-				usingCounts.put(value, usageCount + 1);
-			}
+			// get 就 使用次数+1
+			usingCounts.increment(value);
 		}
 		return value;
 	}
@@ -93,31 +86,13 @@ public class UsingFreqLimitedMemoryCache extends LimitedMemoryCache {
 
 	@Override
 	protected int getSize(Bitmap value) {
-		return value.getRowBytes() * value.getHeight();
+		return BitmapSizes.sizeOf(value);
 	}
 
 	@Override
 	protected Bitmap removeNext() {
-		Integer minUsageCount = null;
-		Bitmap leastUsedValue = null;
-		Set<Entry<Bitmap, Integer>> entries = usingCounts.entrySet();
-		synchronized (usingCounts) {
-			// 获取使用次数最少的
-			for (Entry<Bitmap, Integer> entry : entries) {
-				if (leastUsedValue == null) {
-					leastUsedValue = entry.getKey();
-					minUsageCount = entry.getValue();
-				} else {
-					Integer lastValueUsage = entry.getValue();
-					if (lastValueUsage < minUsageCount) {
-						minUsageCount = lastValueUsage;
-						leastUsedValue = entry.getKey();
-					}
-				}
-			}
-		}
-		usingCounts.remove(leastUsedValue);
-		return leastUsedValue;
+		// 获取使用次数最少的
+		return usingCounts.pollLowest();
 	}
 
 	@Override
@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+import com.nostra13.universalimageloader.cache.memory.BitmapEvictionListener;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
+import com.nostra13.universalimageloader.cache.memory.FrequencySketch;
+import com.nostra13.universalimageloader.cache.memory.ImageUriKeyIndex;
+import com.nostra13.universalimageloader.cache.memory.IndexedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimmableMemoryCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory cache with W-TinyLFU policy. New Bitmaps get into small LRU <i>window</i>. Bitmaps which drop out of the window
+ * are <i>candidates</i> for the main space, candidate is admitted only if it was requested more often recently than the
+ * Bitmaps it would evict (<i>victims</i>). Otherwise the candidate itself is evicted. Frequencies of requests are
+ * estimated by {@link FrequencySketch} which counts every {@link #get(String)}, hits and misses.<br />
+ * Main space is segmented LRU: Bitmaps are admitted to <i>probation</i> segment and move to <i>protected</i> segment
+ * when they are hit there. Victims are taken from probation segment first.<br />
+ * So images which are requested once (i.e. while scrolling a long feed) don't flush frequently requested ones
+ * (avatars, icons) like they do in {@link LruMemoryCache}.<br />
+ * All limits are in bytes, size of Bitmap is computed the same way as in {@link LruMemoryCache}.<br />
+ * <br />
+ * <b>NOTE:</b> This cache uses only strong references for stored Bitmaps.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class WTinyLfuMemoryCache implements IndexedMemoryCache, TrimmableMemoryCache, EvictingCache {
+
+	/** {@value} */
+	public static final int DEFAULT_WINDOW_PERCENT = 1;
+	/** Share of main space (in percent) which protected segment can take */
+	private static final int PROTECTED_PERCENT = 80;
+
+	private final Map<String, Node> map = new HashMap<String, Node>();
+	/** Keys of {@link #map} by image URI */
+	private final ImageUriKeyIndex uriIndex = new ImageUriKeyIndex();
+	private final Segment window = new Segment();
+	private final Segment probation = new Segment();
+	private final Segment protectedSegment = new Segment();
+	private final FrequencySketch sketch = new FrequencySketch(0);
+
+	private final int maxSize;
+	private final int maxWindowSize;
+	private final int maxProtectedSize;
+
+	private volatile EvictionListener evictionListener;
+
+	/** @param maxSize Maximum sum of the sizes of the Bitmaps in this cache */
+	public WTinyLfuMemoryCache(int maxSize) {
+		this(maxSize, DEFAULT_WINDOW_PERCENT);
+	}
+
+	/**
+	 * @param maxSize       Maximum sum of the sizes of the Bitmaps in this cache
+	 * @param windowPercent Size of window (in percent of <b>maxSize</b>). Window always keeps at least the latest put
+	 *                      Bitmap, even if the Bitmap is larger than window.
+	 */
+	public WTinyLfuMemoryCache(int maxSize, int windowPercent) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		if (windowPercent < 0 || windowPercent >= 100) {
+			throw new IllegalArgumentException("windowPercent must be in range [0, 100)");
+		}
+		this.maxSize = maxSize;
+		maxWindowSize = (int) ((long) maxSize * windowPercent / 100);
+		maxProtectedSize = (int) ((long) (maxSize - maxWindowSize) * PROTECTED_PERCENT / 100);
+	}
+
+	/** Returns the Bitmap for {@code key} if it exists in the cache. This returns null if a Bitmap is not cached. */
+	@Override
+	public final Bitmap get(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		synchronized (this) {
+			sketch.increment(key);
+			Node node = map.get(key);
+			if (node == null) return null;
+
+			onHit(node);
+			return node.bitmap;
+		}
+	}
+
+	/** Caches {@code Bitmap} for {@code key}. The Bitmap gets into window and competes for main space later. */
+	@Override
+	public final boolean put(String key, Bitmap value) {
+		if (key == null || value == null) {
+			throw new NullPointerException("key == null || value == null");
+		}
+
+		List<Node> evicted;
+		synchronized (this) {
+			Node node = map.get(key);
+			if (node == null) {
+				node = new Node(key, value, sizeOf(value));
+				map.put(key, node);
+				uriIndex.add(key);
+				window.addLast(node);
+				sketch.ensureCapacity(map.size());
+			} else {
+				node.segment.size += sizeOf(value) - node.size;
+				node.bitmap = value;
+				node.size = sizeOf(value);
+				onHit(node);
+			}
+			evicted = evictIfNeed();
+		}
+		notifyEvicted(evicted);
+		return true;
+	}
+
+	/** Removes the entry for {@code key} if it exists. */
+	@Override
+	public final Bitmap remove(String key) {
+		if (key == null) {
+			throw new NullPointerException("key == null");
+		}
+
+		synchronized (this) {
+			Node node = map.remove(key);
+			if (node == null) return null;
+
+			uriIndex.remove(key);
+			node.segment.remove(node);
+			return node.bitmap;
+		}
+	}
+
+	@Override
+	public void setEvictionListener(EvictionListener listener) {
+		evictionListener = listener;
+	}
+
+	@Override
+	public Collection<String> keys() {
+		synchronized (this) {
+			return new HashSet<String>(map.keySet());
+		}
+	}
+
+	@Override
+	public Collection<String> keysForImageUri(String imageUri) {
+		return uriIndex.get(imageUri);
+	}
+
+	@Override
+	public void clear() {
+		List<Node> evicted = new ArrayList<Node>();
+		synchronized (this) {
+			evictAll(window, evicted);
+			evictAll(probation, evicted);
+			evictAll(protectedSegment, evicted);
+		}
+		notifyEvicted(evicted);
+	}
+
+	/** Evicts Bitmaps of probation segment first, then of protected segment and window */
+	@Override
+	public void trim(float fraction) {
+		long targetSize = fraction <= 0 ? -1 : (long) (maxSize * fraction);
+		List<Node> evicted = null;
+		synchronized (this) {
+			while (totalSize() > targetSize && !map.isEmpty()) {
+				Node victim = !probation.isEmpty() ? probation.first()
+						: !protectedSegment.isEmpty() ? protectedSegment.first() : window.first();
+				evicted = evict(victim, evicted);
+			}
+		}
+		notifyEvicted(evicted);
+	}
+
+	private void onHit(Node node) {
+		Segment segment = node.segment;
+		segment.remove(node);
+		if (segment == probation) {
+			protectedSegment.addLast(node);
+			// Protected segment is full, so its LRU Bitmaps get another chance in probation segment
+			while (protectedSegment.size > maxProtectedSize && protectedSegment.first() != node) {
+				Node demoted = protectedSegment.first();
+				protectedSegment.remove(demoted);
+				probation.addLast(demoted);
+			}
+		} else {
+			segment.addLast(node);
+		}
+	}
+
+	/** @return Evicted nodes or <b>null</b> if nothing was evicted */
+	private List<Node> evictIfNeed() {
+		List<Node> evicted = null;
+		while (window.size > maxWindowSize && window.first() != window.last()) {
+			Node candidate = window.first();
+			window.remove(candidate);
+			evicted = admit(candidate, evicted);
+		}
+		// Cache can still exceed the limit if Bitmap was replaced by larger one
+		while (totalSize() > maxSize) {
+			Node victim = !probation.isEmpty() ? probation.first()
+					: !protectedSegment.isEmpty() ? protectedSegment.first() : window.first();
+			evicted = evict(victim, evicted);
+		}
+		return evicted;
+	}
+
+	/**
+	 * Moves <b>candidate</b> to probation segment if there is free space or if it's more frequent than all victims
+	 * which have to be evicted to free space for it. Otherwise evicts <b>candidate</b>.
+	 */
+	private List<Node> admit(Node candidate, List<Node> evicted) {
+		long excess = (long) totalSize() + candidate.size - maxSize;
+		if (excess > 0) {
+			int candidateFrequency = sketch.frequency(candidate.key);
+			Node victim = probation.first();
+			Segment victimSegment = probation;
+			long freed = 0;
+			while (freed < excess) {
+				if (victim == null) {
+					if (victimSegment == protectedSegment) break;
+					victimSegment = protectedSegment;
+					victim = protectedSegment.first();
+					continue;
+				}
+				if (candidateFrequency <= sketch.frequency(victim.key)) break;
+				freed += victim.size;
+				victim = victimSegment.next(victim);
+			}
+			if (freed < excess) {
+				return evict(candidate, evicted);
+			}
+			while (freed > 0) {
+				Node first = !probation.isEmpty() ? probation.first() : protectedSegment.first();
+				freed -= first.size;
+				evicted = evict(first, evicted);
+			}
+		}
+		probation.addLast(candidate);
+		return evicted;
+	}
+
+	private List<Node> evict(Node node, List<Node> evicted) {
+		if (node.segment != null) {
+			node.segment.remove(node);
+		}
+		map.remove(node.key);
+		uriIndex.remove(node.key);
+		if (evicted == null) {
+			evicted = new ArrayList<Node>();
+		}
+		evicted.add(node);
+		return evicted;
+	}
+
+	private void evictAll(Segment segment, List<Node> evicted) {
+		while (!segment.isEmpty()) {
+			evict(segment.first(), evicted);
+		}
+	}
+
+	private void notifyEvicted(List<Node> evicted) {
+		EvictionListener listener = evictionListener;
+		if (listener == null || evicted == null) return;
+
+		for (Node node : evicted) {
+			listener.onEvicted(node.size);
+			if (listener instanceof BitmapEvictionListener) {
+				((BitmapEvictionListener) listener).onEvicted(node.key, node.bitmap);
+			}
+		}
+	}
+
+	private int totalSize() {
+		return window.size + probation.size + protectedSegment.size;
+	}
+
+	/**
+	 * Returns the size {@code Bitmap} in bytes.
+	 * <p/>
+	 * An entry's size must not change while it is in the cache.
+	 */
+	protected int sizeOf(Bitmap value) {
+		return BitmapSizes.sizeOf(value);
+	}
+
+	@Override
+	public synchronized final String toString() {
+		return String.format("WTinyLfuCache[maxSize=%d, windowSize=%d]", maxSize, maxWindowSize);
+	}
+
+	/** Cached Bitmap, element of segment list */
+	private static final class Node {
+		final String key;
+		Bitmap bitmap;
+		int size;
+
+		Segment segment;
+		Node prev;
+		Node next;
+
+		Node(String key, Bitmap bitmap, int size) {
+			this.key = key;
+			this.bitmap = bitmap;
+			this.size = size;
+		}
+	}
+
+	/** LRU list of nodes with total size of their Bitmaps. The first node is the least recently used one. */
+	private static final class Segment {
+		private Node head;
+		private Node tail;
+		int size;
+
+		boolean isEmpty() {
+			return head == null;
+		}
+
+		Node first() {
+			return head;
+		}
+
+		Node last() {
+			return tail;
+		}
+
+		Node next(Node node) {
+			return node.next;
+		}
+
+		void addLast(Node node) {
+			node.segment = this;
+			node.prev = tail;
+			node.next = null;
+			if (tail == null) {
+				head = node;
+			} else {
+				tail.next = node;
+			}
+			tail = node;
+			size += node.size;
+		}
+
+		void remove(Node node) {
+			if (node.prev == null) {
+				head = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+			node.segment = null;
+			size -= node.size;
+		}
+	}
+}
@@ -28,14 +28,16 @@ import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
 import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
 import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.core.assist.PriorityTaskQueue;
 import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
-import com.nostra13.universalimageloader.core.assist.deque.LIFOLinkedBlockingDeque;
 import com.nostra13.universalimageloader.core.decode.BaseImageDecoder;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.display.BitmapDisplayer;
 import com.nostra13.universalimageloader.core.display.SimpleBitmapDisplayer;
 import com.nostra13.universalimageloader.core.download.BaseImageDownloader;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.core.metrics.HistogramImageLoaderMetrics;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics;
 import com.nostra13.universalimageloader.utils.L;
 import com.nostra13.universalimageloader.utils.StorageUtils;
 
@@ -44,7 +46,6 @@ import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -61,28 +62,35 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class DefaultConfigurationFactory {
 
 	/**
-	 * Creates default implementation of task executor
+	 * Creates default implementation of task executor. Tasks are taken from queue according to their
+	 * {@linkplain com.nostra13.universalimageloader.core.assist.LoadingPriority priority}, tasks of the same priority -
+	 * according to <b>tasksProcessingType</b>.
 	 * 创建默认的 任务 线程池
 	 */
 	public static Executor createExecutor(int threadPoolSize, int threadPriority,
 										  QueueProcessingType tasksProcessingType) {
-		boolean lifo = tasksProcessingType == QueueProcessingType.LIFO;
-
-		// 有FIFO 先进先出  和 蒲婷的链表队列
-		BlockingQueue<Runnable> taskQueue =
-				lifo ? new LIFOLinkedBlockingDeque<Runnable>() : new LinkedBlockingQueue<Runnable>();
+		BlockingQueue<Runnable> taskQueue = new PriorityTaskQueue(tasksProcessingType);
 		//构建线程池
 		return new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 0L, TimeUnit.MILLISECONDS, taskQueue,
 				createThreadFactory(threadPriority, "uil-pool-"));
 	}
 
 	/**
-	 * Creates default implementation of task distributor
+	 * Creates default implementation of task distributor. It's used to route display tasks only if disk cache isn't
+	 * {@linkplain com.nostra13.universalimageloader.cache.disc.IndexedDiskCache indexed}.
 	 */
 	public static Executor createTaskDistributor() {
 		return Executors.newCachedThreadPool(createThreadFactory(Thread.NORM_PRIORITY, "uil-pool-d-"));
 	}
 
+	/**
+	 * Creates default implementation of executor for listener callbacks which can't be posted to a
+	 * {@link android.os.Handler}. Callbacks are fired one by one on single thread.
+	 */
+	public static Executor createCallbackDispatcher() {
+		return Executors.newSingleThreadExecutor(createThreadFactory(Thread.NORM_PRIORITY, "uil-pool-c-"));
+	}
+
 	/**
 	 * Creates {@linkplain HashCodeFileNameGenerator default implementation} of FileNameGenerator
 	 */
@@ -159,6 +167,11 @@ public class DefaultConfigurationFactory {
 		return new BaseImageDownloader(context);
 	}
 
+	/** Creates default implementation of {@link ImageLoaderMetrics} - {@link HistogramImageLoaderMetrics} */
+	public static ImageLoaderMetrics createMetrics() {
+		return new HistogramImageLoaderMetrics();
+	}
+
 	/**
 	 * Creates default implementation of {@link ImageDecoder} - {@link BaseImageDecoder}
 	 */
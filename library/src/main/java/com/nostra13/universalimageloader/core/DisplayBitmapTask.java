@@ -20,10 +20,14 @@ import com.nostra13.universalimageloader.core.assist.LoadedFrom;
 import com.nostra13.universalimageloader.core.display.BitmapDisplayer;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.Stage;
 import com.nostra13.universalimageloader.utils.L;
 
 /**
  * Displays bitmap in {@link com.nostra13.universalimageloader.core.imageaware.ImageAware}. Must be called on UI thread.
+ * Task is created on thread which loaded the bitmap and holds reference to the bitmap (see
+ * {@link ImageLoaderEngine#acquireBitmap(Bitmap)}) until it's run, so the bitmap isn't put into bitmap pool while
+ * task waits for display.
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @see ImageLoadingListener
@@ -44,6 +48,9 @@ final class DisplayBitmapTask implements Runnable {
 	private final ImageLoadingListener listener;
 	private final ImageLoaderEngine engine;
 	private final LoadedFrom loadedFrom;
+	private final int requestId;
+	private final RequestToken requestToken;
+	private final int requestGeneration;
 
 	public DisplayBitmapTask(Bitmap bitmap, ImageLoadingInfo imageLoadingInfo, ImageLoaderEngine engine,
 			LoadedFrom loadedFrom) {
@@ -55,6 +62,10 @@ final class DisplayBitmapTask implements Runnable {
 		listener = imageLoadingInfo.listener;
 		this.engine = engine;
 		this.loadedFrom = loadedFrom;
+		requestId = imageLoadingInfo.requestId;
+		requestToken = imageLoadingInfo.requestToken;
+		requestGeneration = imageLoadingInfo.requestGeneration;
+		engine.acquireBitmap(bitmap);
 	}
 
 	@Override
@@ -62,29 +73,35 @@ final class DisplayBitmapTask implements Runnable {
 		if (imageAware.isCollected()) {
 			// 是否 被回收?
 			L.d(LOG_TASK_CANCELLED_IMAGEAWARE_COLLECTED, memoryCacheKey);
+			engine.releaseBitmap(bitmap);
 			// 回调取消
 			listener.onLoadingCancelled(imageUri, imageAware.getWrappedView());
 		} else if (isViewWasReused()) {
 			L.d(LOG_TASK_CANCELLED_IMAGEAWARE_REUSED, memoryCacheKey);
+			engine.releaseBitmap(bitmap);
 			listener.onLoadingCancelled(imageUri, imageAware.getWrappedView());
 		} else {
 			L.d(LOG_DISPLAY_IMAGE_IN_IMAGEAWARE, loadedFrom, memoryCacheKey);
 			// displayer 去显示图片
+			long displayStart = System.nanoTime();
 			displayer.display(bitmap, imageAware, loadedFrom);
+			// View holds its own reference now
+			engine.setDisplayedBitmap(imageAware, requestToken, bitmap);
+			engine.releaseBitmap(bitmap);
+			engine.configuration.metrics.onStageFinished(Stage.DISPLAY, requestId, imageUri,
+					System.nanoTime() - displayStart);
 
 			// 删除 engine 保存的 view  key map 中对应记录
-			engine.cancelDisplayTaskFor(imageAware);
+			engine.cancelDisplayTaskFor(imageAware, requestToken);
 			// 回调图片读取完成
 			listener.onLoadingComplete(imageUri, imageAware.getWrappedView(), bitmap);
 		}
 	}
 
-	/** Checks whether memory cache key (image URI) for current ImageAware is actual
+	/** Checks whether display request for current ImageAware is actual
 	 * */
 	private boolean isViewWasReused() {
-		String currentCacheKey = engine.getLoadingUriForView(imageAware);
-		// 检查两个key 是否一样
-		//TODO  是否 在 ListView 快速滑动的时候是后会 出啊先 不一样的情况
-		return !memoryCacheKey.equals(currentCacheKey);
+		// 检查 View 的 RequestToken 是否还是这个任务的 generation
+		return !requestToken.isActual(requestGeneration);
 	}
 }
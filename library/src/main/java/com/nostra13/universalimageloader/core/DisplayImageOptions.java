@@ -22,6 +22,7 @@ import android.graphics.drawable.Drawable;
 import android.os.Handler;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
 import com.nostra13.universalimageloader.core.assist.ImageScaleType;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
 import com.nostra13.universalimageloader.core.display.BitmapDisplayer;
 import com.nostra13.universalimageloader.core.display.SimpleBitmapDisplayer;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
@@ -43,6 +44,8 @@ import com.nostra13.universalimageloader.core.process.BitmapProcessor;
  * <li>image scale type</li>
  * <li>decoding options (including bitmap decoding configuration)</li>
  * <li>delay before loading of image</li>
+ * <li>priority of loading task</li>
+ * <li>group of loading task</li>
  * <li>whether consider EXIF parameters of image</li>
  * <li>auxiliary object which will be passed to {@link ImageDownloader#getStream(String, Object) ImageDownloader}</li>
  * <li>pre-processor for image Bitmap (before caching in memory)</li>
@@ -76,6 +79,8 @@ public final class DisplayImageOptions {
 	private final ImageScaleType imageScaleType;
 	private final Options decodingOptions;
 	private final int delayBeforeLoading;
+	private final LoadingPriority priority;
+	private final Object groupTag;
 	private final boolean considerExifParams;
 	private final Object extraForDownloader;
 	private final BitmapProcessor preProcessor;
@@ -97,6 +102,8 @@ public final class DisplayImageOptions {
 		imageScaleType = builder.imageScaleType;
 		decodingOptions = builder.decodingOptions;
 		delayBeforeLoading = builder.delayBeforeLoading;
+		priority = builder.priority;
+		groupTag = builder.groupTag;
 		considerExifParams = builder.considerExifParams;
 		extraForDownloader = builder.extraForDownloader;
 		preProcessor = builder.preProcessor;
@@ -166,6 +173,14 @@ public final class DisplayImageOptions {
 		return delayBeforeLoading;
 	}
 
+	public LoadingPriority getPriority() {
+		return priority;
+	}
+
+	public Object getGroupTag() {
+		return groupTag;
+	}
+
 	public boolean isConsiderExifParams() {
 		return considerExifParams;
 	}
@@ -214,6 +229,8 @@ public final class DisplayImageOptions {
 		private ImageScaleType imageScaleType = ImageScaleType.IN_SAMPLE_POWER_OF_2;
 		private Options decodingOptions = new Options();
 		private int delayBeforeLoading = 0;
+		private LoadingPriority priority = LoadingPriority.VISIBLE;
+		private Object groupTag = null;
 		private boolean considerExifParams = false;
 		private Object extraForDownloader = null;
 		private BitmapProcessor preProcessor = null;
@@ -431,6 +448,28 @@ public final class DisplayImageOptions {
 			return this;
 		}
 
+		/**
+		 * Sets priority of loading task. Tasks of higher priority are executed before queued tasks of lower priority.
+		 * Default value - {@link LoadingPriority#VISIBLE VISIBLE}.
+		 */
+		public Builder priority(LoadingPriority priority) {
+			if (priority == null) throw new IllegalArgumentException("priority can't be null");
+			this.priority = priority;
+			return this;
+		}
+
+		/**
+		 * Sets tag of group which loading task belongs to (e.g. tag of Activity or Fragment). All queued tasks of
+		 * the group can be cancelled, paused or reprioritized at once (see {@link ImageLoader#cancelGroup(Object)},
+		 * {@link ImageLoader#pauseGroup(Object)}, {@link ImageLoader#reprioritizeGroup(Object, LoadingPriority)}).
+		 * Tags are compared by {@link Object#equals(Object)}. Default value - <b>null</b> (task doesn't belong to
+		 * any group).
+		 */
+		public Builder groupTag(Object groupTag) {
+			this.groupTag = groupTag;
+			return this;
+		}
+
 		/** Sets auxiliary object which will be passed to {@link ImageDownloader#getStream(String, Object)}
 		 *
 		 * 下载图片如果需要一些参数 , 可以通过这个方法第
@@ -522,6 +561,8 @@ public final class DisplayImageOptions {
 			imageScaleType = options.imageScaleType;
 			decodingOptions = options.decodingOptions;
 			delayBeforeLoading = options.delayBeforeLoading;
+			priority = options.priority;
+			groupTag = options.groupTag;
 			considerExifParams = options.considerExifParams;
 			extraForDownloader = options.extraForDownloader;
 			preProcessor = options.preProcessor;
@@ -15,7 +15,9 @@
  *******************************************************************************/
 package com.nostra13.universalimageloader.core;
 
+import android.content.ComponentCallbacks2;
 import android.graphics.Bitmap;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.text.TextUtils;
@@ -28,17 +30,24 @@ import com.nostra13.universalimageloader.core.assist.FailReason;
 import com.nostra13.universalimageloader.core.assist.FlushedInputStream;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 import com.nostra13.universalimageloader.core.assist.LoadedFrom;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
 import com.nostra13.universalimageloader.core.assist.ViewScaleType;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.imageaware.ImageViewAware;
 import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingProgressListener;
+import com.nostra13.universalimageloader.core.listener.PrefetchListener;
 import com.nostra13.universalimageloader.core.listener.SimpleImageLoadingListener;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.CacheEvent;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.Stage;
 import com.nostra13.universalimageloader.utils.ImageSizeUtils;
 import com.nostra13.universalimageloader.utils.L;
 import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
 
+import java.util.Collection;
+
 /**
  * Singletone for image loading and displaying at {@link ImageView ImageViews}<br />
  * <b>NOTE:</b> {@link #init(ImageLoaderConfiguration)} method must be called before any other method.
@@ -60,14 +69,21 @@ public class ImageLoader {
 	static final String LOG_INIT_CONFIG = "Initialize ImageLoader with configuration";
 	static final String LOG_DESTROY = "Destroy ImageLoader";
 	static final String LOG_LOAD_IMAGE_FROM_MEMORY_CACHE = "Load image from memory cache [%s]";
+	static final String LOG_SHOW_SMALLER_CACHED_BITMAP = "Show bitmap cached in memory for smaller size while loading [%s]";
+	static final String LOG_TRIM_MEMORY = "Trim memory cache to %d%% of its size";
 
 	private static final String WARNING_RE_INIT_CONFIG = "Try to initialize ImageLoader which had already been initialized before. " + "To re-init ImageLoader with new configuration call ImageLoader.destroy() at first.";
 	private static final String ERROR_WRONG_ARGUMENTS = "Wrong arguments were passed to displayImage() method (ImageView reference must not be null)";
+	private static final String ERROR_WRONG_PREFETCH_ARGUMENTS = "Wrong arguments were passed to prefetch() method (URIs collection must not be null)";
+	private static final String ERROR_NULL_GROUP_TAG = "Group tag must not be null";
+	private static final String ERROR_NULL_PRIORITY = "Priority must not be null";
 	private static final String ERROR_NOT_INIT = "ImageLoader must be init with configuration before using";
 	private static final String ERROR_INIT_CONFIG_WITH_NULL = "ImageLoader configuration can not be initialized with null";
+	private static final String ERROR_WRONG_TRIM_FRACTION = "Trim fraction must be in range [0..1]";
 
 	private ImageLoaderConfiguration configuration;
 	private ImageLoaderEngine engine;
+	private MemoryTrimCallbacks memoryTrimCallbacks;
 
 	private ImageLoadingListener defaultListener = new SimpleImageLoadingListener();
 
@@ -106,6 +122,11 @@ public class ImageLoader {
 			engine = new ImageLoaderEngine(configuration);
 			// 设置参数配置
 			this.configuration = configuration;
+			if (configuration.trimMemoryOnPressure && Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+				// 内存紧张时 裁剪 内存缓存
+				memoryTrimCallbacks = new MemoryTrimCallbacks(this);
+				configuration.context.registerComponentCallbacks(memoryTrimCallbacks);
+			}
 		} else {
 			L.w(WARNING_RE_INIT_CONFIG);
 		}
@@ -277,6 +298,7 @@ public class ImageLoader {
 				// 如果没有 则设置 drawable为 null
 				imageAware.setImageDrawable(null);
 			}
+			engine.setDisplayedBitmap(imageAware, null, null);
 			// 回调监听器 图片加载完成
 			listener.onLoadingComplete(uri, imageAware.getWrappedView(), null);
 			return;
@@ -289,27 +311,33 @@ public class ImageLoader {
 			targetSize = ImageSizeUtils.defineTargetSizeForView(imageAware, configuration.getMaxImageSize());
 		}
 		// 生成一个 MemoryCache key  key 是更具 url 和 大小生成的
-		String memoryCacheKey = MemoryCacheUtils.generateKey(uri, targetSize);
-		// 加载引擎  把 ViewId 和 刚刚生成的 key 存入map 中
-		engine.prepareDisplayTaskFor(imageAware, memoryCacheKey);
+		String memoryCacheKey = configuration.memoryCacheKeys.obtain(uri, targetSize.getWidth(), targetSize.getHeight());
+		// 加载引擎  把 刚刚生成的 key 绑定到 View 的 RequestToken 上
+		RequestToken requestToken = engine.getRequestTokenFor(imageAware, true);
+		int requestGeneration = engine.prepareDisplayTaskFor(imageAware, requestToken, memoryCacheKey);
+		int requestId = engine.nextRequestId();
 		// 回调 开始 加载图片
 		listener.onLoadingStarted(uri, imageAware.getWrappedView());
 
 		// 更具上面生成的 key 在memoryCache 中 查找 获取Bitmap
-		Bitmap bmp = configuration.memoryCache.get(memoryCacheKey);
-		if (bmp != null && !bmp.isRecycled()) {
+		// Reference to bitmap is held until bitmap is displayed or handed to display task, so bitmap doesn't get into
+		// bitmap pool if it's evicted from memory cache meanwhile
+		Bitmap bmp = engine.acquireCachedBitmap(memoryCacheKey);
+		if (bmp != null) {
 			// 如果找到了 且没有被回收
 			L.d(LOG_LOAD_IMAGE_FROM_MEMORY_CACHE, memoryCacheKey);
+			configuration.metrics.onCacheEvent(CacheEvent.MEMORY_HIT);
 
 			if (options.shouldPostProcess()) {
 				// 判断 是否需要对 图片进行处理
 				// new 一个 ImageLoadingInfo 对象, 该类没有其他方法 就一个构造方法 而且是final  更多的是用来对于 信息的保存 成员变量类型都 default
-				// engine.getLockForUri(uri) 是获取锁 不同于 Syn 的锁, 这种锁性能更好, 更有扩展性, 但是也要慎用
 				ImageLoadingInfo imageLoadingInfo = new ImageLoadingInfo(uri, imageAware, targetSize, memoryCacheKey,
-						options, listener, progressListener, engine.getLockForUri(uri));
+						options, listener, progressListener, requestId, requestToken, requestGeneration);
 				// new 一个 处理和显示图片的task
 				ProcessAndDisplayImageTask displayTask = new ProcessAndDisplayImageTask(engine, bmp, imageLoadingInfo,
 						defineHandler(options));
+				// Display task holds its own reference
+				engine.releaseBitmap(bmp);
 				if (options.isSyncLoading()) {
 					// 这里 判断是不是 同步 更多的是 在加载图片 之前 是不是 就已经是 其他线程了 这样 就不需要在勇引擎的线程池做处理了
 					//如果是 同步读取的话 默认是false
@@ -321,22 +349,35 @@ public class ImageLoader {
 			} else {
 				// 如果不需再处理  图片了
 				// 获取 getDisplayer 默认的是 SimpleBitmapDisplayer  还有些 渐隐渐现什么的
-				options.getDisplayer().display(bmp, imageAware, LoadedFrom.MEMORY_CACHE);
+				long displayStart = System.nanoTime();
+				try {
+					options.getDisplayer().display(bmp, imageAware, LoadedFrom.MEMORY_CACHE);
+					engine.setDisplayedBitmap(imageAware, requestToken, bmp);
+				} finally {
+					engine.releaseBitmap(bmp);
+				}
+				configuration.metrics.onStageFinished(Stage.DISPLAY, requestId, uri,
+						System.nanoTime() - displayStart);
 				listener.onLoadingComplete(uri, imageAware.getWrappedView(), bmp);
 			}
 		} else {
-			if (options.shouldShowImageOnLoading()) {
+			configuration.metrics.onCacheEvent(CacheEvent.MEMORY_MISS);
+			if (showSmallerCachedBitmap(uri, imageAware, targetSize, options, requestToken)) {
+				L.d(LOG_SHOW_SMALLER_CACHED_BITMAP, memoryCacheKey);
+			} else if (options.shouldShowImageOnLoading()) {
 				// 判断是否 需要在loading的时候显示图片
 				// 设置 loading 状态的图片
 				imageAware.setImageDrawable(options.getImageOnLoading(configuration.resources));
+				engine.setDisplayedBitmap(imageAware, requestToken, null);
 			} else if (options.isResetViewBeforeLoading()) {
 				// 如果需要 在读取图片执勤啊 reset View 那么 设置 Drawable为null
 				imageAware.setImageDrawable(null);
+				engine.setDisplayedBitmap(imageAware, requestToken, null);
 			}
 
 			// new 一个 图片信息
 			ImageLoadingInfo imageLoadingInfo = new ImageLoadingInfo(uri, imageAware, targetSize, memoryCacheKey,
-					options, listener, progressListener, engine.getLockForUri(uri));
+					options, listener, progressListener, requestId, requestToken, requestGeneration);
 			// new 一个 加载和显示图片的 任务
 			// 一个没有 缓存的图片 加载入口在这里
 			LoadAndDisplayImageTask displayTask = new LoadAndDisplayImageTask(engine, imageLoadingInfo,
@@ -664,6 +705,92 @@ public class ImageLoader {
 		return listener.getLoadedBitmap();
 	}
 
+	/**
+	 * Adds prefetch task for every image to execution pool. Images are downloaded into disk cache only.<br />
+	 * Default {@linkplain PrefetchOptions prefetch options} are used.
+	 *
+	 * @param uris Image URIs (i.e. "http://site.com/image.png", "file:///mnt/sdcard/image.png")
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @see #prefetch(Collection, PrefetchOptions, PrefetchListener)
+	 */
+	public void prefetch(Collection<String> uris) {
+		prefetch(uris, null, null);
+	}
+
+	/**
+	 * Adds prefetch task for every image to execution pool. Images are downloaded into disk cache only.
+	 *
+	 * @param uris    Image URIs (i.e. "http://site.com/image.png", "file:///mnt/sdcard/image.png")
+	 * @param options {@linkplain PrefetchOptions Options} for prefetching. If <b>null</b> - default prefetch options
+	 *                will be used.
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @see #prefetch(Collection, PrefetchOptions, PrefetchListener)
+	 */
+	public void prefetch(Collection<String> uris, PrefetchOptions options) {
+		prefetch(uris, options, null);
+	}
+
+	/**
+	 * Adds prefetch task for every image to execution pool. Images are downloaded into disk cache only: they aren't
+	 * decoded and don't displace bitmaps from memory cache. So it's cheap way to warm up disk cache with images which
+	 * will be displayed soon (e.g. next page of list).<br />
+	 * Prefetch tasks run with {@linkplain com.nostra13.universalimageloader.core.assist.LoadingPriority#BACKGROUND the
+	 * lowest priority} in the pool for network downloads, images which are cached on disk already are skipped.
+	 * Image which is downloading by display task at the moment isn't downloaded again. Prefetching is held back while
+	 * ImageLoader is {@linkplain #pause() paused}.
+	 * Downloaded images aren't resized even if
+	 * {@linkplain ImageLoaderConfiguration.Builder#diskCacheExtraOptions(int, int, com.nostra13.universalimageloader.core.process.BitmapProcessor)
+	 * max size for disk cache} is set.<br />
+	 * <b>NOTE:</b> {@link PrefetchListener#onPrefetchComplete(int, java.util.List)} is fired on UI thread if this method is
+	 * called on UI thread. If ImageLoader is {@linkplain #stop() stopped} during prefetching then listener is called
+	 * right away and images which weren't prefetched yet are reported as failed.
+	 *
+	 * @param uris     Image URIs (i.e. "http://site.com/image.png", "file:///mnt/sdcard/image.png")
+	 * @param options  {@linkplain PrefetchOptions Options} for prefetching. If <b>null</b> - default prefetch options
+	 *                 will be used.
+	 * @param listener {@linkplain PrefetchListener Listener} for aggregate result of prefetching. Can be <b>null</b>.
+	 * @throws IllegalStateException    if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @throws IllegalArgumentException if passed <b>uris</b> are null
+	 */
+	public void prefetch(Collection<String> uris, PrefetchOptions options, PrefetchListener listener) {
+		checkConfiguration();
+		if (uris == null) {
+			throw new IllegalArgumentException(ERROR_WRONG_PREFETCH_ARGUMENTS);
+		}
+		if (options == null) {
+			options = PrefetchOptions.createSimple();
+		}
+		Handler handler = Looper.myLooper() == Looper.getMainLooper() ? new Handler() : null;
+
+		PrefetchBatch batch = new PrefetchBatch(engine, options, listener, handler);
+		batch.start(uris);
+	}
+
+	/**
+	 * Shows bitmap of the same image which is cached in memory for smaller target size while image is loading. Bitmap
+	 * is bound to request token of the view, so result of previous request for the view can't replace it.
+	 *
+	 * @return <b>true</b> - if such bitmap was shown; <b>false</b> - otherwise
+	 */
+	private boolean showSmallerCachedBitmap(String uri, ImageAware imageAware, ImageSize targetSize,
+			DisplayImageOptions options, RequestToken requestToken) {
+		// Image of sync request is shown right away
+		if (options.isSyncLoading() || imageAware.getWrappedView() == null) return false;
+
+		String smallerKey = MemoryCacheUtils.findSmallerCacheKey(uri, targetSize, configuration.memoryCache);
+		if (smallerKey == null) return false;
+		Bitmap smallerBmp = engine.acquireCachedBitmap(smallerKey);
+		if (smallerBmp == null) return false;
+
+		try {
+			imageAware.setImageBitmap(smallerBmp);
+			engine.setDisplayedBitmap(imageAware, requestToken, smallerBmp);
+		} finally {
+			engine.releaseBitmap(smallerBmp);
+		}
+		return true;
+	}
+
 	/**
 	 * Checks if ImageLoader's configuration was initialized
 	 *	检查 configuration 配置
@@ -691,13 +818,75 @@ public class ImageLoader {
 	}
 
 	/**
-	 * Clears memory cache
+	 * Clears memory cache and {@linkplain ImageLoaderConfiguration.Builder#bitmapPoolSize(int) pool of bitmaps}
 	 *
 	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
 	 */
 	public void clearMemoryCache() {
 		checkConfiguration();
 		configuration.memoryCache.clear();
+		if (configuration.bitmapPool != null) {
+			// Release memory of pooled bitmaps too
+			configuration.bitmapPool.clear();
+		}
+	}
+
+	/**
+	 * Trims memory cache and {@linkplain ImageLoaderConfiguration.Builder#bitmapPoolSize(int) pool of bitmaps} to
+	 * <b>fraction</b> of their max sizes. Memory cache is trimmed only if it's
+	 * {@linkplain com.nostra13.universalimageloader.cache.memory.TrimmableMemoryCache trimmable}, otherwise it's
+	 * cleared if <b>fraction</b> is 0.
+	 *
+	 * @param fraction Part of max size which cache and pool can keep: 0 - release all, 1 - keep all
+	 * @throws IllegalStateException    if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @throws IllegalArgumentException if <b>fraction</b> isn't in range [0..1]
+	 */
+	public void trimMemory(float fraction) {
+		checkConfiguration();
+		if (!(fraction >= 0 && fraction <= 1)) {
+			throw new IllegalArgumentException(ERROR_WRONG_TRIM_FRACTION);
+		}
+		L.d(LOG_TRIM_MEMORY, (int) (fraction * 100));
+		MemoryCacheUtils.trimMemoryCache(configuration.memoryCache, fraction);
+		if (fraction < 1) {
+			// Pooled keys are cheap to build again
+			configuration.memoryCacheKeys.clear();
+		}
+		if (configuration.bitmapPool != null) {
+			// Evicted bitmaps go to pool, so trim it after memory cache
+			configuration.bitmapPool.trimToSize((int) (configuration.bitmapPool.getMaxSize() * fraction));
+		}
+	}
+
+	/**
+	 * Trims memory cache and pool of bitmaps according to memory trim <b>level</b> (see
+	 * {@link ComponentCallbacks2#onTrimMemory(int)}). The more memory system needs, the more memory is released.
+	 * ImageLoader calls this method itself on Android 4.0+ unless it's
+	 * {@linkplain ImageLoaderConfiguration.Builder#denyTrimMemoryOnPressure() denied}.
+	 *
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public void onTrimMemory(int level) {
+		float fraction;
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+			fraction = 0f;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+			fraction = 0.25f;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+			fraction = 0.5f;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+			// UI isn't visible but app isn't going to be killed, cached images will be needed when user returns
+			return;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			fraction = 0.25f;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			fraction = 0.5f;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+			fraction = 0.75f;
+		} else {
+			return;
+		}
+		trimMemory(fraction);
 	}
 
 	/**
@@ -742,6 +931,56 @@ public class ImageLoader {
 		configuration.diskCache.clear();
 	}
 
+	/**
+	 * Returns statistics of time which display tasks spent in queue, separately for every
+	 * {@linkplain com.nostra13.universalimageloader.core.assist.LoadingPriority priority}
+	 *
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public QueueWaitStats getQueueWaitStats() {
+		checkConfiguration();
+		return engine.getQueueWaitStats();
+	}
+
+	/**
+	 * Returns count of display tasks which were removed from executor queues before execution because they became
+	 * irrelevant (task was cancelled or its view was reused for another image)
+	 *
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public long getPurgedTaskCount() {
+		checkConfiguration();
+		return engine.getPurgedTaskCount();
+	}
+
+	/**
+	 * Returns {@linkplain ImageLoaderConfiguration.Builder#metrics(ImageLoaderMetrics) metrics} of ImageLoader. By
+	 * default it's {@link com.nostra13.universalimageloader.core.metrics.HistogramImageLoaderMetrics} which can dump
+	 * latency percentiles of every request stage.
+	 *
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public ImageLoaderMetrics getMetrics() {
+		checkConfiguration();
+		return configuration.metrics;
+	}
+
+	/**
+	 * Returns statistics of {@linkplain #pause() pauses}: their duration and count of tasks which were held back
+	 *
+	 * @throws IllegalStateException if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 */
+	public PauseStats getPauseStats() {
+		checkConfiguration();
+		return engine.getPauseStats();
+	}
+
+	/** Returns count of display and prefetch tasks which wait for downloading of image by another task */
+	int getDownloadWaiterCount(String uri) {
+		checkConfiguration();
+		return engine.getDownloadWaiterCount(uri);
+	}
+
 	/**
 	 * Returns URI of image which is loading at this moment into passed
 	 * {@link com.nostra13.universalimageloader.core.imageaware.ImageAware ImageAware}
@@ -762,7 +1001,8 @@ public class ImageLoader {
 
 	/**
 	 * Cancel the task of loading and displaying image for passed
-	 * {@link com.nostra13.universalimageloader.core.imageaware.ImageAware ImageAware}.
+	 * {@link com.nostra13.universalimageloader.core.imageaware.ImageAware ImageAware}. If the task is still waiting in
+	 * executor queue then it is removed from the queue immediately.
 	 *
 	 * 取消 当前 View 的读取 图片的任务
 	 *
@@ -815,19 +1055,89 @@ public class ImageLoader {
 	}
 
 	/**
-	 * Pause ImageLoader. All new "load&display" tasks won't be executed until ImageLoader is {@link #resume() resumed}.
+	 * Pause ImageLoader. All new "load&display" and prefetch tasks won't be executed until ImageLoader is
+	 * {@link #resume() resumed}.
 	 * <br />
-	 * Already running tasks are not paused.
+	 * Already running tasks are not paused. Waiting tasks are held back without occupying pool threads.
 	 */
 	public void pause() {
 		engine.pause();
 	}
 
-	/** Resumes waiting "load&display" tasks */
+	/** Resumes waiting "load&display" tasks. Tasks of higher priority are resumed first. */
 	public void resume() {
 		engine.resume();
 	}
 
+	/**
+	 * Cancels all "load&display" tasks of {@linkplain DisplayImageOptions.Builder#groupTag(Object) group}. Queued
+	 * tasks are removed from queues immediately. Running tasks are cancelled as soon as possible, their downloads are
+	 * interrupted. Tasks of the group which will be started after this call aren't affected.
+	 *
+	 * @param groupTag Tag of group
+	 * @throws IllegalStateException    if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @throws IllegalArgumentException if passed <b>groupTag</b> is null
+	 */
+	public void cancelGroup(Object groupTag) {
+		checkConfiguration();
+		checkGroupTag(groupTag);
+		engine.cancelGroup(groupTag);
+	}
+
+	/**
+	 * Pauses "load&display" tasks of {@linkplain DisplayImageOptions.Builder#groupTag(Object) group}. Queued and new
+	 * tasks of the group won't be executed until the group is {@linkplain #resumeGroup(Object) resumed}. Waiting tasks
+	 * are held back without occupying pool threads. Already running tasks are not paused. Group (and its tag) is
+	 * remembered until it's resumed.
+	 *
+	 * @param groupTag Tag of group
+	 * @throws IllegalStateException    if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @throws IllegalArgumentException if passed <b>groupTag</b> is null
+	 */
+	public void pauseGroup(Object groupTag) {
+		checkConfiguration();
+		checkGroupTag(groupTag);
+		engine.pauseGroup(groupTag);
+	}
+
+	/**
+	 * Resumes waiting "load&display" tasks of {@linkplain DisplayImageOptions.Builder#groupTag(Object) group}. If
+	 * ImageLoader is {@linkplain #pause() paused} then tasks will be resumed together with ImageLoader.
+	 *
+	 * @param groupTag Tag of group
+	 * @throws IllegalStateException    if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @throws IllegalArgumentException if passed <b>groupTag</b> is null
+	 */
+	public void resumeGroup(Object groupTag) {
+		checkConfiguration();
+		checkGroupTag(groupTag);
+		engine.resumeGroup(groupTag);
+	}
+
+	/**
+	 * Changes priority of queued "load&display" tasks of {@linkplain DisplayImageOptions.Builder#groupTag(Object)
+	 * group}. Tasks are moved in queues according to new priority.
+	 *
+	 * @param groupTag Tag of group
+	 * @param priority New priority of tasks
+	 * @throws IllegalStateException    if {@link #init(ImageLoaderConfiguration)} method wasn't called before
+	 * @throws IllegalArgumentException if passed <b>groupTag</b> or <b>priority</b> is null
+	 */
+	public void reprioritizeGroup(Object groupTag, LoadingPriority priority) {
+		checkConfiguration();
+		checkGroupTag(groupTag);
+		if (priority == null) {
+			throw new IllegalArgumentException(ERROR_NULL_PRIORITY);
+		}
+		engine.reprioritizeGroup(groupTag, priority);
+	}
+
+	private static void checkGroupTag(Object groupTag) {
+		if (groupTag == null) {
+			throw new IllegalArgumentException(ERROR_NULL_GROUP_TAG);
+		}
+	}
+
 	/**
 	 * Cancels all running and scheduled display image tasks.<br />
 	 * <b>NOTE:</b> This method doesn't shutdown
@@ -846,8 +1156,13 @@ public class ImageLoader {
 	 */
 	public void destroy() {
 		if (configuration != null) L.d(LOG_DESTROY);
+		if (memoryTrimCallbacks != null) {
+			configuration.context.unregisterComponentCallbacks(memoryTrimCallbacks);
+			memoryTrimCallbacks = null;
+		}
 		stop();
 		configuration.diskCache.close();
+		configuration.memoryCacheKeys.clear();
 		engine = null;
 		configuration = null;
 	}
@@ -17,19 +17,30 @@ package com.nostra13.universalimageloader.core;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.util.DisplayMetrics;
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
 import com.nostra13.universalimageloader.cache.disc.DiskCache;
 import com.nostra13.universalimageloader.cache.disc.naming.FileNameGenerator;
+import com.nostra13.universalimageloader.cache.memory.BitmapEvictionListener;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheKeys;
 import com.nostra13.universalimageloader.cache.memory.impl.FuzzyKeyMemoryCache;
+import com.nostra13.universalimageloader.core.assist.AndroidMainThreadDispatcher;
+import com.nostra13.universalimageloader.core.assist.BitmapPool;
+import com.nostra13.universalimageloader.core.assist.BitmapReferences;
 import com.nostra13.universalimageloader.core.assist.FlushedInputStream;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.MainThreadDispatcher;
 import com.nostra13.universalimageloader.core.assist.QueueProcessingType;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.CacheEvent;
 import com.nostra13.universalimageloader.core.process.BitmapProcessor;
+import com.nostra13.universalimageloader.utils.AndroidLogWriter;
 import com.nostra13.universalimageloader.utils.L;
-import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -49,6 +60,7 @@ import java.util.concurrent.Executor;
  */
 public final class ImageLoaderConfiguration {
 
+	final Context context;
 	final Resources resources;
 
 	final int maxImageWidthForMemoryCache;
@@ -63,6 +75,7 @@ public final class ImageLoaderConfiguration {
 	final boolean customExecutorForCachedImages;
 
 	final int threadPoolSize;
+	final int threadPoolSizeForCachedImages;
 	final int threadPriority;
 	final QueueProcessingType tasksProcessingType;
 
@@ -71,11 +84,21 @@ public final class ImageLoaderConfiguration {
 	final ImageDownloader downloader;
 	final ImageDecoder decoder;
 	final DisplayImageOptions defaultDisplayImageOptions;
+	final ImageLoaderMetrics metrics;
+	final int progressUpdateInterval;
+	final int displayFrameBudget;
+	final BitmapPool bitmapPool;
+	final BitmapReferences bitmapReferences;
+	/** Delivers display results and progress updates to main thread */
+	final MainThreadDispatcher mainThreadDispatcher;
+	final boolean trimMemoryOnPressure;
+	final MemoryCacheKeys memoryCacheKeys;
 
 	final ImageDownloader networkDeniedDownloader;
 	final ImageDownloader slowNetworkDownloader;
 
 	private ImageLoaderConfiguration(final Builder builder) {
+		context = builder.context;
 		resources = builder.context.getResources();
 		maxImageWidthForMemoryCache = builder.maxImageWidthForMemoryCache;
 		maxImageHeightForMemoryCache = builder.maxImageHeightForMemoryCache;
@@ -85,6 +108,7 @@ public final class ImageLoaderConfiguration {
 		taskExecutor = builder.taskExecutor;
 		taskExecutorForCachedImages = builder.taskExecutorForCachedImages;
 		threadPoolSize = builder.threadPoolSize;
+		threadPoolSizeForCachedImages = builder.threadPoolSizeForCachedImages;
 		threadPriority = builder.threadPriority;
 		tasksProcessingType = builder.tasksProcessingType;
 		diskCache = builder.diskCache;
@@ -92,6 +116,24 @@ public final class ImageLoaderConfiguration {
 		defaultDisplayImageOptions = builder.defaultDisplayImageOptions;
 		downloader = builder.downloader;
 		decoder = builder.decoder;
+		metrics = builder.metrics;
+		progressUpdateInterval = builder.progressUpdateInterval;
+		displayFrameBudget = builder.displayFrameBudget;
+		bitmapPool = builder.bitmapPoolSize > 0 && BitmapPool.isSupported() ? new BitmapPool(builder.bitmapPoolSize) : null;
+		bitmapReferences = bitmapPool == null ? null : new BitmapReferences(bitmapPool);
+		mainThreadDispatcher = new AndroidMainThreadDispatcher();
+		trimMemoryOnPressure = builder.trimMemoryOnPressure;
+		memoryCacheKeys = new MemoryCacheKeys(MemoryCacheKeys.DEFAULT_CAPACITY);
+
+		if (memoryCache instanceof EvictingCache) {
+			EvictionListener memoryEvictionListener = bitmapPool == null
+					? new EvictionCounter(metrics, CacheEvent.MEMORY_EVICTION)
+					: new PoolingEvictionCounter(metrics, CacheEvent.MEMORY_EVICTION, bitmapReferences);
+			((EvictingCache) memoryCache).setEvictionListener(memoryEvictionListener);
+		}
+		if (diskCache instanceof EvictingCache) {
+			((EvictingCache) diskCache).setEvictionListener(new EvictionCounter(metrics, CacheEvent.DISK_EVICTION));
+		}
 
 		customExecutor = builder.customExecutor;
 		customExecutorForCachedImages = builder.customExecutorForCachedImages;
@@ -111,6 +153,7 @@ public final class ImageLoaderConfiguration {
 	 * <li>maxImageWidthForDikcCache = unlimited</li>
 	 * <li>maxImageHeightForDiskCache = unlimited</li>
 	 * <li>threadPoolSize = {@link Builder#DEFAULT_THREAD_POOL_SIZE this}</li>
+	 * <li>threadPoolSizeForCachedImages = threadPoolSize</li>
 	 * <li>threadPriority = {@link Builder#DEFAULT_THREAD_PRIORITY this}</li>
 	 * <li>allow to cache different sizes of image in memory</li>
 	 * <li>memoryCache = {@link DefaultConfigurationFactory#createMemoryCache(android.content.Context, int)}</li>
@@ -120,6 +163,11 @@ public final class ImageLoaderConfiguration {
 	 * <li>diskCacheFileNameGenerator = {@link DefaultConfigurationFactory#createFileNameGenerator()}</li>
 	 * <li>defaultDisplayImageOptions = {@link DisplayImageOptions#createSimple() Simple options}</li>
 	 * <li>tasksProcessingOrder = {@link QueueProcessingType#FIFO}</li>
+	 * <li>metrics = {@link DefaultConfigurationFactory#createMetrics()}</li>
+	 * <li>progressUpdateInterval = {@link Builder#DEFAULT_PROGRESS_UPDATE_INTERVAL this}</li>
+	 * <li>displayFrameBudget = {@link Builder#DEFAULT_DISPLAY_FRAME_BUDGET this}</li>
+	 * <li>bitmap pool disabled</li>
+	 * <li>trim memory on memory pressure</li>
 	 * <li>detailed logging disabled</li>
 	 * </ul>
 	 */
@@ -164,6 +212,12 @@ public final class ImageLoaderConfiguration {
 		private static final String WARNING_OVERLAP_EXECUTOR = "threadPoolSize(), threadPriority() and tasksProcessingOrder() calls "
 				+ "can overlap taskExecutor() and taskExecutorForCachedImages() calls.";
 
+		static {
+			// ImageLoader can't be used without configuration, so this is the only place where LogCat writer is installed.
+			// Writer which was set by user before isn't replaced.
+			L.setDefaultLogWriter(new AndroidLogWriter());
+		}
+
 		/** {@value} */
 		// 默认的线程 刷量  3个
 		public static final int DEFAULT_THREAD_POOL_SIZE = 3;
@@ -171,6 +225,10 @@ public final class ImageLoaderConfiguration {
 		// 默认的 线程 重要等级  不是很高
 		public static final int DEFAULT_THREAD_PRIORITY = Thread.NORM_PRIORITY - 2;
 		/** {@value} */
+		public static final int DEFAULT_PROGRESS_UPDATE_INTERVAL = 16;
+		/** {@value} */
+		public static final int DEFAULT_DISPLAY_FRAME_BUDGET = 8;
+		/** {@value} */
 		// 队列的处理方  默认 先进先出
 		public static final QueueProcessingType DEFAULT_TASK_PROCESSING_TYPE = QueueProcessingType.FIFO;
 
@@ -188,6 +246,7 @@ public final class ImageLoaderConfiguration {
 		private boolean customExecutorForCachedImages = false;
 
 		private int threadPoolSize = DEFAULT_THREAD_POOL_SIZE;
+		private int threadPoolSizeForCachedImages = 0;
 		private int threadPriority = DEFAULT_THREAD_PRIORITY;
 		private boolean denyCacheImageMultipleSizesInMemory = false;
 		private QueueProcessingType tasksProcessingType = DEFAULT_TASK_PROCESSING_TYPE;
@@ -202,6 +261,11 @@ public final class ImageLoaderConfiguration {
 		private ImageDownloader downloader = null;
 		private ImageDecoder decoder;
 		private DisplayImageOptions defaultDisplayImageOptions = null;
+		private ImageLoaderMetrics metrics = null;
+		private int progressUpdateInterval = DEFAULT_PROGRESS_UPDATE_INTERVAL;
+		private int displayFrameBudget = DEFAULT_DISPLAY_FRAME_BUDGET;
+		private int bitmapPoolSize = 0;
+		private boolean trimMemoryOnPressure = true;
 
 		private boolean writeLogs = false;
 
@@ -326,6 +390,23 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * Sets thread pool size for decoding of images which are cached on disk (including just downloaded images) and
+		 * for their processing. This work is CPU-bound so it's executed separately from network downloads which are
+		 * executed in pool of {@linkplain #threadPoolSize(int) threadPoolSize}.<br />
+		 * Default value - the same as {@linkplain #threadPoolSize(int) threadPoolSize}, so decoding stage runs as many
+		 * decodes at once as ImageLoader did before stages were split. Every decode holds full-sized bitmap in
+		 * memory, so set more threads carefully.
+		 */
+		public Builder threadPoolSizeForCachedImages(int threadPoolSize) {
+			if (taskExecutorForCachedImages != null) {
+				L.w(WARNING_OVERLAP_EXECUTOR);
+			}
+
+			this.threadPoolSizeForCachedImages = threadPoolSize;
+			return this;
+		}
+
 		/**
 		 * 设置线程 权重
 		 * Sets the priority for image loading threads. Should be <b>NOT</b> greater than {@link Thread#MAX_PRIORITY} or
@@ -605,6 +686,80 @@ public final class ImageLoaderConfiguration {
 			return this;
 		}
 
+		/**
+		 * Sets receiver of stage timings, cache events and queue depths of {@link ImageLoader}.<br />
+		 * Default value - {@link DefaultConfigurationFactory#createMetrics()
+		 * DefaultConfigurationFactory.createMetrics()}
+		 *
+		 * @see ImageLoader#getMetrics()
+		 */
+		public Builder metrics(ImageLoaderMetrics metrics) {
+			this.metrics = metrics;
+			return this;
+		}
+
+		/**
+		 * Sets minimal interval (in milliseconds) between deliveries of
+		 * {@linkplain com.nostra13.universalimageloader.core.listener.ImageLoadingProgressListener loading progress} on
+		 * main thread. Progress of all active downloads is coalesced and delivered in one batch per interval, listener
+		 * receives only the latest progress of every download. <b>0</b> means progress is delivered as soon as main
+		 * thread is free.<br />
+		 * Default value - {@link #DEFAULT_PROGRESS_UPDATE_INTERVAL this} (about one frame)
+		 */
+		public Builder progressUpdateInterval(int progressUpdateInterval) {
+			if (progressUpdateInterval < 0) {
+				throw new IllegalArgumentException("progressUpdateInterval must not be negative");
+			}
+			this.progressUpdateInterval = progressUpdateInterval;
+			return this;
+		}
+
+		/**
+		 * Sets time (in milliseconds) which main thread may spend per frame on displaying of loaded images. Images
+		 * loaded for main thread are displayed in batches, one batch per frame. If batch doesn't fit into the budget
+		 * then the rest of images is displayed in next frame.<br />
+		 * Default value - {@link #DEFAULT_DISPLAY_FRAME_BUDGET this} (about half of frame)
+		 */
+		public Builder displayFrameBudget(int displayFrameBudget) {
+			if (displayFrameBudget <= 0) {
+				throw new IllegalArgumentException("displayFrameBudget must be positive");
+			}
+			this.displayFrameBudget = displayFrameBudget;
+			return this;
+		}
+
+		/**
+		 * Enables reuse of bitmaps and sets maximum size of {@linkplain BitmapPool pool} of unused bitmaps (in bytes).
+		 * Bitmaps evicted from memory cache and intermediate bitmaps of decoding are put into pool, and new images are
+		 * decoded into pooled bitmaps instead of allocation of new memory. It reduces garbage collection pauses when
+		 * images of the same size are loaded one by one (e.g. in grid with uniform cells). Works since Android 3.0.<br />
+		 * Default value - 0 (pool is disabled)<br />
+		 * Evicted bitmap gets into pool only when no view displays it anymore (see {@link BitmapReferences}).<br />
+		 * <b>NOTE:</b> Only bitmaps displayed by ImageLoader are tracked. If you take bitmaps from memory cache
+		 * yourself (e.g. by {@link ImageLoader#loadImageSync(String)}) and keep them, don't enable the pool. Only {@link com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache
+		 * LruMemoryCache}, {@link com.nostra13.universalimageloader.cache.memory.impl.SegmentedLruMemoryCache
+		 * SegmentedLruMemoryCache} and {@link com.nostra13.universalimageloader.cache.memory.impl.WTinyLfuMemoryCache
+		 * WTinyLfuMemoryCache} pass evicted bitmaps to pool.
+		 */
+		public Builder bitmapPoolSize(int bitmapPoolSize) {
+			if (bitmapPoolSize <= 0) throw new IllegalArgumentException("bitmapPoolSize must be a positive number");
+
+			this.bitmapPoolSize = bitmapPoolSize;
+			return this;
+		}
+
+		/**
+		 * By default ImageLoader {@linkplain ImageLoader#onTrimMemory(int) trims} memory cache and pool of bitmaps
+		 * when system reports memory pressure (since Android 4.0). You can <b>deny</b> it by calling <b>this</b>
+		 * method, e.g. if you pass memory trim callbacks to ImageLoader yourself.
+		 *
+		 * 禁止 在内存紧张时 自动裁剪 内存缓存
+		 */
+		public Builder denyTrimMemoryOnPressure() {
+			this.trimMemoryOnPressure = false;
+			return this;
+		}
+
 		/**
 		 * Enables detail logging of {@link ImageLoader} work. To prevent detail logs don't call this method.
 		 * Consider {@link com.nostra13.universalimageloader.utils.L#disableLogging()} to disable
@@ -633,9 +788,12 @@ public final class ImageLoaderConfiguration {
 			} else {
 				customExecutor = true;
 			}
+			if (threadPoolSizeForCachedImages <= 0) {
+				threadPoolSizeForCachedImages = threadPoolSize;
+			}
 			if (taskExecutorForCachedImages == null) {
 				taskExecutorForCachedImages = DefaultConfigurationFactory
-						.createExecutor(threadPoolSize, threadPriority, tasksProcessingType);
+						.createExecutor(threadPoolSizeForCachedImages, threadPriority, tasksProcessingType);
 			} else {
 				customExecutorForCachedImages = true;
 			}
@@ -651,7 +809,7 @@ public final class ImageLoaderConfiguration {
 			}
 			if (denyCacheImageMultipleSizesInMemory) {
 				// 如果设置 不能 缓存 多种大小的图片 则 memoryCache  还需要在重新处理下
-				memoryCache = new FuzzyKeyMemoryCache(memoryCache, MemoryCacheUtils.createFuzzyKeyComparator());
+				memoryCache = new FuzzyKeyMemoryCache(memoryCache);
 			}
 			if (downloader == null) {
 				downloader = DefaultConfigurationFactory.createImageDownloader(context);
@@ -662,6 +820,9 @@ public final class ImageLoaderConfiguration {
 			if (defaultDisplayImageOptions == null) {
 				defaultDisplayImageOptions = DisplayImageOptions.createSimple();
 			}
+			if (metrics == null) {
+				metrics = DefaultConfigurationFactory.createMetrics();
+			}
 		}
 	}
 
@@ -723,4 +884,49 @@ public final class ImageLoaderConfiguration {
 			}
 		}
 	}
+
+	/**
+	 * Passes evictions of cache to {@link ImageLoaderMetrics} as {@linkplain CacheEvent cache events}
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	private static class EvictionCounter implements EvictionListener {
+
+		private final ImageLoaderMetrics metrics;
+		private final CacheEvent event;
+
+		public EvictionCounter(ImageLoaderMetrics metrics, CacheEvent event) {
+			this.metrics = metrics;
+			this.event = event;
+		}
+
+		@Override
+		public void onEvicted(long size) {
+			metrics.onCacheEvent(event);
+		}
+	}
+
+	/**
+	 * Passes evictions of memory cache to {@link ImageLoaderMetrics} and evicted bitmaps to {@link BitmapReferences},
+	 * which puts them into {@link BitmapPool} when they aren't displayed anymore.
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	private static class PoolingEvictionCounter extends EvictionCounter implements BitmapEvictionListener {
+
+		private final BitmapReferences bitmapReferences;
+
+		public PoolingEvictionCounter(ImageLoaderMetrics metrics, CacheEvent event,
+				BitmapReferences bitmapReferences) {
+			super(metrics, event);
+			this.bitmapReferences = bitmapReferences;
+		}
+
+		@Override
+		public void onEvicted(String key, Bitmap bitmap) {
+			bitmapReferences.onEvicted(bitmap);
+		}
+	}
 }
@@ -15,21 +15,38 @@
  *******************************************************************************/
 package com.nostra13.universalimageloader.core;
 
+import android.graphics.Bitmap;
 import android.view.View;
+import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.disc.IndexedDiskCache;
+import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.core.assist.BitmapReferences;
 import com.nostra13.universalimageloader.core.assist.FailReason;
 import com.nostra13.universalimageloader.core.assist.FlushedInputStream;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.PriorityTaskQueue;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.TaskQueue;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
+import com.nostra13.universalimageloader.utils.L;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * {@link ImageLoader} engine which responsible for {@linkplain LoadAndDisplayImageTask display task} execution.
@@ -40,6 +57,12 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 class ImageLoaderEngine {
 
+	private static final String LOG_RESUME_AFTER_PAUSE = "Resume after pause of %d ms. Release %d held tasks.";
+
+	/** Precision of {@linkplain DisplayImageOptions#getDelayBeforeLoading() delays before loading} (in milliseconds) */
+	private static final long DELAY_TICK_DURATION = 10;
+	private static final int DELAY_TICKS_PER_WHEEL = 512;
+
 	final ImageLoaderConfiguration configuration;
 
 	/**
@@ -51,31 +74,66 @@ class ImageLoaderEngine {
 	 */
 	private Executor taskExecutorForCachedImages;
 	/**
-	 * taskDistributor 分发线程池, 在这个线程池中 判断 使用 上面 那个线程池
+	 * Routes display tasks to one of above executors looking for image in disk cache. It's used only if disk cache
+	 * isn't {@linkplain IndexedDiskCache indexed}, otherwise tasks are routed on caller thread.
 	 */
 	private Executor taskDistributor;
+	private final Object taskDistributorLock = new Object();
+	/** Executor for listener callbacks which can't be posted to Handler */
+	private Executor callbackDispatcher;
+	private final Object callbackDispatcherLock = new Object();
 
 	/**
-	 * cacheKey 与 ImageAwares 对应的map 貌似还一个一个 同步的HashMap
+	 * Request tokens (by ImageAware id) of ImageAwares which don't wrap any view. Tokens of views are kept in view
+	 * tags (see {@link RequestToken}).
 	 */
-	private final Map<Integer, String> cacheKeysForImageAwares = Collections
-			.synchronizedMap(new HashMap<Integer, String>());
+	private final Map<Integer, RequestToken> tokensForViewlessAwares = Collections
+			.synchronizedMap(new HashMap<Integer, RequestToken>());
 
-	/**
-	 * 一看到 是虚引用 就会清楚 软引用 是内存不足时 会清楚
-	 *
-	 * 一个锁与 uri 对应的 map
-	 */
-	private final Map<String, ReentrantLock> uriLocks = new WeakHashMap<String, ReentrantLock>();
+	/** Display tasks (by ImageAware id) which are submitted but not started yet */
+	private final Map<Integer, LoadAndDisplayImageTask> queuedTasks = Collections
+			.synchronizedMap(new HashMap<Integer, LoadAndDisplayImageTask>());
+	private final AtomicLong purgedTaskCount = new AtomicLong();
+
+	/** Loads (by memory cache key) which are in progress at the moment and tasks which wait for their results */
+	private final InFlightRegistry<LoadAndDisplayImageTask> loadingFlights =
+			new InFlightRegistry<LoadAndDisplayImageTask>();
+	/** Downloads (by image URI) which are in progress at the moment and tasks which wait for their completion */
+	private final InFlightRegistry<Runnable> downloadingFlights = new InFlightRegistry<Runnable>();
+	/** Prefetch requests which aren't finished yet */
+	private final Set<PrefetchBatch> prefetchBatches = Collections.synchronizedSet(new HashSet<PrefetchBatch>());
 
 	//AtomicBoolean  原子 的 bool 对象 即在噶变 bool 的时候 其他线程不能对其修改
 	//在这个Boolean值的变化的时候不允许在之间插入，保持操作的原子性
 	private final AtomicBoolean paused = new AtomicBoolean(false);
 	private final AtomicBoolean networkDenied = new AtomicBoolean(false);
 	private final AtomicBoolean slowNetwork = new AtomicBoolean(false);
+	private final AtomicInteger requestIdGenerator = new AtomicInteger();
 
 	//暂停锁
 	private final Object pauseLock = new Object();
+	/** Display tasks which are held back while engine is paused */
+	private final PriorityTaskQueue heldTasks;
+	/** Start time of current pause (in nanoseconds, see {@link System#nanoTime()}) */
+	private long pauseStartTime;
+	private int heldTaskCount;
+	private final PauseStats pauseStats = new PauseStats();
+
+	/** Display tasks which wait for their delay before loading */
+	private final TimingWheel<LoadAndDisplayImageTask> delayedTasks = new TimingWheel<LoadAndDisplayImageTask>(
+			DELAY_TICK_DURATION, DELAY_TICKS_PER_WHEEL, new TimingWheel.ExpirationListener<LoadAndDisplayImageTask>() {
+		@Override
+		public void onExpired(LoadAndDisplayImageTask task) {
+			submit(task);
+		}
+	});
+
+	private final TaskGroups taskGroups = new TaskGroups();
+
+	private final QueueWaitStats queueWaitStats = new QueueWaitStats();
+
+	private final ProgressDispatcher progressDispatcher;
+	private final DisplayDispatcher displayDispatcher;
 
 	// 构造方法
 	ImageLoaderEngine(ImageLoaderConfiguration configuration) {
@@ -85,8 +143,12 @@ class ImageLoaderEngine {
 		// 设置 获取缓存图片的线程池
 		taskExecutorForCachedImages = configuration.taskExecutorForCachedImages;
 
-		// 初始化 分发 线程池  是一个 缓存线程池
-		taskDistributor = DefaultConfigurationFactory.createTaskDistributor();
+		callbackDispatcher = DefaultConfigurationFactory.createCallbackDispatcher();
+		progressDispatcher = new ProgressDispatcher(configuration.mainThreadDispatcher,
+				configuration.progressUpdateInterval);
+		displayDispatcher = new DisplayDispatcher(configuration.mainThreadDispatcher,
+				configuration.displayFrameBudget);
+		heldTasks = new PriorityTaskQueue(configuration.tasksProcessingType);
 	}
 
 	/** Submits task to execution pool
@@ -94,24 +156,70 @@ class ImageLoaderEngine {
 	 * 提交任务 加载和 显示任务
 	 * */
 	void submit(final LoadAndDisplayImageTask task) {
-		taskDistributor.execute(new Runnable() {
-			@Override
-			public void run() {
-				// 看是否能够从 diskCache缓存中获取图片
-				// 注意,  从 内存中获取图片的过程  在 ImageLoader 的displayImage 方法中 就调用了,  因为从内存中获取 图片很快 不需要 走线程
-				File image = configuration.diskCache.get(task.getLoadingUri());
-				boolean isImageCachedOnDisk = image != null && image.exists();
-				// 执行前的初始化
-				initExecutorsIfNeed();
-				if (isImageCachedOnDisk) {
-					// 如果有缓存的图片 则 使用 taskExecutorForCachedImages 执行任务
-					taskExecutorForCachedImages.execute(task);
-				} else {
-					// 执行 下载 图片和缓存的任务
-					taskExecutor.execute(task);
+		if (holdIfPaused(task)) return;
+
+		long delay = task.takeDelay();
+		if (delay > 0) {
+			// Task is passed to executor when delay is over, so it doesn't occupy pool thread while waiting
+			queuedTasks.put(task.imageAwareId, task);
+			delayedTasks.schedule(task, delay);
+			return;
+		}
+
+		DiskCache diskCache = configuration.diskCache;
+		if (diskCache instanceof IndexedDiskCache) {
+			// Disk cache keeps in-memory index of cached images so routing doesn't touch file system
+			route(task, ((IndexedDiskCache) diskCache).contains(task.getLoadingUri()));
+		} else {
+			distribute(new Runnable() {
+				@Override
+				public void run() {
+					// 看是否能够从 diskCache缓存中获取图片
+					File image = configuration.diskCache.get(task.getLoadingUri());
+					route(task, image != null && image.exists());
 				}
+			});
+		}
+	}
+
+	private void route(LoadAndDisplayImageTask task, boolean isImageCachedOnDisk) {
+		// 执行前的初始化
+		initExecutorsIfNeed();
+		if (isImageCachedOnDisk) {
+			// 如果有缓存的图片 则 使用 taskExecutorForCachedImages 执行任务
+			execute(task, taskExecutorForCachedImages);
+		} else {
+			// 执行 下载 图片和缓存的任务
+			execute(task, taskExecutor);
+		}
+	}
+
+	private void distribute(Runnable r) {
+		synchronized (taskDistributorLock) {
+			if (taskDistributor == null || ((ExecutorService) taskDistributor).isShutdown()) {
+				taskDistributor = DefaultConfigurationFactory.createTaskDistributor();
 			}
-		});
+			taskDistributor.execute(r);
+		}
+	}
+
+	/**
+	 * Submits task which has downloaded its image to disk cache to decoding stage. So network threads don't do
+	 * CPU-bound work and decoding isn't blocked by slow downloads.
+	 */
+	void submitForDecoding(LoadAndDisplayImageTask task) {
+		initExecutorsIfNeed();
+		execute(task, taskExecutorForCachedImages);
+	}
+
+	private void execute(LoadAndDisplayImageTask task, Executor executor) {
+		task.markSubmitted();
+		queuedTasks.put(task.imageAwareId, task);
+		executor.execute(task);
+		if (executor instanceof ThreadPoolExecutor) {
+			TaskQueue queue = executor == taskExecutor ? TaskQueue.SOURCE : TaskQueue.CACHED;
+			configuration.metrics.onQueueDepth(queue, ((ThreadPoolExecutor) executor).getQueue().size());
+		}
 	}
 
 	/** Submits task to execution pool
@@ -122,24 +230,34 @@ class ImageLoaderEngine {
 		taskExecutorForCachedImages.execute(task);
 	}
 
+	/**
+	 * Submits prefetch task to the pool for network downloads. Task has the lowest priority so it's executed only when
+	 * there are no display tasks in queue.
+	 */
+	void submit(PrefetchTask task) {
+		if (holdIfPaused(task)) return;
+
+		initExecutorsIfNeed();
+		taskExecutor.execute(task);
+	}
+
 	private void initExecutorsIfNeed() {
 		// 判断 默认的线程是否被关闭了, 如果被关闭了 那么就创新创建一个
 
 		if (!configuration.customExecutor && ((ExecutorService) taskExecutor).isShutdown()) {
 			// 如果 不是自定义的 线程池  && 线程池被 关闭了
 			// 那么久 重新 创建一个线程池
-			taskExecutor = createTaskExecutor();
+			taskExecutor = createTaskExecutor(configuration.threadPoolSize);
 		}
 		if (!configuration.customExecutorForCachedImages && ((ExecutorService) taskExecutorForCachedImages)
 				.isShutdown()) {
-			taskExecutorForCachedImages = createTaskExecutor();
+			taskExecutorForCachedImages = createTaskExecutor(configuration.threadPoolSizeForCachedImages);
 		}
 	}
 
-	private Executor createTaskExecutor() {
+	private Executor createTaskExecutor(int threadPoolSize) {
 		return DefaultConfigurationFactory
-				.createExecutor(configuration.threadPoolSize, configuration.threadPriority,
-				configuration.tasksProcessingType);
+				.createExecutor(threadPoolSize, configuration.threadPriority, configuration.tasksProcessingType);
 	}
 
 	/**
@@ -148,17 +266,107 @@ class ImageLoaderEngine {
 	 *
 	 */
 	String getLoadingUriForView(ImageAware imageAware) {
-		return cacheKeysForImageAwares.get(imageAware.getId());
+		RequestToken token = getRequestTokenFor(imageAware, false);
+		return token == null ? null : token.getMemoryCacheKey();
+	}
+
+	/**
+	 * Returns request token of <b>imageAware</b>. Token is kept in tag of wrapped view, so it's the same for all
+	 * ImageAwares of the view. Tokens of ImageAwares without view are kept by engine.
+	 *
+	 * @param create pass <b>true</b> - to create token if there is no one yet
+	 */
+	RequestToken getRequestTokenFor(ImageAware imageAware, boolean create) {
+		View view = imageAware.getWrappedView();
+		if (view != null) {
+			return RequestToken.of(view, create);
+		}
+		synchronized (tokensForViewlessAwares) {
+			RequestToken token = tokensForViewlessAwares.get(imageAware.getId());
+			if (token == null && create) {
+				token = new RequestToken();
+				tokensForViewlessAwares.put(imageAware.getId(), token);
+			}
+			return token;
+		}
+	}
+
+	/**
+	 * Remembers bitmap which is displayed in view of <b>imageAware</b> now, so the bitmap isn't reused by
+	 * {@linkplain com.nostra13.universalimageloader.core.assist.BitmapPool bitmap pool} while it's on screen. Bitmap
+	 * "displayed" in <b>imageAware</b> without view is handed to listener only, so it's kept out of pool for good. Does
+	 * nothing if bitmap pool is disabled.
+	 *
+	 * @param token  Request token of <b>imageAware</b> or <b>null</b> if it should be taken from <b>imageAware</b>
+	 * @param bitmap Displayed bitmap or <b>null</b> if view displays something else now
+	 */
+	void setDisplayedBitmap(ImageAware imageAware, RequestToken token, Bitmap bitmap) {
+		BitmapReferences references = configuration.bitmapReferences;
+		if (references == null) return;
+		if (imageAware.getWrappedView() == null) {
+			references.retain(bitmap);
+			return;
+		}
+
+		if (token == null) {
+			token = getRequestTokenFor(imageAware, bitmap != null);
+			if (token == null) return;
+		}
+		token.setDisplayedBitmap(bitmap, references);
+	}
+
+	/**
+	 * Acquires reference to bitmap which is going to be displayed or processed on another thread, so bitmap isn't put
+	 * into bitmap pool meanwhile. Reference must be released by {@link #releaseBitmap(Bitmap)}.
+	 */
+	void acquireBitmap(Bitmap bitmap) {
+		BitmapReferences references = configuration.bitmapReferences;
+		if (references != null) {
+			references.acquire(bitmap);
+		}
+	}
+
+	/** Releases reference acquired by {@link #acquireBitmap(Bitmap)} */
+	void releaseBitmap(Bitmap bitmap) {
+		BitmapReferences references = configuration.bitmapReferences;
+		if (references != null) {
+			references.release(bitmap);
+		}
+	}
+
+	/**
+	 * Gets bitmap from memory cache and acquires reference to it (see {@link #acquireBitmap(Bitmap)}). Bitmap which was
+	 * evicted from memory cache between getting and acquiring isn't returned as it could be already reused by bitmap
+	 * pool.
+	 *
+	 * @return Acquired bitmap or <b>null</b> if memory cache doesn't have alive bitmap for the key
+	 */
+	Bitmap acquireCachedBitmap(String memoryCacheKey) {
+		MemoryCache memoryCache = configuration.memoryCache;
+		Bitmap bitmap = memoryCache.get(memoryCacheKey);
+		if (bitmap == null || bitmap.isRecycled()) return null;
+		if (configuration.bitmapReferences == null) return bitmap;
+
+		acquireBitmap(bitmap);
+		if (memoryCache.get(memoryCacheKey) != bitmap) {
+			releaseBitmap(bitmap);
+			return null;
+		}
+		return bitmap;
 	}
 
 	/**
 	 * Associates <b>memoryCacheKey</b> with <b>imageAware</b>. Then it helps to define image URI is loaded into View at
 	 * exact moment.
-	 * 往 map 中 put imageAware  和 memoryCacheKey
-	 * 下载完图片后. 要显示的View 都在  cacheKeysForImageAwares中
+	 * 下载完图片后. 要显示的View 都和 memoryCacheKey 绑定在 RequestToken 中
+	 *
+	 * @param token Request token of <b>imageAware</b> (see {@link #getRequestTokenFor(ImageAware, boolean)})
+	 * @return Generation of <b>token</b> which is actual for display task of <b>memoryCacheKey</b>
 	 */
-	void prepareDisplayTaskFor(ImageAware imageAware, String memoryCacheKey) {
-		cacheKeysForImageAwares.put(imageAware.getId(), memoryCacheKey);
+	int prepareDisplayTaskFor(ImageAware imageAware, RequestToken token, String memoryCacheKey) {
+		int generation = token.bind(memoryCacheKey);
+		purgeQueuedTaskFor(imageAware.getId(), token, memoryCacheKey);
+		return generation;
 	}
 
 	/**
@@ -169,7 +377,160 @@ class ImageLoaderEngine {
 	 *                   will be cancelled
 	 */
 	void cancelDisplayTaskFor(ImageAware imageAware) {
-		cacheKeysForImageAwares.remove(imageAware.getId());
+		RequestToken token = getRequestTokenFor(imageAware, false);
+		if (token != null) {
+			cancelDisplayTaskFor(imageAware, token);
+		}
+	}
+
+	/** Cancels the task of loading and displaying image for incoming <b>imageAware</b> with known request token. */
+	void cancelDisplayTaskFor(ImageAware imageAware, RequestToken token) {
+		int imageAwareId = imageAware.getId();
+		if (imageAware.getWrappedView() == null) {
+			synchronized (tokensForViewlessAwares) {
+				if (tokensForViewlessAwares.get(imageAwareId) == token) {
+					tokensForViewlessAwares.remove(imageAwareId);
+				}
+			}
+		}
+		token.unbind();
+		purgeQueuedTaskFor(imageAwareId, token, null);
+	}
+
+	/**
+	 * Removes task which was submitted for ImageAware (with incoming id and request token) from executor queue if this
+	 * task isn't actual anymore, so it won't occupy pool thread. Task of another ImageAware with the same id isn't
+	 * touched.
+	 *
+	 * @param actualCacheKey Memory cache key which is actual for ImageAware now or <b>null</b> if no image is actual
+	 */
+	private void purgeQueuedTaskFor(int imageAwareId, RequestToken token, String actualCacheKey) {
+		LoadAndDisplayImageTask task;
+		synchronized (queuedTasks) {
+			task = queuedTasks.get(imageAwareId);
+			if (task == null || task.requestToken != token || task.getMemoryCacheKey().equals(actualCacheKey)) return;
+			queuedTasks.remove(imageAwareId);
+		}
+		purgeQueuedTask(task);
+	}
+
+	private void purgeQueuedTask(LoadAndDisplayImageTask task) {
+		if (heldTasks.remove(task) || delayedTasks.cancel(task) || removeFromQueue(taskExecutor, task)
+				|| removeFromQueue(taskExecutorForCachedImages, task)) {
+			purgedTaskCount.incrementAndGet();
+			task.onPurged();
+		}
+	}
+
+	private static boolean removeFromQueue(Executor executor, Runnable task) {
+		return executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).remove(task);
+	}
+
+	private static boolean reprioritizeInQueue(Executor executor, Runnable task) {
+		if (!(executor instanceof ThreadPoolExecutor)) return false;
+		BlockingQueue<Runnable> queue = ((ThreadPoolExecutor) executor).getQueue();
+		return queue instanceof PriorityTaskQueue && ((PriorityTaskQueue) queue).reprioritize(task);
+	}
+
+	/**
+	 * Returns queued tasks of group (in no particular order)
+	 *
+	 * @param remove pass <b>true</b> - to forget returned tasks as queued ones
+	 */
+	private List<LoadAndDisplayImageTask> getQueuedTasksOf(Object groupTag, boolean remove) {
+		List<LoadAndDisplayImageTask> tasks = new ArrayList<LoadAndDisplayImageTask>();
+		synchronized (queuedTasks) {
+			Iterator<LoadAndDisplayImageTask> it = queuedTasks.values().iterator();
+			while (it.hasNext()) {
+				LoadAndDisplayImageTask task = it.next();
+				if (groupTag.equals(task.getGroupTag())) {
+					tasks.add(task);
+					if (remove) {
+						it.remove();
+					}
+				}
+			}
+		}
+		return tasks;
+	}
+
+	/**
+	 * Cancels all tasks of group. Queued tasks are removed from queues immediately. Running tasks are cancelled at
+	 * their next check of actuality, downloads of running tasks are interrupted.
+	 */
+	void cancelGroup(Object groupTag) {
+		taskGroups.cancel(groupTag);
+		for (LoadAndDisplayImageTask task : getQueuedTasksOf(groupTag, true)) {
+			purgeQueuedTask(task);
+		}
+	}
+
+	/**
+	 * Pauses group. Queued tasks of group are taken from executor queues and held back until group is
+	 * {@linkplain #resumeGroup(Object) resumed}. Already running tasks are not paused.
+	 */
+	void pauseGroup(Object groupTag) {
+		if (!taskGroups.pause(groupTag)) return;
+
+		for (LoadAndDisplayImageTask task : getQueuedTasksOf(groupTag, false)) {
+			if (removeFromQueue(taskExecutor, task) || removeFromQueue(taskExecutorForCachedImages, task)) {
+				if (!holdIfPaused(task)) {
+					// Group was resumed meanwhile
+					submit(task);
+				}
+			}
+		}
+	}
+
+	/** Resumes group. Held tasks of group are submitted in order of their priority (if engine isn't paused). */
+	void resumeGroup(Object groupTag) {
+		if (!taskGroups.resume(groupTag)) return;
+
+		List<LoadAndDisplayImageTask> tasks = new ArrayList<LoadAndDisplayImageTask>();
+		synchronized (pauseLock) {
+			if (paused.get()) return; // Tasks will be submitted when engine is resumed
+
+			for (Runnable task : heldTasks) {
+				if (!(task instanceof LoadAndDisplayImageTask)) continue; // Prefetch tasks don't belong to groups
+
+				LoadAndDisplayImageTask heldTask = (LoadAndDisplayImageTask) task;
+				if (groupTag.equals(heldTask.getGroupTag()) && heldTasks.remove(heldTask)) {
+					tasks.add(heldTask);
+				}
+			}
+		}
+		for (LoadAndDisplayImageTask task : tasks) {
+			submit(task);
+		}
+	}
+
+	/** Changes priority of queued tasks of group and moves them to appropriate place in queues */
+	void reprioritizeGroup(Object groupTag, LoadingPriority priority) {
+		for (LoadAndDisplayImageTask task : getQueuedTasksOf(groupTag, false)) {
+			task.setPriority(priority);
+			if (!heldTasks.reprioritize(task) && !reprioritizeInQueue(taskExecutor, task)) {
+				reprioritizeInQueue(taskExecutorForCachedImages, task);
+			}
+		}
+	}
+
+	/** Returns cancel token which new task of group shares with other tasks of group (see {@link TaskGroups}) */
+	TaskGroups.CancelToken getGroupToken(Object groupTag) {
+		return taskGroups.getToken(groupTag);
+	}
+
+	/** Forgets incoming task as queued one. Called when task is taken for execution. */
+	void unregisterQueuedTask(LoadAndDisplayImageTask task) {
+		synchronized (queuedTasks) {
+			if (queuedTasks.get(task.imageAwareId) == task) {
+				queuedTasks.remove(task.imageAwareId);
+			}
+		}
+	}
+
+	/** Returns count of display tasks which were removed from executor queues before execution */
+	long getPurgedTaskCount() {
+		return purgedTaskCount.get();
 	}
 
 	/**
@@ -201,27 +562,95 @@ class ImageLoaderEngine {
 
 	/**
 	 * Pauses engine. All new "load&display" tasks won't be executed until ImageLoader is {@link #resume() resumed}.<br
-	 * /> Already running tasks are not paused.
+	 * /> Already running tasks are not paused. Tasks are held back in engine while it's paused, so they don't occupy
+	 * pool threads.
 	 *
 	 * 设置 暂停  这里只是设置 一个 bool 值 具体的暂停 应该是 个线程 会读取这个值
 	 */
 	void pause() {
-		paused.set(true);
+		synchronized (pauseLock) {
+			if (paused.compareAndSet(false, true)) {
+				pauseStartTime = System.nanoTime();
+				heldTaskCount = 0;
+			}
+		}
 	}
 
-	/** Resumes engine work. Paused "load&display" tasks will continue its work.
+	/** Resumes engine work. Held "load&display" tasks are submitted in order of their priority.
 	 *
 	 * 设置 暂停后重新启动,
 	 *
 	 * */
 	void resume() {
-		paused.set(false);
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		synchronized (pauseLock) {
+			if (!paused.compareAndSet(true, false)) return;
+
+			long pauseDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pauseStartTime);
+			pauseStats.record(pauseDuration, heldTaskCount);
+			L.d(LOG_RESUME_AFTER_PAUSE, pauseDuration, heldTaskCount);
+			heldTasks.drainTo(tasks);
+		}
+		for (Runnable task : tasks) {
+			resubmit(task);
+		}
+	}
+
+	/**
+	 * Holds back incoming task if engine or group of task is paused. Held task will be submitted again when engine
+	 * (or group) is {@linkplain #resume() resumed}.
+	 *
+	 * @return <b>true</b> - if task was held back; <b>false</b> - if neither engine nor group of task is paused
+	 */
+	boolean holdIfPaused(LoadAndDisplayImageTask task) {
+		if (!paused.get() && !isGroupPaused(task)) return false;
 		synchronized (pauseLock) {
-			// 通知重新启动
-			pauseLock.notifyAll();
+			boolean enginePaused = paused.get();
+			if (!enginePaused && !isGroupPaused(task)) return false;
+			if (!heldTasks.contains(task)) {
+				heldTasks.offer(task);
+				if (enginePaused) {
+					heldTaskCount++;
+				}
+			}
+			configuration.metrics.onQueueDepth(TaskQueue.HELD, heldTasks.size());
+			queuedTasks.put(task.imageAwareId, task);
+			return true;
 		}
 	}
 
+	/**
+	 * Holds back incoming prefetch task if engine is paused. Held task will be submitted again when engine is
+	 * {@linkplain #resume() resumed}.
+	 *
+	 * @return <b>true</b> - if task was held back; <b>false</b> - if engine isn't paused
+	 */
+	boolean holdIfPaused(PrefetchTask task) {
+		if (!paused.get()) return false;
+		synchronized (pauseLock) {
+			if (!paused.get()) return false;
+			if (!heldTasks.contains(task)) {
+				heldTasks.offer(task);
+				heldTaskCount++;
+			}
+			configuration.metrics.onQueueDepth(TaskQueue.HELD, heldTasks.size());
+			return true;
+		}
+	}
+
+	private void resubmit(Runnable task) {
+		if (task instanceof PrefetchTask) {
+			submit((PrefetchTask) task);
+		} else {
+			submit((LoadAndDisplayImageTask) task);
+		}
+	}
+
+	private boolean isGroupPaused(LoadAndDisplayImageTask task) {
+		Object groupTag = task.getGroupTag();
+		return groupTag != null && taskGroups.isPaused(groupTag);
+	}
+
 	/**
 	 * Stops engine, cancels all running and scheduled display image tasks. Clears internal data.
 	 * <br />
@@ -230,6 +659,8 @@ class ImageLoaderEngine {
 	 * custom task executors} if you set them.
 	 */
 	void stop() {
+		// Prefetch listeners are notified before callback dispatcher is shut down
+		cancelPrefetchBatches();
 		// 入股不是自定义的线程 那么久关闭
 		// 所以 还是用他们给的线程好一些  不用自己维护
 		// 自定义的线程  得熟悉源码
@@ -239,35 +670,120 @@ class ImageLoaderEngine {
 		if (!configuration.customExecutorForCachedImages) {
 			((ExecutorService) taskExecutorForCachedImages).shutdownNow();
 		}
+		synchronized (taskDistributorLock) {
+			if (taskDistributor != null) {
+				((ExecutorService) taskDistributor).shutdownNow();
+			}
+		}
+		synchronized (callbackDispatcherLock) {
+			// Callbacks which are fired already are still delivered
+			((ExecutorService) callbackDispatcher).shutdown();
+		}
 		// 清理相关数据
-		cacheKeysForImageAwares.clear();
-		uriLocks.clear();
+		tokensForViewlessAwares.clear();
+		queuedTasks.clear();
+		heldTasks.clear();
+		delayedTasks.clear();
+		loadingFlights.clear();
+		downloadingFlights.clear();
+	}
+
+	/** Registers prefetch request which has tasks in progress, so it's finished if engine is stopped */
+	void registerPrefetch(PrefetchBatch batch) {
+		prefetchBatches.add(batch);
+	}
+
+	void unregisterPrefetch(PrefetchBatch batch) {
+		prefetchBatches.remove(batch);
+	}
+
+	private void cancelPrefetchBatches() {
+		List<PrefetchBatch> batches;
+		synchronized (prefetchBatches) {
+			batches = new ArrayList<PrefetchBatch>(prefetchBatches);
+			prefetchBatches.clear();
+		}
+		for (PrefetchBatch batch : batches) {
+			batch.cancel();
+		}
 	}
 
 	void fireCallback(Runnable r) {
-		taskDistributor.execute(r);
+		synchronized (callbackDispatcherLock) {
+			if (((ExecutorService) callbackDispatcher).isShutdown()) {
+				callbackDispatcher = DefaultConfigurationFactory.createCallbackDispatcher();
+			}
+			callbackDispatcher.execute(r);
+		}
+	}
+
+	/** Passes pending progress update to batched delivery on main thread */
+	void dispatchProgress(ProgressUpdate update) {
+		progressDispatcher.dispatch(update);
+	}
+
+	/** Passes display task to frame-aligned batched delivery on main thread */
+	void dispatchDisplay(DisplayBitmapTask task) {
+		displayDispatcher.dispatch(task);
 	}
 
 	/**
-	 * 每个 Uri 都对应一把锁
-	 * @param uri
-	 * @return
+	 * Starts loading of image for incoming <b>memoryCacheKey</b> or attaches <b>task</b> to the loading which is
+	 * already in progress. Attached task will be continued by task which owns the loading.
+	 *
+	 * @return <b>true</b> - if <b>task</b> owns the loading now; <b>false</b> - if it was attached as waiter
 	 */
-	ReentrantLock getLockForUri(String uri) {
-		ReentrantLock lock = uriLocks.get(uri);
-		if (lock == null) {
-			lock = new ReentrantLock();
-			uriLocks.put(uri, lock);
+	boolean startLoadingFor(String memoryCacheKey, LoadAndDisplayImageTask task) {
+		return loadingFlights.attach(memoryCacheKey, task);
+	}
+
+	/** Finishes loading of image for incoming <b>memoryCacheKey</b> and returns tasks which were waiting for it */
+	List<LoadAndDisplayImageTask> finishLoadingFor(String memoryCacheKey) {
+		return loadingFlights.detach(memoryCacheKey);
+	}
+
+	/**
+	 * Starts downloading of image for incoming <b>uri</b> or attaches <b>task</b> to the downloading which is already
+	 * in progress. Attached task will be re-submitted when the downloading is finished. Display and prefetch tasks
+	 * share the same downloadings, so the same image is never saved into disk cache by two tasks at once.
+	 *
+	 * @param task {@link LoadAndDisplayImageTask} or {@link PrefetchTask}
+	 * @return <b>true</b> - if <b>task</b> owns the downloading now; <b>false</b> - if it was attached as waiter
+	 */
+	boolean startDownloadingFor(String uri, Runnable task) {
+		return downloadingFlights.attach(uri, task);
+	}
+
+	/** Finishes downloading of image for incoming <b>uri</b> and re-submits tasks which were waiting for it */
+	void finishDownloadingFor(String uri) {
+		for (Runnable waiter : downloadingFlights.detach(uri)) {
+			if (waiter instanceof LoadAndDisplayImageTask) {
+				((LoadAndDisplayImageTask) waiter).finishWaiting();
+			}
+			resubmit(waiter);
 		}
-		return lock;
 	}
 
-	AtomicBoolean getPause() {
-		return paused;
+	/** Returns count of tasks which wait for downloading of image for incoming <b>uri</b> */
+	int getDownloadWaiterCount(String uri) {
+		return downloadingFlights.waiterCount(uri);
+	}
+
+	/** Returns ID for new display request. IDs are used to tell requests apart in metrics and traces. */
+	int nextRequestId() {
+		return requestIdGenerator.incrementAndGet();
+	}
+
+	void recordQueueWait(LoadingPriority priority, long waitTime) {
+		queueWaitStats.record(priority, waitTime);
+	}
+
+	QueueWaitStats getQueueWaitStats() {
+		return queueWaitStats;
 	}
 
-	Object getPauseLock() {
-		return pauseLock;
+	PauseStats getPauseStats() {
+		return pauseStats;
 	}
 
 	boolean isNetworkDenied() {
@@ -20,8 +20,6 @@ import com.nostra13.universalimageloader.core.listener.ImageLoadingProgressListe
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 
-import java.util.concurrent.locks.ReentrantLock;
-
 /**
  * Information for load'n'display image task
  *
@@ -43,18 +41,23 @@ final class ImageLoadingInfo {
 	final DisplayImageOptions options;
 	final ImageLoadingListener listener;
 	final ImageLoadingProgressListener progressListener;
-	final ReentrantLock loadFromUriLock;
+	final int requestId;
+	final RequestToken requestToken;
+	final int requestGeneration;
 
 	public ImageLoadingInfo(String uri, ImageAware imageAware, ImageSize targetSize, String memoryCacheKey,
 			DisplayImageOptions options, ImageLoadingListener listener,
-			ImageLoadingProgressListener progressListener, ReentrantLock loadFromUriLock) {
+			ImageLoadingProgressListener progressListener, int requestId, RequestToken requestToken,
+			int requestGeneration) {
 		this.uri = uri;
 		this.imageAware = imageAware;
 		this.targetSize = targetSize;
 		this.options = options;
 		this.listener = listener;
 		this.progressListener = progressListener;
-		this.loadFromUriLock = loadFromUriLock;
 		this.memoryCacheKey = memoryCacheKey;
+		this.requestId = requestId;
+		this.requestToken = requestToken;
+		this.requestGeneration = requestGeneration;
 	}
 }
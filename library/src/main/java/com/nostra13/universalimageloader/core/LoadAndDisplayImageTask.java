@@ -18,11 +18,15 @@ package com.nostra13.universalimageloader.core;
 import android.graphics.Bitmap;
 import android.os.Handler;
 
+import com.nostra13.universalimageloader.core.assist.AndroidMainThreadDispatcher;
 import com.nostra13.universalimageloader.core.assist.FailReason;
 import com.nostra13.universalimageloader.core.assist.FailReason.FailType;
 import com.nostra13.universalimageloader.core.assist.ImageScaleType;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 import com.nostra13.universalimageloader.core.assist.LoadedFrom;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.PriorityTaskQueue;
+import com.nostra13.universalimageloader.core.assist.TimedInputStream;
 import com.nostra13.universalimageloader.core.assist.ViewScaleType;
 import com.nostra13.universalimageloader.core.decode.ImageDecoder;
 import com.nostra13.universalimageloader.core.decode.ImageDecodingInfo;
@@ -31,14 +35,18 @@ import com.nostra13.universalimageloader.core.download.ImageDownloader.Scheme;
 import com.nostra13.universalimageloader.core.imageaware.ImageAware;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
 import com.nostra13.universalimageloader.core.listener.ImageLoadingProgressListener;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.CacheEvent;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.Stage;
+import com.nostra13.universalimageloader.utils.ImageSizeUtils;
 import com.nostra13.universalimageloader.utils.IoUtils;
 import com.nostra13.universalimageloader.utils.L;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.List;
 
 /**
  * Presents load'n'display image task. Used to load image from Internet or file system, decode it to {@link Bitmap}, and
@@ -51,16 +59,20 @@ import java.util.concurrent.locks.ReentrantLock;
  * @see ImageLoadingInfo
  * @since 1.3.1
  */
-final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
+final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener, PriorityTaskQueue.Prioritized {
 
 	private static final String LOG_WAITING_FOR_RESUME = "ImageLoader is paused. Waiting...  [%s]";
-	private static final String LOG_RESUME_AFTER_PAUSE = ".. Resume loading [%s]";
 	private static final String LOG_DELAY_BEFORE_LOADING = "Delay %d ms before loading...  [%s]";
 	private static final String LOG_START_DISPLAY_IMAGE_TASK = "Start display image task [%s]";
 	private static final String LOG_WAITING_FOR_IMAGE_LOADED = "Image already is loading. Waiting... [%s]";
+	private static final String LOG_WAITING_FOR_IMAGE_DOWNLOADED = "Image already is downloading. Waiting... [%s]";
 	private static final String LOG_GET_IMAGE_FROM_MEMORY_CACHE_AFTER_WAITING = "...Get cached bitmap from memory after waiting. [%s]";
+	private static final String LOG_GET_IMAGE_FROM_ANOTHER_TASK = "...Get bitmap loaded by another task after waiting. [%s]";
+	private static final String LOG_GET_IMAGE_FROM_LARGER_CACHED_BITMAP = "Get bitmap cached in memory for larger size [%s]";
+	private static final String LOG_SCALE_LARGER_CACHED_BITMAP = "Scale bitmap cached in memory for larger size (%1$s) to %2$s [%3$s]";
 	private static final String LOG_LOAD_IMAGE_FROM_NETWORK = "Load image from network [%s]";
 	private static final String LOG_LOAD_IMAGE_FROM_DISK_CACHE = "Load image from disk cache [%s]";
+	private static final String LOG_PASS_IMAGE_TO_DECODING = "Image is cached on disk. Pass it to decoding... [%s]";
 	private static final String LOG_RESIZE_CACHED_IMAGE_FILE = "Resize image in disk cache [%s]";
 	private static final String LOG_PREPROCESS_IMAGE = "PreProcess image before caching in memory [%s]";
 	private static final String LOG_POSTPROCESS_IMAGE = "PostProcess image before displaying [%s]";
@@ -70,6 +82,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	private static final String LOG_TASK_CANCELLED_IMAGEAWARE_REUSED = "ImageAware is reused for another image. Task is cancelled. [%s]";
 	private static final String LOG_TASK_CANCELLED_IMAGEAWARE_COLLECTED = "ImageAware was collected by GC. Task is cancelled. [%s]";
 	private static final String LOG_TASK_INTERRUPTED = "Task was interrupted [%s]";
+	private static final String LOG_TASK_CANCELLED_GROUP = "Group of task was cancelled. Task is cancelled. [%s]";
 
 	private static final String ERROR_NO_IMAGE_STREAM = "No stream for image [%s]";
 	private static final String ERROR_PRE_PROCESSOR_NULL = "Pre-processor returned null [%s]";
@@ -86,17 +99,31 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	private final ImageDownloader networkDeniedDownloader;
 	private final ImageDownloader slowNetworkDownloader;
 	private final ImageDecoder decoder;
+	private final ImageLoaderMetrics metrics;
+	private final int requestId;
 	final String uri;
 	private final String memoryCacheKey;
 	final ImageAware imageAware;
+	final int imageAwareId;
+	final RequestToken requestToken;
+	private final int requestGeneration;
 	private final ImageSize targetSize;
 	final DisplayImageOptions options;
 	final ImageLoadingListener listener;
 	final ImageLoadingProgressListener progressListener;
 	private final boolean syncLoading;
+	private final Object groupTag;
+	private final TaskGroups.CancelToken groupToken;
 
 	// State vars
 	private LoadedFrom loadedFrom = LoadedFrom.NETWORK;
+	private boolean loadingOwner;
+	private boolean delayed;
+	private boolean downloaded;
+	private long submitTime;
+	private long waitingStartTime;
+	private ProgressUpdate progressUpdate;
+	private volatile LoadingPriority priority;
 
 	public LoadAndDisplayImageTask(ImageLoaderEngine engine, ImageLoadingInfo imageLoadingInfo, Handler handler) {
 		this.engine = engine;
@@ -108,62 +135,106 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		networkDeniedDownloader = configuration.networkDeniedDownloader;
 		slowNetworkDownloader = configuration.slowNetworkDownloader;
 		decoder = configuration.decoder;
+		metrics = configuration.metrics;
+		requestId = imageLoadingInfo.requestId;
 		uri = imageLoadingInfo.uri;
 		memoryCacheKey = imageLoadingInfo.memoryCacheKey;
 		imageAware = imageLoadingInfo.imageAware;
+		imageAwareId = imageAware.getId();
+		requestToken = imageLoadingInfo.requestToken;
+		requestGeneration = imageLoadingInfo.requestGeneration;
 		targetSize = imageLoadingInfo.targetSize;
 		options = imageLoadingInfo.options;
 		listener = imageLoadingInfo.listener;
 		progressListener = imageLoadingInfo.progressListener;
 		syncLoading = options.isSyncLoading();
+		groupTag = options.getGroupTag();
+		groupToken = groupTag == null ? null : engine.getGroupToken(groupTag);
+		priority = options.getPriority();
 	}
 
 	@Override
 	public void run() {
-		if (waitIfPaused()) return;
-		if (delayIfNeed()) return;
+		engine.unregisterQueuedTask(this);
+		if (submitTime > 0) {
+			long waitTime = System.nanoTime() - submitTime;
+			engine.recordQueueWait(priority, waitTime / 1000000);
+			metrics.onStageFinished(Stage.QUEUE_WAIT, requestId, uri, waitTime);
+			submitTime = 0;
+		}
+		// Sync task runs on caller's thread which waits for result, so it isn't held
+		if (!syncLoading && engine.holdIfPaused(this)) {
+			// Task will be re-submitted when ImageLoader is resumed
+			L.d(LOG_WAITING_FOR_RESUME, memoryCacheKey);
+			return;
+		}
+		if (isTaskNotActual() || delayIfNeed()) {
+			finishLoading(null);
+			return;
+		}
 
-		// 获取 当前url 对应的说,  说在 engine 中产生
-		ReentrantLock loadFromUriLock = imageLoadingInfo.loadFromUriLock;
 		L.d(LOG_START_DISPLAY_IMAGE_TASK, memoryCacheKey);
-		if (loadFromUriLock.isLocked()) {
-			// 是否被锁住了
-			L.d(LOG_WAITING_FOR_IMAGE_LOADED, memoryCacheKey);
+		if (!syncLoading && !loadingOwner) {
+			waitingStartTime = System.nanoTime();
+			if (!engine.startLoadingFor(memoryCacheKey, this)) {
+				// Task will be continued by the task which loads the same image now
+				L.d(LOG_WAITING_FOR_IMAGE_LOADED, memoryCacheKey);
+				return;
+			}
+			waitingStartTime = 0;
+			loadingOwner = true;
 		}
-		// 还是 锁
-		loadFromUriLock.lock();
-		Bitmap bmp;
+		Bitmap bmp = null;
+		Bitmap loadedBmp = null;
+		// Bitmap which is in memory cache is referenced by this task until display task references it itself, so it
+		// doesn't get into bitmap pool if it's evicted meanwhile
+		Bitmap acquiredBmp = null;
+		DisplayBitmapTask displayBitmapTask = null;
+		boolean deferred = false;
 		try {
 			// 检查 是否被回收 和 View 的图片是否被换掉了
 			checkTaskNotActual();
 
 			// 先从 内存中获取图片
-			bmp = configuration.memoryCache.get(memoryCacheKey);
-			if (bmp == null || bmp.isRecycled()) {
-				// 如果获取到了的话
-				// 尝试 读取图片  这里会加重网络度 并缓存到磁盘上了
-				bmp = tryLoadBitmap();
-				//如果  bmp == null 直接 返回即可 各种错误处理在 tryLoadBitmap 以及处理了
-				if (bmp == null) return; // listener callback already was fired
-
-				// 再次检查
-				checkTaskNotActual();
-				checkTaskInterrupted();
-
-				if (options.shouldPreProcess()) {
-					// 预先处理图片 在缓存到内存之间处理
-					L.d(LOG_PREPROCESS_IMAGE, memoryCacheKey);
-					bmp = options.getPreProcessor().process(bmp);
-					if (bmp == null) {
-						// 处理后 bmp 有可能为空
-						L.e(ERROR_PRE_PROCESSOR_NULL, memoryCacheKey);
+			bmp = engine.acquireCachedBitmap(memoryCacheKey);
+			acquiredBmp = bmp;
+			if (bmp == null) {
+				// 内存中有同一图片更大尺寸的 Bitmap 则直接缩小 不用再读磁盘
+				bmp = getLargerCachedBitmap();
+				acquiredBmp = bmp;
+				if (bmp != null) {
+					loadedFrom = LoadedFrom.MEMORY_CACHE;
+				} else {
+					// 如果获取到了的话
+					// 尝试 读取图片  这里会加重网络度 并缓存到磁盘上了
+					bmp = tryLoadBitmap();
+					//如果  bmp == null 直接 返回即可 各种错误处理在 tryLoadBitmap 以及处理了
+					if (bmp == null) return; // listener callback already was fired
+
+					// 再次检查
+					checkTaskNotActual();
+					checkTaskInterrupted();
+
+					if (options.shouldPreProcess()) {
+						// 预先处理图片 在缓存到内存之间处理
+						L.d(LOG_PREPROCESS_IMAGE, memoryCacheKey);
+						long processStart = System.nanoTime();
+						bmp = options.getPreProcessor().process(bmp);
+						metrics.onStageFinished(Stage.PRE_PROCESS, requestId, uri, System.nanoTime() - processStart);
+						if (bmp == null) {
+							// 处理后 bmp 有可能为空
+							L.e(ERROR_PRE_PROCESSOR_NULL, memoryCacheKey);
+						}
 					}
-				}
 
-				if (bmp != null && options.isCacheInMemory()) {
-					// 不为空 则缓存到内存中
-					L.d(LOG_CACHE_IMAGE_IN_MEMORY, memoryCacheKey);
-					configuration.memoryCache.put(memoryCacheKey, bmp);
+					if (bmp != null && options.isCacheInMemory()) {
+						// 不为空 则缓存到内存中
+						L.d(LOG_CACHE_IMAGE_IN_MEMORY, memoryCacheKey);
+						// Reference is acquired before caching as putting can evict the bitmap right away
+						engine.acquireBitmap(bmp);
+						acquiredBmp = bmp;
+						configuration.memoryCache.put(memoryCacheKey, bmp);
+					}
 				}
 			} else {
 				// 如果图片从内存 缓存中读出来了
@@ -171,11 +242,14 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 				loadedFrom = LoadedFrom.MEMORY_CACHE;
 				L.d(LOG_GET_IMAGE_FROM_MEMORY_CACHE_AFTER_WAITING, memoryCacheKey);
 			}
+			loadedBmp = bmp;
 
 			if (bmp != null && options.shouldPostProcess()) {
 				// 处理图片
 				L.d(LOG_POSTPROCESS_IMAGE, memoryCacheKey);
+				long processStart = System.nanoTime();
 				bmp = options.getPostProcessor().process(bmp);
+				metrics.onStageFinished(Stage.POST_PROCESS, requestId, uri, System.nanoTime() - processStart);
 				if (bmp == null) {
 					L.e(ERROR_POST_PROCESSOR_NULL, memoryCacheKey);
 				}
@@ -183,59 +257,97 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 			// 再次检测
 			checkTaskNotActual();
 			checkTaskInterrupted();
+
+			// 执行显示图片任务
+			displayBitmapTask = new DisplayBitmapTask(bmp, imageLoadingInfo, engine, loadedFrom);
 		} catch (TaskCancelledException e) {
 			// catch 到 取消的异常 则处理
 			// 主要是 回调 取消异常事件
 			fireCancelEvent();
 			return;
+		} catch (TaskDeferredException e) {
+			// Task will be continued later (maybe on another executor)
+			deferred = true;
+			return;
 		} finally {
-			// 解锁
-			loadFromUriLock.unlock();
+			if (!deferred) {
+				finishLoading(loadedBmp);
+			}
+			// Waiting tasks and display task have acquired their own references by now
+			engine.releaseBitmap(acquiredBmp);
 		}
 
-		// 执行显示图片任务
-		DisplayBitmapTask displayBitmapTask = new DisplayBitmapTask(bmp, imageLoadingInfo, engine, loadedFrom);
 		// 多数情况下 handler 不为空 所以  displayBitmapTask 在主线程中晚餐
 		//TODO 需要测试 displayBitmapTask 是否在主线程中完成
-		runTask(displayBitmapTask, syncLoading, handler, engine);
+		runDisplayTask(displayBitmapTask, syncLoading, handler, engine);
 	}
 
 	/**
-	 * @return <b>true</b> - if task should be interrupted; <b>false</b> - otherwise
-	 * 如果返回 true 表示该任务需要被 中断
+	 * Takes bitmap of the same image which is cached in memory for larger target size and scales it down the way decoder
+	 * scales image for {@linkplain ImageScaleType scale type} of options. Scaled bitmap is cached in memory for target
+	 * size (if it's needed), so the next request of this size hits memory cache. Larger bitmap which fits target size
+	 * as is is served without caching it for another key. Pre-processing isn't applied again as larger bitmap was
+	 * already pre-processed.
+	 *
+	 * @return Bitmap for target size (reference to it is {@linkplain ImageLoaderEngine#acquireBitmap(Bitmap) acquired})
+	 * or <b>null</b> if memory cache has no larger bitmap of the image or if image must be decoded in original size
 	 */
-	private boolean waitIfPaused() {
-		// 获取 引擎中的 是否暂停的状态
-		AtomicBoolean pause = engine.getPause();
-		if (pause.get()) {
-			// 如果暂停
-			synchronized (engine.getPauseLock()) {
-				if (pause.get()) {
-					L.d(LOG_WAITING_FOR_RESUME, memoryCacheKey);
-					try {
-						// 如果暂停 这里 wait  那么这个 线程 就暂停了
-						// 等待 被 notify
-						engine.getPauseLock().wait();
-					} catch (InterruptedException e) {
-						// 正常的waite 不会报这个异常
-						L.e(LOG_TASK_INTERRUPTED, memoryCacheKey);
-						return true;
-					}
-					L.d(LOG_RESUME_AFTER_PAUSE, memoryCacheKey);
-				}
-			}
+	private Bitmap getLargerCachedBitmap() {
+		ImageScaleType scaleType = options.getImageScaleType();
+		// Cached bitmap can be scaled already, so original image is decoded
+		if (scaleType == ImageScaleType.NONE || scaleType == ImageScaleType.NONE_SAFE) return null;
+
+		String largerKey = MemoryCacheUtils.findLargerCacheKey(uri, targetSize, configuration.memoryCache);
+		if (largerKey == null) return null;
+		// Larger bitmap must not get into bitmap pool while it's read
+		Bitmap largerBmp = engine.acquireCachedBitmap(largerKey);
+		if (largerBmp == null) return null;
+
+		ImageSize srcSize = new ImageSize(largerBmp.getWidth(), largerBmp.getHeight());
+		ViewScaleType viewScaleType = imageAware.getScaleType();
+		float scale;
+		if (scaleType == ImageScaleType.EXACTLY || scaleType == ImageScaleType.EXACTLY_STRETCHED) {
+			scale = ImageSizeUtils.computeImageScale(srcSize, targetSize, viewScaleType,
+					scaleType == ImageScaleType.EXACTLY_STRETCHED);
+		} else {
+			boolean powerOf2 = scaleType == ImageScaleType.IN_SAMPLE_POWER_OF_2;
+			scale = 1f / ImageSizeUtils.computeImageSampleSize(srcSize, targetSize, viewScaleType, powerOf2);
 		}
-		// 是否 view 被回收 或 View 显示的图片被换掉
-		return isTaskNotActual();
+
+		if (Float.compare(scale, 1f) == 0) {
+			L.d(LOG_GET_IMAGE_FROM_LARGER_CACHED_BITMAP, memoryCacheKey);
+			// Bitmap is cached already, caching it for another key too would count it twice
+			return largerBmp;
+		}
+
+		L.d(LOG_SCALE_LARGER_CACHED_BITMAP, srcSize, srcSize.scale(scale), memoryCacheKey);
+		int width = Math.max(1, Math.round(srcSize.getWidth() * scale));
+		int height = Math.max(1, Math.round(srcSize.getHeight() * scale));
+		Bitmap bmp;
+		try {
+			bmp = Bitmap.createScaledBitmap(largerBmp, width, height, true);
+		} finally {
+			engine.releaseBitmap(largerBmp);
+		}
+		engine.acquireBitmap(bmp);
+		if (options.isCacheInMemory()) {
+			L.d(LOG_CACHE_IMAGE_IN_MEMORY, memoryCacheKey);
+			configuration.memoryCache.put(memoryCacheKey, bmp);
+		}
+		return bmp;
 	}
 
 	/**
+	 * Delays synchronous task on current thread. Asynchronous tasks are delayed by engine before execution (see
+	 * {@link #takeDelay()}).
+	 *
 	 * @return <b>true</b> - if task should be interrupted; <b>false</b> - otherwise
 	 * 是否需要 delay
 	 */
 	private boolean delayIfNeed() {
 		// 在loading前 是否需要delay
-		if (options.shouldDelayBeforeLoading()) {
+		if (options.shouldDelayBeforeLoading() && !delayed) {
+			delayed = true;
 			L.d(LOG_DELAY_BEFORE_LOADING, options.getDelayBeforeLoading(), memoryCacheKey);
 			try {
 				Thread.sleep(options.getDelayBeforeLoading());
@@ -249,21 +361,87 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		return false;
 	}
 
+	/**
+	 * Returns delay which is needed before loading (in milliseconds) and marks that task was delayed.
+	 *
+	 * @return Delay before loading or <b>0</b> if task doesn't need delay or it was already delayed
+	 */
+	long takeDelay() {
+		if (!options.shouldDelayBeforeLoading() || delayed) return 0;
+		delayed = true;
+		L.d(LOG_DELAY_BEFORE_LOADING, options.getDelayBeforeLoading(), memoryCacheKey);
+		return options.getDelayBeforeLoading();
+	}
+
+	/**
+	 * Finishes loading of image if this task owns it and continues tasks which were waiting for the same image.
+	 *
+	 * @param bmp Loaded bitmap (before post-processing) or <b>null</b> if loading was failed or cancelled
+	 */
+	private void finishLoading(Bitmap bmp) {
+		if (!loadingOwner) return;
+		loadingOwner = false;
+
+		List<LoadAndDisplayImageTask> waiters = engine.finishLoadingFor(memoryCacheKey);
+		for (LoadAndDisplayImageTask waiter : waiters) {
+			waiter.continueAfter(this, bmp);
+		}
+	}
+
+	/**
+	 * Continues this task with result of loading which was made by <b>owner</b> task for the same image. Result is
+	 * reused only if it is the same bitmap this task would get itself (it was cached in memory or it was pre-processed
+	 * the same way), otherwise this task is re-submitted and loads the image itself.
+	 */
+	private void continueAfter(LoadAndDisplayImageTask owner, Bitmap bmp) {
+		finishWaiting();
+		if (isGroupCancelled()) {
+			fireCancelEvent();
+			return;
+		}
+		boolean cachedInMemory = owner.options.isCacheInMemory();
+		boolean reusable = cachedInMemory || owner.options.getPreProcessor() == options.getPreProcessor();
+		if (bmp == null || bmp.isRecycled() || !reusable) {
+			engine.submit(this);
+			return;
+		}
+
+		L.d(LOG_GET_IMAGE_FROM_ANOTHER_TASK, memoryCacheKey);
+		if (options.shouldPostProcess()) {
+			engine.submit(new ProcessAndDisplayImageTask(engine, bmp, imageLoadingInfo, handler));
+		} else {
+			LoadedFrom from = cachedInMemory ? LoadedFrom.MEMORY_CACHE : owner.loadedFrom;
+			runDisplayTask(new DisplayBitmapTask(bmp, imageLoadingInfo, engine, from), false, handler, engine);
+		}
+	}
+
+	/** Reports time which task spent waiting for another task loading or downloading the same image */
+	void finishWaiting() {
+		if (waitingStartTime > 0) {
+			metrics.onStageFinished(Stage.URI_LOCK_WAIT, requestId, uri, System.nanoTime() - waitingStartTime);
+			waitingStartTime = 0;
+		}
+	}
+
 	/**
 	 * 加载 Bitmap 并缓存到磁盘中
 	 *
 	 * @return
 	 * @throws TaskCancelledException
 	 */
-	private Bitmap tryLoadBitmap() throws TaskCancelledException {
+	private Bitmap tryLoadBitmap() throws TaskCancelledException, TaskDeferredException {
 		Bitmap bitmap = null;
 		try {
 			File imageFile = configuration.diskCache.get(uri);
 			// 更具Uri 获取相应的缓存图片文件
-			if (imageFile != null && imageFile.exists() && imageFile.length() > 0) {
+			boolean cachedOnDisk = imageFile != null && imageFile.exists() && imageFile.length() > 0;
+			if (!downloaded) {
+				metrics.onCacheEvent(cachedOnDisk ? CacheEvent.DISK_HIT : CacheEvent.DISK_MISS);
+			}
+			if (cachedOnDisk) {
 				L.d(LOG_LOAD_IMAGE_FROM_DISK_CACHE, memoryCacheKey);
 				// 如果文件存在
-				loadedFrom = LoadedFrom.DISC_CACHE;
+				loadedFrom = downloaded ? LoadedFrom.NETWORK : LoadedFrom.DISC_CACHE;
 
 				// 再次检查 view 是否被回收 和View 显示的图片是否被换掉
 				checkTaskNotActual();
@@ -279,9 +457,16 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 
 				String imageUriForDecoding = uri;
 				// tryCacheImageOnDisk 方法中 会去下载图片
-				if (options.isCacheOnDisk() && tryCacheImageOnDisk()) {
+				if (options.isCacheOnDisk() && tryCacheImageOnDiskOnce()) {
 					// 这里再根据 uri 去获取图片文件
 					imageFile = configuration.diskCache.get(uri);
+					if (imageFile != null && !syncLoading && !downloaded) {
+						// Decoding is CPU-bound work, so it's continued on decoding stage and network thread is free
+						L.d(LOG_PASS_IMAGE_TO_DECODING, memoryCacheKey);
+						downloaded = true;
+						engine.submitForDecoding(this);
+						throw new TaskDeferredException();
+					}
 					if (imageFile != null) {
 						// 转为 fill:/// 格式
 						imageUriForDecoding = Scheme.FILE.wrap(imageFile.getAbsolutePath());
@@ -301,6 +486,8 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 			fireFailEvent(FailType.NETWORK_DENIED, null);
 		} catch (TaskCancelledException e) {
 			throw e;
+		} catch (TaskDeferredException e) {
+			throw e;
 		} catch (IOException e) {
 			L.e(e);
 			fireFailEvent(FailType.IO_ERROR, e);
@@ -319,9 +506,39 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		ViewScaleType viewScaleType = imageAware.getScaleType();
 		// 图片 编译信息
 		ImageDecodingInfo decodingInfo = new ImageDecodingInfo(memoryCacheKey, imageUri, uri, targetSize, viewScaleType,
-				getDownloader(), options);
+				getDownloader(), options, metrics, requestId, configuration.bitmapPool);
 		// 开始 编码图片
-		return decoder.decode(decodingInfo);
+		long decodeStart = System.nanoTime();
+		Bitmap bitmap = decoder.decode(decodingInfo);
+		metrics.onStageFinished(Stage.DECODE, requestId, uri, System.nanoTime() - decodeStart);
+		return bitmap;
+	}
+
+	/**
+	 * Caches image on disk unless the same image is downloading by another task at this moment.
+	 *
+	 * @return <b>true</b> - if image was downloaded successfully; <b>false</b> - otherwise
+	 * @throws TaskDeferredException if the same image is downloading by another task. This task will be re-submitted
+	 *                               when the downloading is finished.
+	 */
+	private boolean tryCacheImageOnDiskOnce() throws TaskCancelledException, TaskDeferredException {
+		if (syncLoading) return tryCacheImageOnDisk();
+
+		waitingStartTime = System.nanoTime();
+		if (!engine.startDownloadingFor(uri, this)) {
+			L.d(LOG_WAITING_FOR_IMAGE_DOWNLOADED, memoryCacheKey);
+			throw new TaskDeferredException();
+		}
+		waitingStartTime = 0;
+		try {
+			// The same image could be downloaded by another task just before this task started downloading
+			File imageFile = configuration.diskCache.get(uri);
+			if (imageFile != null && imageFile.exists() && imageFile.length() > 0) return true;
+
+			return tryCacheImageOnDisk();
+		} finally {
+			engine.finishDownloadingFor(uri);
+		}
 	}
 
 	/**
@@ -364,16 +581,24 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	 * @throws IOException
 	 */
 	private boolean downloadImage() throws IOException {
+		long requestStart = System.nanoTime();
 		InputStream is = getDownloader().getStream(uri, options.getExtraForDownloader());
+		long transferStart = System.nanoTime();
+		metrics.onStageFinished(Stage.NETWORK_FIRST_BYTE, requestId, uri, transferStart - requestStart);
 		if (is == null) {
 			L.e(ERROR_NO_IMAGE_STREAM, memoryCacheKey);
 			return false;
 		} else {
+			TimedInputStream timedStream = new TimedInputStream(is);
 			try {
 				// 这里吧 流 存入磁盘缓存中
-				return configuration.diskCache.save(uri, is, this);
+				return configuration.diskCache.save(uri, timedStream, this);
 			} finally {
-				IoUtils.closeSilently(is);
+				IoUtils.closeSilently(timedStream);
+				flushProgressEvent();
+				long readTime = timedStream.getReadTime();
+				metrics.onStageFinished(Stage.NETWORK_TRANSFER, requestId, uri, readTime);
+				metrics.onStageFinished(Stage.DISK_WRITE, requestId, uri, System.nanoTime() - transferStart - readTime);
 			}
 		}
 	}
@@ -395,7 +620,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 					.imageScaleType(ImageScaleType.IN_SAMPLE_INT).build();
 			ImageDecodingInfo decodingInfo = new ImageDecodingInfo(memoryCacheKey,
 					Scheme.FILE.wrap(targetFile.getAbsolutePath()), uri, targetImageSize, ViewScaleType.FIT_INSIDE,
-					getDownloader(), specialOptions);
+					getDownloader(), specialOptions, null, requestId, configuration.bitmapPool);
 			// 在 decode 方法中处理后的Bitamp 没有存放到磁盘上
 			Bitmap bmp = decoder.decode(decodingInfo);
 			if (bmp != null && configuration.processorForDiskCache != null) {
@@ -408,8 +633,8 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 			if (bmp != null) {
 				// 这里吧 修改 大小后的图片 放到 缓存中
 				// 会 替换 原来下载的图片?
+				// Bitmap is handed over to disk cache (BaseDiskCache recycles it), so it isn't touched after saving
 				saved = configuration.diskCache.save(uri, bmp);
-				bmp.recycle();
 			}
 		}
 		return saved;
@@ -423,20 +648,31 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	/**
 	 * @return <b>true</b> - if loading should be continued; <b>false</b> - if loading should be interrupted
 	 */
-	private boolean fireProgressEvent(final int current, final int total) {
+	private boolean fireProgressEvent(int current, int total) {
 		if (isTaskInterrupted() || isTaskNotActual()) return false;
 		if (progressListener != null) {
-			Runnable r = new Runnable() {
-				@Override
-				public void run() {
-					progressListener.onProgressUpdate(uri, imageAware.getWrappedView(), current, total);
+			if (progressUpdate == null) {
+				progressUpdate = new ProgressUpdate(uri, imageAware, progressListener);
+			}
+			// Progress is coalesced: only the latest values are delivered, one delivery at a time
+			if (progressUpdate.set(current, total)) {
+				if (AndroidMainThreadDispatcher.isMainThreadHandler(handler)) {
+					engine.dispatchProgress(progressUpdate);
+				} else {
+					runTask(progressUpdate, false, handler, engine);
 				}
-			};
-			runTask(r, false, handler, engine);
+			}
 		}
 		return true;
 	}
 
+	/** Delivers the last progress right away, so it isn't delivered after other callbacks of the task */
+	private void flushProgressEvent() {
+		if (progressUpdate != null && progressUpdate.isPending()) {
+			runTask(progressUpdate, false, handler, engine);
+		}
+	}
+
 	/**
 	 * 处理图片获取失败的情况
 	 *
@@ -452,6 +688,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 				if (options.shouldShowImageOnFail()) {
 					// 处理 显示失败的图片
 					imageAware.setImageDrawable(options.getImageOnFail(configuration.resources));
+					engine.setDisplayedBitmap(imageAware, requestToken, null);
 				}
 				// 回调失败
 				listener.onLoadingFailed(uri, imageAware.getWrappedView(), new FailReason(failType, failCause));
@@ -466,6 +703,11 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	 */
 	private void fireCancelEvent() {
 		if (syncLoading || isTaskInterrupted()) return;
+		postCancelEvent();
+	}
+
+	/** Posts {@link ImageLoadingListener#onLoadingCancelled(String, android.view.View)} callback to handler */
+	private void postCancelEvent() {
 		Runnable r = new Runnable() {
 			@Override
 			public void run() {
@@ -495,6 +737,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	private void checkTaskNotActual() throws TaskCancelledException {
 		checkViewCollected();
 		checkViewReused();
+		checkGroupCancelled();
 	}
 
 	/**
@@ -503,7 +746,7 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	 */
 	private boolean isTaskNotActual() {
 		// 是否 view 被回收 或 View 显示的图片被换掉
-		return isViewCollected() || isViewReused();
+		return isViewCollected() || isViewReused() || isGroupCancelled();
 	}
 
 	/**
@@ -544,10 +787,9 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	 * 这个理检查 engine 的key 和 该task 中的 key 是否一致
 	 */
 	private boolean isViewReused() {
-		String currentCacheKey = engine.getLoadingUriForView(imageAware);
-		// Check whether memory cache key (image URI) for current ImageAware is actual.
+		// Check whether request of this task is still actual for view of current ImageAware.
 		// If ImageAware is reused for another task then current task should be cancelled.
-		boolean imageAwareWasReused = !memoryCacheKey.equals(currentCacheKey);
+		boolean imageAwareWasReused = !requestToken.isActual(requestGeneration);
 		if (imageAwareWasReused) {
 			L.d(LOG_TASK_CANCELLED_IMAGEAWARE_REUSED, memoryCacheKey);
 			return true;
@@ -555,6 +797,27 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		return false;
 	}
 
+	/**
+	 * @throws TaskCancelledException if group of task was cancelled
+	 */
+	private void checkGroupCancelled() throws TaskCancelledException {
+		if (isGroupCancelled()) {
+			throw new TaskCancelledException();
+		}
+	}
+
+	/**
+	 * @return <b>true</b> - if {@linkplain ImageLoader#cancelGroup(Object) group of task was cancelled} after task
+	 * creation; <b>false</b> - otherwise
+	 */
+	private boolean isGroupCancelled() {
+		if (groupToken != null && groupToken.isCancelled()) {
+			L.d(LOG_TASK_CANCELLED_GROUP, memoryCacheKey);
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * @throws TaskCancelledException if current task was interrupted
 	 */
@@ -579,6 +842,40 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		return uri;
 	}
 
+	String getMemoryCacheKey() {
+		return memoryCacheKey;
+	}
+
+	Object getGroupTag() {
+		return groupTag;
+	}
+
+	@Override
+	public LoadingPriority getPriority() {
+		return priority;
+	}
+
+	/** Changes priority of task. Task should be re-positioned in queue by caller. */
+	void setPriority(LoadingPriority priority) {
+		this.priority = priority;
+	}
+
+	/** Marks moment when task was submitted to execution */
+	void markSubmitted() {
+		submitTime = System.nanoTime();
+	}
+
+	/**
+	 * Called when task was removed from executor queue before execution. Task which owns loading of its image passes
+	 * the loading to waiting tasks. Listener is notified about cancellation as if task was cancelled while running.
+	 */
+	void onPurged() {
+		finishLoading(null);
+		if (!syncLoading) {
+			postCancelEvent();
+		}
+	}
+
 	static void runTask(Runnable r, boolean sync, Handler handler, ImageLoaderEngine engine) {
 		if (sync) {
 			// 如果是 不是在线程池中 则直接执行
@@ -593,6 +890,18 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 		}
 	}
 
+	/**
+	 * Runs display task like {@link #runTask(Runnable, boolean, Handler, ImageLoaderEngine)} does, but tasks for main
+	 * thread are delivered in frame-aligned batches (see {@link DisplayDispatcher}).
+	 */
+	static void runDisplayTask(DisplayBitmapTask task, boolean sync, Handler handler, ImageLoaderEngine engine) {
+		if (!sync && AndroidMainThreadDispatcher.isMainThreadHandler(handler)) {
+			engine.dispatchDisplay(task);
+		} else {
+			runTask(task, sync, handler, engine);
+		}
+	}
+
 	/**
 	 * Exceptions for case when task is cancelled (thread is interrupted, image view is reused for another task, view is
 	 * collected by GC).
@@ -602,4 +911,15 @@ final class LoadAndDisplayImageTask implements Runnable, IoUtils.CopyListener {
 	 */
 	class TaskCancelledException extends Exception {
 	}
+
+	/**
+	 * Exceptions for case when task can't go on on current thread: the same image is downloading by another task (task
+	 * is re-submitted when the downloading is finished) or image is downloaded and task was passed to decoding
+	 * stage.
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	class TaskDeferredException extends Exception {
+	}
 }
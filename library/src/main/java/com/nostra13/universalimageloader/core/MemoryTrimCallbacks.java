@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Build;
+
+/**
+ * Passes system memory pressure callbacks to {@link ImageLoader}. Is registered in application context when ImageLoader
+ * is {@linkplain ImageLoader#init(ImageLoaderConfiguration) initialized}.
+ *
+ * 内存紧张时 通知 ImageLoader 裁剪 内存缓存
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see ImageLoaderConfiguration.Builder#denyTrimMemoryOnPressure()
+ * @since 1.9.6
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+final class MemoryTrimCallbacks implements ComponentCallbacks2 {
+
+	private final ImageLoader imageLoader;
+
+	MemoryTrimCallbacks(ImageLoader imageLoader) {
+		this.imageLoader = imageLoader;
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		imageLoader.onTrimMemory(level);
+	}
+
+	@Override
+	public void onLowMemory() {
+		imageLoader.trimMemory(0f);
+	}
+
+	@Override
+	public void onConfigurationChanged(Configuration newConfig) {
+	}
+}
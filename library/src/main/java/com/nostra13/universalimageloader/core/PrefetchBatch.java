@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import android.os.Handler;
+import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.disc.IndexedDiskCache;
+import com.nostra13.universalimageloader.core.download.ImageDownloader.Scheme;
+import com.nostra13.universalimageloader.core.listener.PrefetchListener;
+import com.nostra13.universalimageloader.utils.L;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single {@linkplain ImageLoader#prefetch(Collection, PrefetchOptions, PrefetchListener) prefetch request}. Keeps
+ * images which wait for download separately for every host and submits {@link PrefetchTask prefetch tasks} so that not
+ * more than {@linkplain PrefetchOptions#getMaxRequestsPerHost() allowed count} of downloads from the same host are in
+ * progress. Reports aggregate result to {@link PrefetchListener} when all images are processed or when engine is
+ * stopped (not processed images are reported as failed then).
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class PrefetchBatch {
+
+	private static final String LOG_START_PREFETCH = "Start prefetch of %d images (%d already cached on disk)";
+	private static final String LOG_FINISH_PREFETCH = "Prefetch is finished: %d cached, %d failed";
+	private static final String LOG_CANCEL_PREFETCH = "Prefetch is cancelled: %d images weren't processed";
+
+	private final ImageLoaderEngine engine;
+	private final PrefetchOptions options;
+	private final PrefetchListener listener;
+	private final Handler handler;
+
+	/** URIs which wait for download (by host) */
+	private final Map<String, LinkedList<String>> pendingUris = new HashMap<String, LinkedList<String>>();
+	/** Count of downloads which are in progress (by host) */
+	private final Map<String, Integer> runningCounts = new HashMap<String, Integer>();
+	/** URIs which are submitted for download but not finished yet */
+	private final Set<String> runningUris = new HashSet<String>();
+	private final List<String> failedUris = new ArrayList<String>();
+	private int cachedCount;
+	private int remainingCount;
+	private boolean cancelled;
+
+	PrefetchBatch(ImageLoaderEngine engine, PrefetchOptions options, PrefetchListener listener, Handler handler) {
+		this.engine = engine;
+		this.options = options;
+		this.listener = listener;
+		this.handler = handler;
+	}
+
+	/** Skips images which are cached on disk already and submits first portion of downloads for every host */
+	void start(Collection<String> uris) {
+		List<PrefetchTask> tasks = new ArrayList<PrefetchTask>();
+		int totalCount;
+		synchronized (this) {
+			for (String uri : new LinkedHashSet<String>(uris)) {
+				if (uri == null || uri.length() == 0) continue;
+
+				if (isCachedOnDisk(uri)) {
+					cachedCount++;
+				} else {
+					String host = hostOf(uri);
+					LinkedList<String> hostUris = pendingUris.get(host);
+					if (hostUris == null) {
+						hostUris = new LinkedList<String>();
+						pendingUris.put(host, hostUris);
+					}
+					hostUris.add(uri);
+					remainingCount++;
+				}
+			}
+			totalCount = cachedCount + remainingCount;
+			for (String host : new ArrayList<String>(pendingUris.keySet())) {
+				for (int i = 0; i < options.getMaxRequestsPerHost(); i++) {
+					PrefetchTask task = pollTaskFor(host);
+					if (task == null) break;
+					tasks.add(task);
+				}
+			}
+		}
+		L.d(LOG_START_PREFETCH, totalCount, totalCount - remainingCount);
+
+		if (tasks.isEmpty()) {
+			fireCompleteEvent();
+		} else {
+			engine.registerPrefetch(this);
+			for (PrefetchTask task : tasks) {
+				engine.submit(task);
+			}
+		}
+	}
+
+	/** Records result of finished task and submits next download for the same host */
+	void onTaskFinished(PrefetchTask task, boolean cached) {
+		PrefetchTask nextTask;
+		boolean completed;
+		synchronized (this) {
+			// Result was reported already
+			if (cancelled) return;
+
+			runningUris.remove(task.getUri());
+			if (cached) {
+				cachedCount++;
+			} else {
+				failedUris.add(task.getUri());
+			}
+			remainingCount--;
+			completed = remainingCount == 0;
+
+			String host = task.getHost();
+			runningCounts.put(host, runningCounts.get(host) - 1);
+			nextTask = pollTaskFor(host);
+		}
+
+		if (nextTask != null) {
+			engine.submit(nextTask);
+		} else if (completed) {
+			engine.unregisterPrefetch(this);
+			fireCompleteEvent();
+		}
+	}
+
+	/**
+	 * Finishes prefetch request which was interrupted by engine stop. Images which weren't processed yet are reported
+	 * as failed. Results of tasks which are still running are ignored.
+	 */
+	void cancel() {
+		int notProcessedCount;
+		synchronized (this) {
+			if (cancelled || remainingCount == 0) return;
+			cancelled = true;
+
+			failedUris.addAll(runningUris);
+			for (LinkedList<String> hostUris : pendingUris.values()) {
+				failedUris.addAll(hostUris);
+			}
+			notProcessedCount = remainingCount;
+			runningUris.clear();
+			pendingUris.clear();
+			runningCounts.clear();
+			remainingCount = 0;
+		}
+		L.d(LOG_CANCEL_PREFETCH, notProcessedCount);
+		fireCompleteEvent();
+	}
+
+	synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Checks disk cache index. If disk cache isn't indexed then image is considered not cached, {@link PrefetchTask}
+	 * looks for it in disk cache on pool thread.
+	 */
+	private boolean isCachedOnDisk(String uri) {
+		DiskCache diskCache = engine.configuration.diskCache;
+		return diskCache instanceof IndexedDiskCache && ((IndexedDiskCache) diskCache).contains(uri);
+	}
+
+	/** Must be called under lock */
+	private PrefetchTask pollTaskFor(String host) {
+		LinkedList<String> hostUris = pendingUris.get(host);
+		if (hostUris == null) return null;
+
+		String uri = hostUris.poll();
+		if (hostUris.isEmpty()) {
+			pendingUris.remove(host);
+		}
+		if (uri == null) return null;
+
+		Integer runningCount = runningCounts.get(host);
+		runningCounts.put(host, runningCount == null ? 1 : runningCount + 1);
+		runningUris.add(uri);
+		return new PrefetchTask(engine, this, uri, host, options);
+	}
+
+	private void fireCompleteEvent() {
+		final int cached;
+		final List<String> failed;
+		synchronized (this) {
+			cached = cachedCount;
+			failed = Collections.unmodifiableList(new ArrayList<String>(failedUris));
+		}
+		L.d(LOG_FINISH_PREFETCH, cached, failed.size());
+		if (listener == null) return;
+
+		Runnable r = new Runnable() {
+			@Override
+			public void run() {
+				listener.onPrefetchComplete(cached, failed);
+			}
+		};
+		LoadAndDisplayImageTask.runTask(r, false, handler, engine);
+	}
+
+	/** Returns host of network URI or scheme name for local URIs (they all are grouped together) */
+	static String hostOf(String uri) {
+		Scheme scheme = Scheme.ofUri(uri);
+		if (scheme != Scheme.HTTP && scheme != Scheme.HTTPS) return scheme.name();
+
+		String host = scheme.crop(uri);
+		int end = host.length();
+		for (char delimiter : new char[]{'/', '?', '#'}) {
+			int index = host.indexOf(delimiter);
+			if (index >= 0 && index < end) {
+				end = index;
+			}
+		}
+		host = host.substring(0, end);
+		int userInfoEnd = host.lastIndexOf('@');
+		if (userInfoEnd >= 0) {
+			host = host.substring(userInfoEnd + 1);
+		}
+		return host.toLowerCase(Locale.US);
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+/**
+ * Contains options for {@linkplain ImageLoader#prefetch(java.util.Collection, PrefetchOptions) prefetching} of images
+ * into disk cache.<br />
+ * You can create instance:
+ * <ul>
+ * <li>with {@link Builder}:<br />
+ * <b>i.e.</b> :
+ * <code>new {@link PrefetchOptions}.{@link Builder#Builder() Builder()}.{@link Builder#maxRequestsPerHost(int)
+ * maxRequestsPerHost(...)}.{@link Builder#build() build()}</code>
+ * </li>
+ * <li>or by static method: {@link #createSimple()}</li> <br />
+ * </ul>
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class PrefetchOptions {
+
+	/** {@value} */
+	public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 2;
+
+	private final int maxRequestsPerHost;
+	private final Object extraForDownloader;
+
+	private PrefetchOptions(Builder builder) {
+		maxRequestsPerHost = builder.maxRequestsPerHost;
+		extraForDownloader = builder.extraForDownloader;
+	}
+
+	public int getMaxRequestsPerHost() {
+		return maxRequestsPerHost;
+	}
+
+	public Object getExtraForDownloader() {
+		return extraForDownloader;
+	}
+
+	/**
+	 * Builder for {@linkplain PrefetchOptions prefetch options}
+	 *
+	 * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+	 * @since 1.9.6
+	 */
+	public static class Builder {
+		private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+		private Object extraForDownloader = null;
+
+		/**
+		 * Sets maximum count of images which are downloaded from the same host simultaneously by one prefetch request.
+		 * Other images of this host wait in prefetch request and don't occupy pool threads.
+		 * Default value - {@link #DEFAULT_MAX_REQUESTS_PER_HOST this}
+		 */
+		public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+			if (maxRequestsPerHost < 1) throw new IllegalArgumentException("maxRequestsPerHost must be positive number");
+			this.maxRequestsPerHost = maxRequestsPerHost;
+			return this;
+		}
+
+		/** Sets auxiliary object which will be passed to {@link com.nostra13.universalimageloader.core.download.ImageDownloader#getStream(String, Object)} */
+		public Builder extraForDownloader(Object extra) {
+			this.extraForDownloader = extra;
+			return this;
+		}
+
+		/** Sets all options equal to incoming options */
+		public Builder cloneFrom(PrefetchOptions options) {
+			maxRequestsPerHost = options.maxRequestsPerHost;
+			extraForDownloader = options.extraForDownloader;
+			return this;
+		}
+
+		/** Builds configured {@link PrefetchOptions} object */
+		public PrefetchOptions build() {
+			return new PrefetchOptions(this);
+		}
+	}
+
+	/**
+	 * Creates options appropriate for single prefetch request:
+	 * <ul>
+	 * <li>not more than {@value #DEFAULT_MAX_REQUESTS_PER_HOST} simultaneous downloads from one host</li>
+	 * <li>no extra for downloader</li>
+	 * </ul>
+	 * <p/>
+	 * These option are appropriate for simple single-use prefetching.
+	 */
+	public static PrefetchOptions createSimple() {
+		return new Builder().build();
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.PriorityTaskQueue;
+import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.utils.IoUtils;
+import com.nostra13.universalimageloader.utils.L;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Presents prefetch image task. Streams image from network (or other source) directly into disk cache. Image isn't
+ * decoded so prefetching doesn't touch memory cache. Task runs with {@linkplain LoadingPriority#BACKGROUND the lowest
+ * priority} so it doesn't delay display tasks. Task shares downloadings with display tasks (the same image isn't
+ * downloaded twice at once) and is held back while engine is paused.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see PrefetchBatch
+ * @since 1.9.6
+ */
+final class PrefetchTask implements Runnable, IoUtils.CopyListener, PriorityTaskQueue.Prioritized {
+
+	private static final String LOG_PREFETCH_IMAGE = "Prefetch image into disk cache [%s]";
+	private static final String LOG_ALREADY_CACHED = "Image is already cached on disk [%s]";
+	private static final String LOG_WAITING_FOR_DOWNLOAD = "Image is downloading by another task. Prefetch waits for it [%s]";
+	private static final String LOG_NETWORK_DENIED = "Network downloads are denied. Image isn't prefetched [%s]";
+
+	private static final String ERROR_NO_IMAGE_STREAM = "No stream for image [%s]";
+
+	private final ImageLoaderEngine engine;
+	private final PrefetchBatch batch;
+	private final ImageLoaderConfiguration configuration;
+	private final String uri;
+	private final String host;
+	private final PrefetchOptions options;
+
+	PrefetchTask(ImageLoaderEngine engine, PrefetchBatch batch, String uri, String host, PrefetchOptions options) {
+		this.engine = engine;
+		this.batch = batch;
+		this.configuration = engine.configuration;
+		this.uri = uri;
+		this.host = host;
+		this.options = options;
+	}
+
+	@Override
+	public void run() {
+		// Engine was stopped after this task was submitted
+		if (batch.isCancelled()) return;
+		if (engine.holdIfPaused(this)) return;
+
+		if (!engine.startDownloadingFor(uri, this)) {
+			// Task is re-submitted when the downloading is finished and finds image in disk cache
+			L.d(LOG_WAITING_FOR_DOWNLOAD, uri);
+			return;
+		}
+		boolean cached = false;
+		try {
+			cached = tryCacheImageOnDisk();
+		} finally {
+			engine.finishDownloadingFor(uri);
+			batch.onTaskFinished(this, cached);
+		}
+	}
+
+	private boolean tryCacheImageOnDisk() {
+		// Image could be downloaded by display task while this task was waiting in queue
+		File imageFile = configuration.diskCache.get(uri);
+		if (imageFile != null && imageFile.exists() && imageFile.length() > 0) {
+			L.d(LOG_ALREADY_CACHED, uri);
+			return true;
+		}
+
+		L.d(LOG_PREFETCH_IMAGE, uri);
+		try {
+			InputStream is = getDownloader().getStream(uri, options.getExtraForDownloader());
+			if (is == null) {
+				L.e(ERROR_NO_IMAGE_STREAM, uri);
+				return false;
+			}
+			try {
+				return configuration.diskCache.save(uri, is, this);
+			} finally {
+				IoUtils.closeSilently(is);
+			}
+		} catch (IllegalStateException e) {
+			L.w(LOG_NETWORK_DENIED, uri);
+			return false;
+		} catch (IOException e) {
+			L.e(e);
+			return false;
+		}
+	}
+
+	@Override
+	public boolean onBytesCopied(int current, int total) {
+		// Stop copying if ImageLoader was stopped
+		return !Thread.currentThread().isInterrupted();
+	}
+
+	private ImageDownloader getDownloader() {
+		ImageDownloader d;
+		if (engine.isNetworkDenied()) {
+			d = configuration.networkDeniedDownloader;
+		} else if (engine.isSlowNetwork()) {
+			d = configuration.slowNetworkDownloader;
+		} else {
+			d = configuration.downloader;
+		}
+		return d;
+	}
+
+	@Override
+	public LoadingPriority getPriority() {
+		return LoadingPriority.BACKGROUND;
+	}
+
+	String getUri() {
+		return uri;
+	}
+
+	String getHost() {
+		return host;
+	}
+}
@@ -19,17 +19,21 @@ import android.graphics.Bitmap;
 import android.os.Handler;
 import android.widget.ImageView;
 import com.nostra13.universalimageloader.core.assist.LoadedFrom;
+import com.nostra13.universalimageloader.core.assist.LoadingPriority;
+import com.nostra13.universalimageloader.core.assist.PriorityTaskQueue;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.Stage;
 import com.nostra13.universalimageloader.core.process.BitmapProcessor;
 import com.nostra13.universalimageloader.utils.L;
 
 /**
  * Presents process'n'display image task. Processes image {@linkplain Bitmap} and display it in {@link ImageView} using
- * {@link DisplayBitmapTask}.
+ * {@link DisplayBitmapTask}. Task holds reference to incoming bitmap until it's processed, so the bitmap isn't put into
+ * bitmap pool meanwhile.
  *
  * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
  * @since 1.8.0
  */
-final class ProcessAndDisplayImageTask implements Runnable {
+final class ProcessAndDisplayImageTask implements Runnable, PriorityTaskQueue.Prioritized {
 
 	private static final String LOG_POSTPROCESS_IMAGE = "PostProcess image before displaying [%s]";
 
@@ -44,6 +48,7 @@ final class ProcessAndDisplayImageTask implements Runnable {
 		this.bitmap = bitmap;
 		this.imageLoadingInfo = imageLoadingInfo;
 		this.handler = handler;
+		engine.acquireBitmap(bitmap);
 	}
 
 	@Override
@@ -52,12 +57,25 @@ final class ProcessAndDisplayImageTask implements Runnable {
 		// 从 options 获取 BitmapProcessor
 		BitmapProcessor processor = imageLoadingInfo.options.getPostProcessor();
 		// 处理bitmap
-		Bitmap processedBitmap = processor.process(bitmap);
-		// 显示处理后的bitmap
+		long processStart = System.nanoTime();
+		DisplayBitmapTask displayBitmapTask;
+		try {
+			Bitmap processedBitmap = processor.process(bitmap);
+			engine.configuration.metrics.onStageFinished(Stage.POST_PROCESS, imageLoadingInfo.requestId,
+					imageLoadingInfo.uri, System.nanoTime() - processStart);
+			// 显示处理后的bitmap
 
-		// new 一个 DisplayBitmapTask 并执行
-		DisplayBitmapTask displayBitmapTask = new DisplayBitmapTask(processedBitmap, imageLoadingInfo, engine,
-				LoadedFrom.MEMORY_CACHE);
-		LoadAndDisplayImageTask.runTask(displayBitmapTask, imageLoadingInfo.options.isSyncLoading(), handler, engine);
+			// new 一个 DisplayBitmapTask 并执行
+			displayBitmapTask = new DisplayBitmapTask(processedBitmap, imageLoadingInfo, engine, LoadedFrom.MEMORY_CACHE);
+		} finally {
+			// Processor may return incoming bitmap, so it's released after display task has acquired it
+			engine.releaseBitmap(bitmap);
+		}
+		LoadAndDisplayImageTask.runDisplayTask(displayBitmapTask, imageLoadingInfo.options.isSyncLoading(), handler, engine);
+	}
+
+	@Override
+	public LoadingPriority getPriority() {
+		return imageLoadingInfo.options.getPriority();
 	}
 }
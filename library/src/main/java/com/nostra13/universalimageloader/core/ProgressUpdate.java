@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.imageaware.ImageAware;
+import com.nostra13.universalimageloader.core.listener.ImageLoadingProgressListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mutable slot with the latest loading progress of one display task. Loading thread overwrites progress on every
+ * copied chunk, listener receives only the latest progress when the update is delivered. So at most one delivery of
+ * the update is pending at any moment regardless of how many chunks were copied.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @see ProgressDispatcher
+ * @since 1.9.6
+ */
+final class ProgressUpdate implements Runnable {
+
+	private final String uri;
+	private final ImageAware imageAware;
+	private final ImageLoadingProgressListener listener;
+
+	private volatile int current;
+	private volatile int total;
+	private final AtomicBoolean pending = new AtomicBoolean();
+
+	ProgressUpdate(String uri, ImageAware imageAware, ImageLoadingProgressListener listener) {
+		this.uri = uri;
+		this.imageAware = imageAware;
+		this.listener = listener;
+	}
+
+	/**
+	 * Stores the latest progress
+	 *
+	 * @return <b>true</b> - if update became pending and should be passed to delivery; <b>false</b> - if update is
+	 * already waiting for delivery
+	 */
+	boolean set(int current, int total) {
+		this.total = total;
+		this.current = current;
+		return pending.compareAndSet(false, true);
+	}
+
+	boolean isPending() {
+		return pending.get();
+	}
+
+	/** Delivers the latest progress to listener if it wasn't delivered yet */
+	@Override
+	public void run() {
+		if (pending.compareAndSet(true, false)) {
+			listener.onProgressUpdate(uri, imageAware.getWrappedView(), current, total);
+		}
+	}
+}
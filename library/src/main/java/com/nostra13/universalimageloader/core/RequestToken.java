@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core;
+
+import android.graphics.Bitmap;
+import android.view.View;
+import com.nostra13.universalimageloader.R;
+import com.nostra13.universalimageloader.core.assist.BitmapReferences;
+
+/**
+ * Token of display request which is actual for a view at the moment. Token is created once per view and is kept in
+ * view tag, so display tasks check whether their view was reused for another image by lock-free compare of
+ * generations, without any global map.<br />
+ * Generation is changed every time when another image is bound to the token or when the token is unbound. Binding of
+ * the same image again keeps generation, so task which is already loading this image stays actual.<br />
+ * Token also holds {@linkplain BitmapReferences reference} to bitmap which is displayed in the view.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+final class RequestToken {
+
+	private static final Object CREATION_LOCK = new Object();
+
+	private volatile String memoryCacheKey;
+	private volatile int generation;
+	private Bitmap displayedBitmap;
+
+	/**
+	 * Makes <b>memoryCacheKey</b> actual for the token.
+	 *
+	 * @return Generation of token which is actual for bound image
+	 */
+	synchronized int bind(String memoryCacheKey) {
+		if (!memoryCacheKey.equals(this.memoryCacheKey)) {
+			this.memoryCacheKey = memoryCacheKey;
+			generation++;
+		}
+		return generation;
+	}
+
+	/** Makes no image actual for the token */
+	synchronized void unbind() {
+		if (memoryCacheKey != null) {
+			memoryCacheKey = null;
+			generation++;
+		}
+	}
+
+	/**
+	 * Acquires reference to bitmap which is displayed in the view now and releases reference to previously displayed
+	 * one.
+	 *
+	 * @param bitmap Displayed bitmap or <b>null</b> if view doesn't display any bitmap loaded by ImageLoader
+	 */
+	synchronized void setDisplayedBitmap(Bitmap bitmap, BitmapReferences references) {
+		if (bitmap == displayedBitmap) return;
+
+		references.acquire(bitmap);
+		references.release(displayedBitmap);
+		displayedBitmap = bitmap;
+	}
+
+	/** Returns memory cache key of image which is actual for the token or <b>null</b> if no image is actual */
+	String getMemoryCacheKey() {
+		return memoryCacheKey;
+	}
+
+	/** Returns <b>true</b> - if incoming generation (returned by {@link #bind(String)}) is still actual */
+	boolean isActual(int generation) {
+		return this.generation == generation;
+	}
+
+	/**
+	 * Returns token kept in tag of incoming view.
+	 *
+	 * @param create pass <b>true</b> - to create token if view has no one yet
+	 * @return Token of view or <b>null</b> if view has no token and <b>create</b> is <b>false</b>
+	 */
+	static RequestToken of(View view, boolean create) {
+		Object tag = view.getTag(R.id.uil_request_token);
+		if (tag == null && create) {
+			synchronized (CREATION_LOCK) {
+				tag = view.getTag(R.id.uil_request_token);
+				if (tag == null) {
+					tag = new RequestToken();
+					view.setTag(R.id.uil_request_token, tag);
+				}
+			}
+		}
+		return (RequestToken) tag;
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * {@link MainThreadDispatcher} of Android: tasks are posted to main {@link Looper}. Frames are tracked by
+ * {@link Choreographer} on Android 4.1+, on older versions frame task is posted with frame interval.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class AndroidMainThreadDispatcher implements MainThreadDispatcher {
+
+	/** Interval between frames (in milliseconds) if {@link Choreographer} isn't available */
+	private static final long FALLBACK_FRAME_INTERVAL = 16;
+
+	private final Handler handler = new Handler(Looper.getMainLooper());
+
+	/** Returns <b>true</b> if incoming handler posts to main thread, so its tasks can be passed to this dispatcher */
+	public static boolean isMainThreadHandler(Handler handler) {
+		return handler != null && handler.getLooper() == Looper.getMainLooper();
+	}
+
+	@Override
+	public boolean isMainThread() {
+		return Looper.myLooper() == Looper.getMainLooper();
+	}
+
+	@Override
+	public boolean post(Runnable task, long delay) {
+		return delay > 0 ? handler.postDelayed(task, delay) : handler.post(task);
+	}
+
+	@Override
+	public void postFrame(Runnable task) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			Choreographer.getInstance().postFrameCallback(new FrameTask(task));
+		} else {
+			handler.postDelayed(task, FALLBACK_FRAME_INTERVAL);
+		}
+	}
+
+	/** Runs task in frame callback of {@link Choreographer} */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private static class FrameTask implements Choreographer.FrameCallback {
+
+		private final Runnable task;
+
+		FrameTask(Runnable task) {
+			this.task = task;
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			task.run();
+		}
+	}
+}
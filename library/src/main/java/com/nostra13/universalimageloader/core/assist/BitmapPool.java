@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import com.nostra13.universalimageloader.cache.memory.BitmapSizes;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of mutable {@link Bitmap bitmaps} which aren't used anymore. Decoder takes a compatible bitmap from pool and
+ * decodes new image into its memory (see {@link android.graphics.BitmapFactory.Options#inBitmap}) instead of allocating
+ * new one.<br />
+ * Bitmaps are grouped by {@linkplain Bitmap.Config config} and by allocated size. Total size of pooled bitmaps is
+ * limited, the eldest bitmaps are dropped from pool if the limit is exceeded.<br />
+ * Reuse of bitmaps is supported since Android 3.0 (API 11). Since Android 4.4 (API 19) image can be decoded into any
+ * bitmap of the same config which is large enough, before that dimensions of bitmap must be the same as of decoded
+ * image.<br />
+ * All methods are thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public class BitmapPool implements PixelBufferPool<Bitmap> {
+
+	/** Pooled bitmap isn't reused for image which needs less than 1/4 of its memory */
+	private static final int MAX_SIZE_MULTIPLE = 4;
+
+	private final int maxSize;
+	private int size;
+
+	/** Pooled bitmaps grouped by config and by size (in bytes) */
+	private final Map<Bitmap.Config, TreeMap<Integer, LinkedList<Bitmap>>> buckets =
+			new EnumMap<Bitmap.Config, TreeMap<Integer, LinkedList<Bitmap>>>(Bitmap.Config.class);
+	/** Pooled bitmaps (and their sizes) in order of putting */
+	private final LinkedHashMap<Bitmap, Integer> bitmaps = new LinkedHashMap<Bitmap, Integer>();
+
+	/** @param maxSize Maximum total size of pooled bitmaps (in bytes) */
+	public BitmapPool(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		this.maxSize = maxSize;
+	}
+
+	/** @return <b>true</b> - if bitmaps can be reused on current Android version; <b>false</b> - otherwise */
+	public static boolean isSupported() {
+		return Build.VERSION.SDK_INT >= 11;
+	}
+
+	/**
+	 * Puts bitmap into pool. Bitmap is accepted if it's mutable, isn't recycled and is smaller than pool. Caller must
+	 * not use bitmap after it was accepted.
+	 *
+	 * @return <b>true</b> - if bitmap was put into pool; <b>false</b> - otherwise
+	 */
+	@Override
+	public boolean put(Bitmap bitmap) {
+		if (!isSupported() || bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()
+				|| bitmap.getConfig() == null) {
+			return false;
+		}
+		int bitmapSize = BitmapSizes.sizeOf(bitmap);
+		if (bitmapSize > maxSize) return false;
+
+		synchronized (this) {
+			if (bitmaps.containsKey(bitmap)) return true;
+
+			bitmaps.put(bitmap, bitmapSize);
+			TreeMap<Integer, LinkedList<Bitmap>> sizes = buckets.get(bitmap.getConfig());
+			if (sizes == null) {
+				sizes = new TreeMap<Integer, LinkedList<Bitmap>>();
+				buckets.put(bitmap.getConfig(), sizes);
+			}
+			LinkedList<Bitmap> sameSize = sizes.get(bitmapSize);
+			if (sameSize == null) {
+				sameSize = new LinkedList<Bitmap>();
+				sizes.put(bitmapSize, sameSize);
+			}
+			sameSize.addLast(bitmap);
+			size += bitmapSize;
+			trimToSize(maxSize);
+		}
+		return true;
+	}
+
+	/** Puts bitmap into pool, recycles bitmap if pool doesn't accept it */
+	public void putOrRecycle(Bitmap bitmap) {
+		if (!put(bitmap) && bitmap != null) {
+			bitmap.recycle();
+		}
+	}
+
+	/**
+	 * Takes bitmap which image of incoming dimensions and config can be decoded into.
+	 *
+	 * @return Pooled bitmap (it's removed from pool) or <b>null</b> if pool has no compatible bitmap
+	 */
+	public Bitmap get(int width, int height, Bitmap.Config config) {
+		if (!isSupported() || width <= 0 || height <= 0) return null;
+		if (config == null) {
+			config = Bitmap.Config.ARGB_8888;
+		}
+		int requiredSize = width * height * getBytesPerPixel(config);
+
+		synchronized (this) {
+			TreeMap<Integer, LinkedList<Bitmap>> sizes = buckets.get(config);
+			if (sizes == null) return null;
+
+			Bitmap bitmap = null;
+			if (Build.VERSION.SDK_INT >= 19) {
+				Map.Entry<Integer, LinkedList<Bitmap>> entry = sizes.ceilingEntry(requiredSize);
+				if (entry != null && entry.getKey() <= requiredSize * MAX_SIZE_MULTIPLE) {
+					bitmap = entry.getValue().removeLast();
+					if (entry.getValue().isEmpty()) {
+						sizes.remove(entry.getKey());
+					}
+				}
+			} else {
+				LinkedList<Bitmap> sameSize = sizes.get(requiredSize);
+				if (sameSize != null) {
+					for (Iterator<Bitmap> it = sameSize.descendingIterator(); it.hasNext(); ) {
+						Bitmap candidate = it.next();
+						if (candidate.getWidth() == width && candidate.getHeight() == height) {
+							it.remove();
+							bitmap = candidate;
+							break;
+						}
+					}
+					if (sameSize.isEmpty()) {
+						sizes.remove(requiredSize);
+					}
+				}
+			}
+			if (bitmap != null) {
+				size -= bitmaps.remove(bitmap);
+			}
+			return bitmap;
+		}
+	}
+
+	/**
+	 * Removes incoming bitmap from pool.
+	 *
+	 * @return <b>true</b> - if bitmap was in pool; <b>false</b> - otherwise
+	 */
+	@Override
+	public synchronized boolean remove(Bitmap bitmap) {
+		Integer bitmapSize = bitmaps.remove(bitmap);
+		if (bitmapSize == null) return false;
+
+		removeFromBucket(bitmap, bitmapSize);
+		size -= bitmapSize;
+		return true;
+	}
+
+	/** Drops the eldest bitmaps until total size of pooled bitmaps is at or below incoming size (in bytes) */
+	public synchronized void trimToSize(int maxSize) {
+		Iterator<Map.Entry<Bitmap, Integer>> it = bitmaps.entrySet().iterator();
+		while (size > maxSize && it.hasNext()) {
+			Map.Entry<Bitmap, Integer> eldest = it.next();
+			Bitmap bitmap = eldest.getKey();
+			int bitmapSize = eldest.getValue();
+			it.remove();
+			removeFromBucket(bitmap, bitmapSize);
+			size -= bitmapSize;
+		}
+	}
+
+	private void removeFromBucket(Bitmap bitmap, int bitmapSize) {
+		TreeMap<Integer, LinkedList<Bitmap>> sizes = buckets.get(bitmap.getConfig());
+		LinkedList<Bitmap> sameSize = sizes.get(bitmapSize);
+		sameSize.remove(bitmap);
+		if (sameSize.isEmpty()) {
+			sizes.remove(bitmapSize);
+		}
+	}
+
+	/** Drops all pooled bitmaps */
+	public void clear() {
+		trimToSize(-1);
+	}
+
+	/** @return Total size of pooled bitmaps (in bytes) */
+	public synchronized int getSize() {
+		return size;
+	}
+
+	/** @return Maximum total size of pooled bitmaps (in bytes) */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	private static int getBytesPerPixel(Bitmap.Config config) {
+		switch (config) {
+			case ALPHA_8:
+				return 1;
+			case RGB_565:
+			case ARGB_4444:
+				return 2;
+			case ARGB_8888:
+			default:
+				return 4;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.assist;
+
+import android.graphics.Bitmap;
+
+/**
+ * Counts references to bitmaps which are displayed in views, so bitmaps evicted from memory cache get into
+ * {@link BitmapPool} only when no view displays them anymore (see {@link PixelBufferReferences}). Bitmap which is
+ * handed to listener of {@link com.nostra13.universalimageloader.core.imageaware.NonViewAware NonViewAware} request is
+ * {@linkplain #retain(Object) retained} and never gets into pool.<br />
+ * All methods are thread-safe.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public final class BitmapReferences extends PixelBufferReferences<Bitmap> {
+
+	public BitmapReferences(BitmapPool bitmapPool) {
+		super(bitmapPool);
+	}
+}
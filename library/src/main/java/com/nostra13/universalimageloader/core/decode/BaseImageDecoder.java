@@ -15,14 +15,20 @@
  *******************************************************************************/
 package com.nostra13.universalimageloader.core.decode;
 
+import android.annotation.TargetApi;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.BitmapFactory.Options;
 import android.graphics.Matrix;
 import android.media.ExifInterface;
+import android.os.Build;
+import com.nostra13.universalimageloader.core.assist.BitmapPool;
 import com.nostra13.universalimageloader.core.assist.ImageScaleType;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 import com.nostra13.universalimageloader.core.download.ImageDownloader.Scheme;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.CacheEvent;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics.Stage;
 import com.nostra13.universalimageloader.utils.ImageSizeUtils;
 import com.nostra13.universalimageloader.utils.IoUtils;
 import com.nostra13.universalimageloader.utils.L;
@@ -47,6 +53,7 @@ public class BaseImageDecoder implements ImageDecoder {
 	protected static final String LOG_FLIP_IMAGE = "Flip image horizontally [%s]";
 	protected static final String ERROR_NO_IMAGE_STREAM = "No stream for image [%s]";
 	protected static final String ERROR_CANT_DECODE_IMAGE = "Image can't be decoded [%s]";
+	protected static final String WARNING_CANT_REUSE_BITMAP = "Image can't be decoded into pooled bitmap [%s]";
 
 	protected final boolean loggingEnabled;
 
@@ -82,13 +89,38 @@ public class BaseImageDecoder implements ImageDecoder {
 		}
 		try {
 			// 获取 图片 宽高  exif 信息
+			long boundsStart = System.nanoTime();
 			imageInfo = defineImageSizeAndRotation(imageStream, decodingInfo);
+			ImageLoaderMetrics metrics = decodingInfo.getMetrics();
+			if (metrics != null) {
+				metrics.onStageFinished(Stage.DECODE_BOUNDS, decodingInfo.getRequestId(),
+						decodingInfo.getOriginalImageUri(), System.nanoTime() - boundsStart);
+			}
 			// 前面把流 读了一遍 这里需要重置
 			imageStream = resetStream(imageStream, decodingInfo);
 			// 获取表面皿参数 主要设置 缩放带下
 			Options decodingOptions = prepareDecodingOptions(imageInfo.imageSize, decodingInfo);
+			// 从 BitmapPool 中取一个可以复用的 Bitmap
+			Bitmap reusedBitmap = prepareBitmapForReuse(decodingOptions, imageInfo, decodingInfo);
 			// 编码 bitmap
-			decodedBitmap = BitmapFactory.decodeStream(imageStream, null, decodingOptions);
+			try {
+				decodedBitmap = BitmapFactory.decodeStream(imageStream, null, decodingOptions);
+			} catch (IllegalArgumentException e) {
+				if (reusedBitmap == null) throw e;
+				// Image can't be decoded into pooled bitmap, so decode it into new one
+				L.w(WARNING_CANT_REUSE_BITMAP, decodingInfo.getImageKey());
+				onBitmapNotReused(decodingOptions, reusedBitmap, decodingInfo);
+				reusedBitmap = null;
+				imageStream = resetStream(imageStream, decodingInfo);
+				decodedBitmap = BitmapFactory.decodeStream(imageStream, null, decodingOptions);
+			}
+			if (reusedBitmap != null) {
+				if (decodedBitmap == reusedBitmap) {
+					reportBitmapPoolEvent(CacheEvent.BITMAP_POOL_HIT, decodingInfo);
+				} else {
+					onBitmapNotReused(decodingOptions, reusedBitmap, decodingInfo);
+				}
+			}
 		} finally {
 			//关闭流
 			IoUtils.closeSilently(imageStream);
@@ -219,6 +251,71 @@ public class BaseImageDecoder implements ImageDecoder {
 		return decodingOptions;
 	}
 
+	/**
+	 * Takes bitmap from {@linkplain ImageDecodingInfo#getBitmapPool() pool} which image can be decoded into and sets it
+	 * to decoding options. Decoded bitmap is made mutable so it can be reused later.
+	 *
+	 * @return Bitmap which was set to decoding options or <b>null</b> if pool had no compatible bitmap
+	 */
+	protected Bitmap prepareBitmapForReuse(Options decodingOptions, ImageFileInfo imageInfo,
+			ImageDecodingInfo decodingInfo) {
+		BitmapPool bitmapPool = decodingInfo.getBitmapPool();
+		if (bitmapPool == null || !BitmapPool.isSupported()) return null;
+
+		return setBitmapForReuse(decodingOptions, imageInfo, bitmapPool, decodingInfo);
+	}
+
+	@TargetApi(11)
+	private Bitmap setBitmapForReuse(Options decodingOptions, ImageFileInfo imageInfo, BitmapPool bitmapPool,
+			ImageDecodingInfo decodingInfo) {
+		decodingOptions.inMutable = true;
+		if (decodingOptions.inBitmap != null) return null; // Bitmap for reuse was set in display options
+
+		int scale = decodingOptions.inSampleSize;
+		Bitmap bitmap = null;
+		// Before Android 4.4 image can be decoded only into bitmap of the same size and without subsampling
+		if (scale <= 1 || Build.VERSION.SDK_INT >= 19) {
+			scale = Math.max(scale, 1);
+			// Image size is rotated according to EXIF, but image is decoded in original orientation
+			ImageSize imageSize = imageInfo.imageSize;
+			boolean rotated = imageInfo.exif.rotation == 90 || imageInfo.exif.rotation == 270;
+			int width = rotated ? imageSize.getHeight() : imageSize.getWidth();
+			int height = rotated ? imageSize.getWidth() : imageSize.getHeight();
+			bitmap = bitmapPool.get((width + scale - 1) / scale, (height + scale - 1) / scale,
+					decodingOptions.inPreferredConfig);
+		}
+		if (bitmap == null) {
+			reportBitmapPoolEvent(CacheEvent.BITMAP_POOL_MISS, decodingInfo);
+		}
+		decodingOptions.inBitmap = bitmap;
+		return bitmap;
+	}
+
+	/** Returns unused pooled bitmap back to pool */
+	@TargetApi(11)
+	private void onBitmapNotReused(Options decodingOptions, Bitmap reusedBitmap, ImageDecodingInfo decodingInfo) {
+		decodingOptions.inBitmap = null;
+		decodingInfo.getBitmapPool().put(reusedBitmap);
+		reportBitmapPoolEvent(CacheEvent.BITMAP_POOL_MISS, decodingInfo);
+	}
+
+	private void reportBitmapPoolEvent(CacheEvent event, ImageDecodingInfo decodingInfo) {
+		ImageLoaderMetrics metrics = decodingInfo.getMetrics();
+		if (metrics != null) {
+			metrics.onCacheEvent(event);
+		}
+	}
+
+	/** Puts bitmap which isn't needed anymore into {@linkplain ImageDecodingInfo#getBitmapPool() pool} or recycles it */
+	protected void releaseBitmap(Bitmap bitmap, ImageDecodingInfo decodingInfo) {
+		BitmapPool bitmapPool = decodingInfo.getBitmapPool();
+		if (bitmapPool != null) {
+			bitmapPool.putOrRecycle(bitmap);
+		} else {
+			bitmap.recycle();
+		}
+	}
+
 	protected InputStream resetStream(InputStream imageStream, ImageDecodingInfo decodingInfo) throws IOException {
 		if (imageStream.markSupported()) {
 			// 如果支持 标记的
@@ -281,7 +378,7 @@ public class BaseImageDecoder implements ImageDecoder {
 				.getHeight(), m, true);
 		// 这里要注意 createBitmap 不一定 创建的是 新的Bitmap 如果 m 没有任何变化的 那么 还是返回原来的Bitmap
 		if (finalBitmap != subsampledBitmap) {
-			subsampledBitmap.recycle();
+			releaseBitmap(subsampledBitmap, decodingInfo);
 		}
 		return finalBitmap;
 	}
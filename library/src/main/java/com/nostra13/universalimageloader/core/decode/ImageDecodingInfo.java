@@ -20,10 +20,12 @@ import android.graphics.BitmapFactory.Options;
 import android.os.Build;
 
 import com.nostra13.universalimageloader.core.DisplayImageOptions;
+import com.nostra13.universalimageloader.core.assist.BitmapPool;
 import com.nostra13.universalimageloader.core.assist.ImageScaleType;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 import com.nostra13.universalimageloader.core.assist.ViewScaleType;
 import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.core.metrics.ImageLoaderMetrics;
 
 /**
  * Contains needed information for decoding image to Bitmap
@@ -80,8 +82,34 @@ public class ImageDecodingInfo {
 	 */
 	private final Options decodingOptions;
 
+	private final ImageLoaderMetrics metrics;
+	private final int requestId;
+	private final BitmapPool bitmapPool;
+
 	public ImageDecodingInfo(String imageKey, String imageUri, String originalImageUri, ImageSize targetSize, ViewScaleType viewScaleType,
 							 ImageDownloader downloader, DisplayImageOptions displayOptions) {
+		this(imageKey, imageUri, originalImageUri, targetSize, viewScaleType, downloader, displayOptions, null, 0);
+	}
+
+	/**
+	 * @param metrics   Receiver of decoding stage timings, can be <b>null</b>
+	 * @param requestId ID of display request which is reported with stage timings
+	 */
+	public ImageDecodingInfo(String imageKey, String imageUri, String originalImageUri, ImageSize targetSize, ViewScaleType viewScaleType,
+							 ImageDownloader downloader, DisplayImageOptions displayOptions, ImageLoaderMetrics metrics,
+							 int requestId) {
+		this(imageKey, imageUri, originalImageUri, targetSize, viewScaleType, downloader, displayOptions, metrics,
+				requestId, null);
+	}
+
+	/**
+	 * @param metrics    Receiver of decoding stage timings, can be <b>null</b>
+	 * @param requestId  ID of display request which is reported with stage timings
+	 * @param bitmapPool Pool of bitmaps which image can be decoded into, can be <b>null</b>
+	 */
+	public ImageDecodingInfo(String imageKey, String imageUri, String originalImageUri, ImageSize targetSize, ViewScaleType viewScaleType,
+							 ImageDownloader downloader, DisplayImageOptions displayOptions, ImageLoaderMetrics metrics,
+							 int requestId, BitmapPool bitmapPool) {
 		this.imageKey = imageKey;
 		this.imageUri = imageUri;
 		this.originalImageUri = originalImageUri;
@@ -96,6 +124,9 @@ public class ImageDecodingInfo {
 		considerExifParams = displayOptions.isConsiderExifParams();
 		decodingOptions = new Options();
 		copyOptions(displayOptions.getDecodingOptions(), decodingOptions);
+		this.metrics = metrics;
+		this.requestId = requestId;
+		this.bitmapPool = bitmapPool;
 	}
 
 	private void copyOptions(Options srcOptions, Options destOptions) {
@@ -180,4 +211,19 @@ public class ImageDecodingInfo {
 	public Options getDecodingOptions() {
 		return decodingOptions;
 	}
-}
\ No newline at end of file
+
+	/** @return Receiver of decoding stage timings or <b>null</b> if timings aren't needed */
+	public ImageLoaderMetrics getMetrics() {
+		return metrics;
+	}
+
+	/** @return ID of display request which is reported with stage timings */
+	public int getRequestId() {
+		return requestId;
+	}
+
+	/** @return Pool of bitmaps which image can be decoded into or <b>null</b> if bitmaps aren't reused */
+	public BitmapPool getBitmapPool() {
+		return bitmapPool;
+	}
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2011-2014 Sergey Tarasevich
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.nostra13.universalimageloader.core.listener;
+
+import java.util.List;
+
+/**
+ * Listener for {@linkplain com.nostra13.universalimageloader.core.ImageLoader#prefetch(java.util.Collection,
+ * com.nostra13.universalimageloader.core.PrefetchOptions, PrefetchListener) prefetching} of images into disk cache.
+ *
+ * @author Sergey Tarasevich (nostra13[at]gmail[dot]com)
+ * @since 1.9.6
+ */
+public interface PrefetchListener {
+
+	/**
+	 * Is called when all images of prefetch request were processed or when ImageLoader was stopped during prefetching
+	 * (images which weren't processed are reported as failed then).
+	 *
+	 * @param cachedCount Count of images which are cached on disk now (including images which were cached before)
+	 * @param failedUris  URIs of images which weren't cached (can be empty, never <b>null</b>)
+	 */
+	void onPrefetchComplete(int cachedCount, List<String> failedUris);
+}
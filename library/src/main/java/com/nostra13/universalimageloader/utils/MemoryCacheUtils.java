@@ -17,7 +17,10 @@ package com.nostra13.universalimageloader.utils;
 
 import android.graphics.Bitmap;
 
+import com.nostra13.universalimageloader.cache.memory.ImageUriKeyIndex;
+import com.nostra13.universalimageloader.cache.memory.MemoryCacheKeys;
 import com.nostra13.universalimageloader.cache.memory.MemoryCache;
+import com.nostra13.universalimageloader.cache.memory.TrimmableMemoryCache;
 import com.nostra13.universalimageloader.core.ImageLoaderConfiguration;
 import com.nostra13.universalimageloader.core.assist.ImageSize;
 
@@ -33,27 +36,25 @@ import java.util.List;
  */
 public final class MemoryCacheUtils {
 
-	private static final String URI_AND_SIZE_SEPARATOR = "_";
-	private static final String WIDTH_AND_HEIGHT_SEPARATOR = "x";
-
 	private MemoryCacheUtils() {
 	}
 
 	/**
 	 * Generates key for memory cache for incoming image (URI + size).<br />
-	 * Pattern for cache key - <b>[imageUri]_[width]x[height]</b>.
+	 * Pattern for cache key - <b>[imageUri]_[width]x[height]</b>.<br />
+	 * New key is built on every call. ImageLoader takes keys of recently requested images from
+	 * {@linkplain MemoryCacheKeys pool} of its configuration.
 	 */
 	public static String generateKey(String imageUri, ImageSize targetSize) {
-		return new StringBuilder(imageUri).append(URI_AND_SIZE_SEPARATOR).append(targetSize.getWidth()).append(WIDTH_AND_HEIGHT_SEPARATOR).append(targetSize.getHeight()).toString();
+		return MemoryCacheKeys.build(imageUri, targetSize.getWidth(), targetSize.getHeight());
 	}
 
+	/** Returns comparator which considers keys of the same image URI as equal. Comparison doesn't allocate memory. */
 	public static Comparator<String> createFuzzyKeyComparator() {
 		return new Comparator<String>() {
 			@Override
 			public int compare(String key1, String key2) {
-				String imageUri1 = key1.substring(0, key1.lastIndexOf(URI_AND_SIZE_SEPARATOR));
-				String imageUri2 = key2.substring(0, key2.lastIndexOf(URI_AND_SIZE_SEPARATOR));
-				return imageUri1.compareTo(imageUri2);
+				return MemoryCacheKeys.compareImageUris(key1, key2);
 			}
 		};
 	}
@@ -66,28 +67,93 @@ public final class MemoryCacheUtils {
 	 */
 	public static List<Bitmap> findCachedBitmapsForImageUri(String imageUri, MemoryCache memoryCache) {
 		List<Bitmap> values = new ArrayList<Bitmap>();
-		for (String key : memoryCache.keys()) {
-			if (key.startsWith(imageUri)) {
-				values.add(memoryCache.get(key));
+		for (String key : findCacheKeysForImageUri(imageUri, memoryCache)) {
+			Bitmap value = memoryCache.get(key);
+			if (value != null) {
+				values.add(value);
 			}
 		}
 		return values;
 	}
 
 	/**
-	 * Searches all keys in memory cache which are corresponded to incoming URI.<br />
+	 * Searches all keys in memory cache which are corresponded to incoming URI. {@linkplain
+	 * com.nostra13.universalimageloader.cache.memory.IndexedMemoryCache Indexed memory cache} finds them by its index, keys of other caches are scanned.<br />
 	 * <b>Note:</b> Memory cache can contain multiple sizes of the same image if only you didn't set
 	 * {@link ImageLoaderConfiguration.Builder#denyCacheImageMultipleSizesInMemory()
 	 * denyCacheImageMultipleSizesInMemory()} option in {@linkplain ImageLoaderConfiguration configuration}
 	 */
 	public static List<String> findCacheKeysForImageUri(String imageUri, MemoryCache memoryCache) {
-		List<String> values = new ArrayList<String>();
-		for (String key : memoryCache.keys()) {
-			if (key.startsWith(imageUri)) {
-				values.add(key);
+		return ImageUriKeyIndex.findKeys(memoryCache, imageUri);
+	}
+
+	/**
+	 * Searches cached bitmap of image with incoming URI which was loaded for target size larger than (or equal to)
+	 * incoming one. Such bitmap can be scaled down instead of loading of image from disk.
+	 *
+	 * @return Cached bitmap loaded for the smallest of such target sizes or <b>null</b> if there is no such bitmap
+	 */
+	public static Bitmap findLargerCachedBitmap(String imageUri, ImageSize targetSize, MemoryCache memoryCache) {
+		return getCachedBitmap(findLargerCacheKey(imageUri, targetSize, memoryCache), memoryCache);
+	}
+
+	/**
+	 * Searches memory cache key of image with incoming URI which was loaded for target size larger than (or equal to)
+	 * incoming one.
+	 *
+	 * @return Key for the smallest of such target sizes or <b>null</b> if there is no such key
+	 * @see #findLargerCachedBitmap(String, ImageSize, MemoryCache)
+	 */
+	public static String findLargerCacheKey(String imageUri, ImageSize targetSize, MemoryCache memoryCache) {
+		return findCachedVariantKey(imageUri, targetSize, memoryCache, true);
+	}
+
+	/**
+	 * Searches cached bitmap of image with incoming URI which was loaded for target size smaller than incoming one.
+	 * Such bitmap can be displayed while image of needed size is loading.
+	 *
+	 * @return Cached bitmap loaded for the largest of such target sizes or <b>null</b> if there is no such bitmap
+	 */
+	public static Bitmap findSmallerCachedBitmap(String imageUri, ImageSize targetSize, MemoryCache memoryCache) {
+		return getCachedBitmap(findSmallerCacheKey(imageUri, targetSize, memoryCache), memoryCache);
+	}
+
+	/**
+	 * Searches memory cache key of image with incoming URI which was loaded for target size smaller than incoming one.
+	 *
+	 * @return Key for the largest of such target sizes or <b>null</b> if there is no such key
+	 * @see #findSmallerCachedBitmap(String, ImageSize, MemoryCache)
+	 */
+	public static String findSmallerCacheKey(String imageUri, ImageSize targetSize, MemoryCache memoryCache) {
+		return findCachedVariantKey(imageUri, targetSize, memoryCache, false);
+	}
+
+	private static Bitmap getCachedBitmap(String key, MemoryCache memoryCache) {
+		if (key == null) return null;
+
+		Bitmap bitmap = memoryCache.get(key);
+		return bitmap == null || bitmap.isRecycled() ? null : bitmap;
+	}
+
+	private static String findCachedVariantKey(String imageUri, ImageSize targetSize, MemoryCache memoryCache,
+			boolean larger) {
+		String bestKey = null;
+		long bestArea = 0;
+		for (String key : findCacheKeysForImageUri(imageUri, memoryCache)) {
+			int width = MemoryCacheKeys.parseTargetWidth(key);
+			int height = MemoryCacheKeys.parseTargetHeight(key);
+			if (width < 0 || height < 0) continue;
+
+			boolean covers = width >= targetSize.getWidth() && height >= targetSize.getHeight();
+			if (covers != larger) continue;
+
+			long area = (long) width * height;
+			if (bestKey == null || (larger ? area < bestArea : area > bestArea)) {
+				bestKey = key;
+				bestArea = area;
 			}
 		}
-		return values;
+		return bestKey;
 	}
 
 	/**
@@ -97,14 +163,20 @@ public final class MemoryCacheUtils {
 	 * denyCacheImageMultipleSizesInMemory()} option in {@linkplain ImageLoaderConfiguration configuration}
 	 */
 	public static void removeFromCache(String imageUri, MemoryCache memoryCache) {
-		List<String> keysToRemove = new ArrayList<String>();
-		for (String key : memoryCache.keys()) {
-			if (key.startsWith(imageUri)) {
-				keysToRemove.add(key);
-			}
-		}
-		for (String keyToRemove : keysToRemove) {
+		for (String keyToRemove : findCacheKeysForImageUri(imageUri, memoryCache)) {
 			memoryCache.remove(keyToRemove);
 		}
 	}
+
+	/**
+	 * Trims memory cache to <b>fraction</b> of its max size if cache is {@linkplain TrimmableMemoryCache trimmable},
+	 * otherwise clears it if <b>fraction</b> is 0.
+	 */
+	public static void trimMemoryCache(MemoryCache memoryCache, float fraction) {
+		if (memoryCache instanceof TrimmableMemoryCache) {
+			((TrimmableMemoryCache) memoryCache).trim(fraction);
+		} else if (fraction <= 0) {
+			memoryCache.clear();
+		}
+	}
 }
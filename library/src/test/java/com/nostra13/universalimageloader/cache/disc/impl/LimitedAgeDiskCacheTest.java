@@ -0,0 +1,78 @@
+package com.nostra13.universalimageloader.cache.disc.impl;
+
+import android.graphics.Bitmap;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+@RunWith(RobolectricTestRunner.class)
+public class LimitedAgeDiskCacheTest {
+	private static final String URI = "http://example.com/image.png";
+
+	private File cacheDir;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDir = new File(System.getProperty("java.io.tmpdir"), "uil-disk-test-" + System.nanoTime());
+		Assertions.assertThat(cacheDir.mkdirs()).isTrue();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testContainsDoesNotAccessFileSystem() throws Exception {
+		LimitedAgeDiskCache cache = new LimitedAgeDiskCache(cacheDir, 60);
+		cache.save(URI, new ByteArrayInputStream(new byte[]{1, 2, 3}), null);
+		tearDown();
+
+		Assertions.assertThat(cache.contains(URI)).isTrue();
+		// Cache directory isn't re-created by contains()
+		Assertions.assertThat(cacheDir.exists()).isFalse();
+	}
+
+	@Test
+	public void testContainsIsFalseForExpiredFile() throws Exception {
+		LimitedAgeDiskCache cache = new LimitedAgeDiskCache(cacheDir, 0);
+		cache.save(URI, new ByteArrayInputStream(new byte[]{1, 2, 3}), null);
+		Thread.sleep(10);
+
+		Assertions.assertThat(cache.contains(URI)).isFalse();
+		Assertions.assertThat(cache.contains("http://example.com/another.png")).isFalse();
+	}
+
+	@Test
+	public void testRemoveForgetsFile() throws Exception {
+		LimitedAgeDiskCache cache = new LimitedAgeDiskCache(cacheDir, 60);
+		cache.save(URI, new ByteArrayInputStream(new byte[]{1, 2, 3}), null);
+		Assertions.assertThat(cache.remove(URI)).isTrue();
+
+		Assertions.assertThat(cache.contains(URI)).isFalse();
+		Assertions.assertThat(cache.get(URI).exists()).isFalse();
+	}
+
+	@Test
+	public void testSavedBitmapIsRecycled() throws Exception {
+		LimitedAgeDiskCache cache = new LimitedAgeDiskCache(cacheDir, 60);
+		Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		Assertions.assertThat(cache.save(URI, bitmap)).isTrue();
+
+		Assertions.assertThat(cache.contains(URI)).isTrue();
+		Assertions.assertThat(bitmap.isRecycled()).isTrue();
+	}
+}
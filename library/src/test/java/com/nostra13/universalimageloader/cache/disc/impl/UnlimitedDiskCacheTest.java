@@ -0,0 +1,95 @@
+package com.nostra13.universalimageloader.cache.disc.impl;
+
+import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class UnlimitedDiskCacheTest {
+	private static final String URI = "http://example.com/image.png";
+
+	private File cacheDir;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDir = new File(System.getProperty("java.io.tmpdir"), "uil-disk-test-" + System.nanoTime());
+		Assertions.assertThat(cacheDir.mkdirs()).isTrue();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	@Test
+	public void testCachedFilesAreIndexedOffCallerThread() throws Exception {
+		FileOutputStream os = new FileOutputStream(new File(cacheDir, new HashCodeFileNameGenerator().generate(URI)));
+		os.write(new byte[]{1, 2, 3});
+		os.close();
+
+		ListingDir dir = new ListingDir(cacheDir);
+		UnlimitedDiskCache cache = new UnlimitedDiskCache(dir);
+		Assertions.assertThat(dir.listed.getCount()).isEqualTo(1);
+
+		cache.contains(URI);
+		Assertions.assertThat(dir.listed.await(5, TimeUnit.SECONDS)).isTrue();
+		Assertions.assertThat(dir.listingThread).isNotSameAs(Thread.currentThread());
+		Assertions.assertThat(awaitContains(cache, URI)).isTrue();
+	}
+
+	@Test
+	public void testGetForgetsFileDeletedOutsideOfCache() throws Exception {
+		UnlimitedDiskCache cache = new UnlimitedDiskCache(cacheDir);
+		cache.save(URI, new ByteArrayInputStream(new byte[]{1, 2, 3}), null);
+		Assertions.assertThat(cache.contains(URI)).isTrue();
+
+		tearDown();
+		Assertions.assertThat(cache.contains(URI)).isTrue();
+
+		Assertions.assertThat(cache.get(URI).exists()).isFalse();
+		Assertions.assertThat(cache.contains(URI)).isFalse();
+	}
+
+	private static boolean awaitContains(UnlimitedDiskCache cache, String uri) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!cache.contains(uri)) {
+			if (System.nanoTime() > deadline) return false;
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	/** Directory which records the thread its content is listed on */
+	private static class ListingDir extends File {
+		final CountDownLatch listed = new CountDownLatch(1);
+		volatile Thread listingThread;
+
+		ListingDir(File dir) {
+			super(dir.getPath());
+		}
+
+		@Override
+		public String[] list() {
+			listingThread = Thread.currentThread();
+			listed.countDown();
+			return super.list();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ImageUriKeyIndexTest {
+
+	private static final String URI = "http://example.com/my_image_100x100.png";
+
+	@Test
+	public void testSizePartIsStripped() throws Exception {
+		String key = MemoryCacheKeys.build(URI, 480, 800);
+
+		Assertions.assertThat(ImageUriKeyIndex.extractImageUri(key)).isEqualTo(URI);
+	}
+
+	@Test
+	public void testKeyWithoutSizePartIsReturnedAsIs() throws Exception {
+		Assertions.assertThat(ImageUriKeyIndex.extractImageUri(URI)).isEqualTo(URI);
+		Assertions.assertThat(ImageUriKeyIndex.extractImageUri("file:///sdcard/img_1")).isEqualTo("file:///sdcard/img_1");
+		Assertions.assertThat(ImageUriKeyIndex.extractImageUri("drawable://a_x1")).isEqualTo("drawable://a_x1");
+		Assertions.assertThat(ImageUriKeyIndex.extractImageUri("drawable://a_1x")).isEqualTo("drawable://a_1x");
+	}
+
+	@Test
+	public void testUriEndingWithSizeLikePartIsKeptInKey() throws Exception {
+		String uri = "http://example.com/thumb_100x100";
+		String key = MemoryCacheKeys.build(uri, 480, 800);
+
+		Assertions.assertThat(ImageUriKeyIndex.extractImageUri(key)).isEqualTo(uri);
+	}
+
+	@Test
+	public void testTargetSizeIsParsed() throws Exception {
+		ImageSize size = MemoryCacheKeys.parseTargetSize(MemoryCacheKeys.build(URI, 480, 800));
+
+		Assertions.assertThat(size.getWidth()).isEqualTo(480);
+		Assertions.assertThat(size.getHeight()).isEqualTo(800);
+		Assertions.assertThat(MemoryCacheKeys.parseTargetSize(URI)).isNull();
+		Assertions.assertThat(MemoryCacheKeys.parseTargetSize("uri_99999999999x1")).isNull();
+	}
+
+	@Test
+	public void testKeysAreIndexedByUriContainingSeparator() throws Exception {
+		ImageUriKeyIndex index = new ImageUriKeyIndex();
+		String key = MemoryCacheKeys.build(URI, 480, 800);
+		index.add(key);
+		index.add(URI);
+
+		Assertions.assertThat(index.get(URI)).containsOnly(key, URI);
+		Assertions.assertThat(MemoryCacheKeys.compareImageUris(key, URI)).isEqualTo(0);
+	}
+}
@@ -0,0 +1,67 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.graphics.Bitmap;
+
+import com.nostra13.universalimageloader.cache.memory.impl.LRULimitedMemoryCache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class LimitedMemoryCacheTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4;
+
+	private LimitedMemoryCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new LRULimitedMemoryCache(2 * BITMAP_SIZE);
+	}
+
+	@Test
+	public void testReplacedValueIsNotCountedAnymore() throws Exception {
+		cache.put("key", newBitmap(10));
+		cache.put("key", newBitmap(10));
+		Bitmap large = newBitmap(15);
+
+		Assertions.assertThat(putInTime("large", large)).isTrue();
+		Assertions.assertThat(cache.get("large")).isSameAs(large);
+	}
+
+	@Test
+	public void testPutOfTheSameValueAgainIsCountedOnce() throws Exception {
+		Bitmap bitmap = newBitmap(10);
+		cache.put("key", bitmap);
+		cache.put("key", bitmap);
+		cache.put("another", newBitmap(10));
+		Bitmap large = newBitmap(15);
+
+		Assertions.assertThat(putInTime("large", large)).isTrue();
+		Assertions.assertThat(cache.get("large")).isSameAs(large);
+	}
+
+	/**
+	 * Puts bitmap on separate thread, so broken size accounting (endless eviction) doesn't hang the test. Large bitmap
+	 * makes cache evict everything it knows about, only values which are counted by mistake are left then.
+	 */
+	private boolean putInTime(final String key, final Bitmap value) throws InterruptedException {
+		Thread putThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				cache.put(key, value);
+			}
+		});
+		putThread.setDaemon(true);
+		putThread.start();
+		putThread.join(1000);
+		return !putThread.isAlive();
+	}
+
+	private static Bitmap newBitmap(int height) {
+		return Bitmap.createBitmap(10, height, Bitmap.Config.ARGB_8888);
+	}
+}
@@ -0,0 +1,59 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class MemoryCacheKeysTest {
+
+	private static final String URI = "http://example.com/image.png";
+
+	@Test
+	public void testUriIsPooledOnSecondRequest() throws Exception {
+		MemoryCacheKeys keys = new MemoryCacheKeys(4);
+		String first = keys.obtain(URI, 100, 200);
+		Assertions.assertThat(keys.size()).isEqualTo(0);
+
+		String second = keys.obtain(URI, 100, 200);
+		String third = keys.obtain(URI, 100, 200);
+		Assertions.assertThat(keys.size()).isEqualTo(1);
+		Assertions.assertThat(first).isEqualTo(MemoryCacheKeys.build(URI, 100, 200));
+		Assertions.assertThat(second).isEqualTo(first);
+		Assertions.assertThat(third).isSameAs(second);
+	}
+
+	@Test
+	public void testSizesOfPooledUriAreKeptApart() throws Exception {
+		MemoryCacheKeys keys = new MemoryCacheKeys(4);
+		keys.obtain(URI, 100, 200);
+		String small = keys.obtain(URI, 100, 200);
+		String large = keys.obtain(URI, 400, 800);
+
+		Assertions.assertThat(large).isEqualTo(MemoryCacheKeys.build(URI, 400, 800));
+		Assertions.assertThat(keys.obtain(URI, 100, 200)).isSameAs(small);
+		Assertions.assertThat(keys.obtain(URI, 400, 800)).isSameAs(large);
+	}
+
+	@Test
+	public void testPoolIsBounded() throws Exception {
+		MemoryCacheKeys keys = new MemoryCacheKeys(4);
+		for (int i = 0; i < 10; i++) {
+			keys.obtain(URI + i, 100, 200);
+			keys.obtain(URI + i, 100, 200);
+		}
+
+		Assertions.assertThat(keys.size()).isEqualTo(4);
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		MemoryCacheKeys keys = new MemoryCacheKeys(4);
+		keys.obtain(URI, 100, 200);
+		String pooled = keys.obtain(URI, 100, 200);
+		keys.clear();
+
+		Assertions.assertThat(keys.size()).isEqualTo(0);
+		Assertions.assertThat(keys.obtain(URI, 100, 200)).isNotSameAs(pooled);
+		// Requests before clearing are forgotten too
+		Assertions.assertThat(keys.size()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,105 @@
+package com.nostra13.universalimageloader.cache.memory;
+
+import android.graphics.Bitmap;
+
+import com.nostra13.universalimageloader.cache.EvictingCache;
+import com.nostra13.universalimageloader.cache.EvictionListener;
+import com.nostra13.universalimageloader.cache.memory.impl.FIFOLimitedMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.FuzzyKeyMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LimitedAgeMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.SegmentedLruMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.WTinyLfuMemoryCache;
+import com.nostra13.universalimageloader.cache.memory.impl.WeakMemoryCache;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrimmableMemoryCacheTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4;
+	private static final int MAX_SIZE = 8 * BITMAP_SIZE;
+
+	@Test
+	public void testLruMemoryCache() throws Exception {
+		checkTrim(new LruMemoryCache(MAX_SIZE));
+	}
+
+	@Test
+	public void testSegmentedLruMemoryCache() throws Exception {
+		checkTrim(new SegmentedLruMemoryCache(MAX_SIZE));
+	}
+
+	@Test
+	public void testWTinyLfuMemoryCache() throws Exception {
+		checkTrim(new WTinyLfuMemoryCache(MAX_SIZE, 50));
+	}
+
+	@Test
+	public void testLimitedMemoryCache() throws Exception {
+		checkTrim(new FIFOLimitedMemoryCache(MAX_SIZE));
+	}
+
+	@Test
+	public void testWrappingCachesDelegateTrim() throws Exception {
+		checkTrim(new FuzzyKeyMemoryCache(new LruMemoryCache(MAX_SIZE)));
+		checkTrim(new LimitedAgeMemoryCache(new LruMemoryCache(MAX_SIZE), 60));
+	}
+
+	@Test
+	public void testTrimOfNotTrimmableCacheToZeroClearsIt() throws Exception {
+		MemoryCache cache = new FuzzyKeyMemoryCache(new WeakMemoryCache());
+		cache.put("key", newBitmap());
+		MemoryCacheUtils.trimMemoryCache(cache, 0.5f);
+		Assertions.assertThat(cache.keys()).hasSize(1);
+
+		MemoryCacheUtils.trimMemoryCache(cache, 0);
+		Assertions.assertThat(cache.keys()).isEmpty();
+	}
+
+	/** Fills cache up and checks size which is kept by cache (what was put minus what was evicted) after trims */
+	private static void checkTrim(MemoryCache cache) {
+		Assertions.assertThat(cache).isInstanceOf(TrimmableMemoryCache.class);
+		final AtomicLong evictedSize = new AtomicLong();
+		((EvictingCache) cache).setEvictionListener(new EvictionListener() {
+			@Override
+			public void onEvicted(long size) {
+				evictedSize.addAndGet(size);
+			}
+		});
+		for (int i = 0; i < 8; i++) {
+			String key = "key" + i;
+			cache.put(key, newBitmap());
+			// Frequency-based caches admit entries which were requested before
+			cache.get(key);
+		}
+		long cachedSize = 8 * BITMAP_SIZE - evictedSize.get();
+		Assertions.assertThat(cachedSize).isGreaterThan(4 * BITMAP_SIZE);
+
+		MemoryCacheUtils.trimMemoryCache(cache, 1f);
+		Assertions.assertThat(8 * BITMAP_SIZE - evictedSize.get()).isEqualTo(cachedSize);
+
+		MemoryCacheUtils.trimMemoryCache(cache, 0.5f);
+		Assertions.assertThat(8 * BITMAP_SIZE - evictedSize.get()).isBetween(1L, 4L * BITMAP_SIZE);
+
+		MemoryCacheUtils.trimMemoryCache(cache, 0);
+		Assertions.assertThat(evictedSize.get()).isEqualTo(8 * BITMAP_SIZE);
+
+		// Trimmed cache grows up to its maximum size again
+		evictedSize.set(0);
+		for (int i = 0; i < 8; i++) {
+			cache.put("key" + i, newBitmap());
+		}
+		Assertions.assertThat(8 * BITMAP_SIZE - evictedSize.get()).isGreaterThan(4 * BITMAP_SIZE);
+	}
+
+	private static Bitmap newBitmap() {
+		return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+	}
+}
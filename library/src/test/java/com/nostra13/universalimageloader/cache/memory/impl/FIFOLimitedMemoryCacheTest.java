@@ -0,0 +1,86 @@
+package com.nostra13.universalimageloader.cache.memory.impl;
+
+import android.graphics.Bitmap;
+
+import com.nostra13.universalimageloader.cache.EvictionListener;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(RobolectricTestRunner.class)
+public class FIFOLimitedMemoryCacheTest {
+
+	private static final int BITMAP_SIZE = 10 * 10 * 4;
+
+	private FIFOLimitedMemoryCache cache;
+	private final AtomicLong evictedSize = new AtomicLong();
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new FIFOLimitedMemoryCache(10 * BITMAP_SIZE);
+		cache.setEvictionListener(new EvictionListener() {
+			@Override
+			public void onEvicted(long size) {
+				evictedSize.addAndGet(size);
+			}
+		});
+	}
+
+	@Test
+	public void testBitmapUnderTwoKeysIsEvictedCompletely() throws Exception {
+		Bitmap bitmap = newBitmap();
+		cache.put("key1", bitmap);
+		cache.put("key2", bitmap);
+
+		Assertions.assertThat(trimCompletely()).isTrue();
+		Assertions.assertThat(evictedSize.get()).isEqualTo(2 * BITMAP_SIZE);
+	}
+
+	@Test
+	public void testBitmapStaysQueuedWhileAnotherKeyRefersIt() throws Exception {
+		Bitmap bitmap = newBitmap();
+		cache.put("key1", bitmap);
+		cache.put("key2", bitmap);
+		cache.remove("key1");
+
+		Assertions.assertThat(trimCompletely()).isTrue();
+		Assertions.assertThat(evictedSize.get()).isEqualTo(BITMAP_SIZE);
+	}
+
+	@Test
+	public void testEveryCachedEntryIsEvictedOnce() throws Exception {
+		Bitmap shared = newBitmap();
+		for (int i = 0; i < 30; i++) {
+			cache.put("shared" + i, shared);
+			cache.put("key" + i, newBitmap());
+		}
+		cache.remove("shared0");
+
+		Assertions.assertThat(trimCompletely()).isTrue();
+		// Everything that was put and not removed is evicted exactly once
+		Assertions.assertThat(evictedSize.get()).isEqualTo(59 * BITMAP_SIZE);
+	}
+
+	/** Trims cache on separate thread, so broken size accounting (endless eviction) doesn't hang the test */
+	private boolean trimCompletely() throws InterruptedException {
+		Thread trimThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				cache.trim(0);
+			}
+		});
+		trimThread.setDaemon(true);
+		trimThread.start();
+		trimThread.join(1000);
+		return !trimThread.isAlive();
+	}
+
+	private static Bitmap newBitmap() {
+		return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+	}
+}
@@ -0,0 +1,77 @@
+package com.nostra13.universalimageloader.core;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView;
+
+import com.nostra13.universalimageloader.core.TestImageLoader.RecordingListener;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.LoadedFrom;
+import com.nostra13.universalimageloader.core.imageaware.ImageAware;
+import com.nostra13.universalimageloader.core.imageaware.ImageViewAware;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class DisplayBitmapTaskTest {
+
+	private static final String URI = "http://example.com/image.png";
+	private static final String KEY = URI + "_100x100";
+
+	private ImageLoaderConfiguration configuration;
+	private ImageLoaderEngine engine;
+	private ImageAware imageAware;
+	private Bitmap bitmap;
+
+	@Before
+	public void setUp() throws Exception {
+		configuration = new TestImageLoader().configuration().bitmapPoolSize(1024 * 1024).build();
+		engine = new ImageLoaderEngine(configuration);
+		imageAware = new ImageViewAware(new ImageView(RuntimeEnvironment.application));
+		bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+		configuration.memoryCache.put(KEY, bitmap);
+	}
+
+	@Test
+	public void testBitmapWaitingForDisplayIsNotPooled() throws Exception {
+		DisplayBitmapTask task = newTask(new RecordingListener());
+		evictAll();
+		Assertions.assertThat(configuration.bitmapPool.remove(bitmap)).isFalse();
+
+		task.run();
+		Assertions.assertThat(configuration.bitmapReferences.getReferenceCount(bitmap)).isEqualTo(1);
+		Assertions.assertThat(configuration.bitmapPool.remove(bitmap)).isFalse();
+	}
+
+	@Test
+	public void testBitmapIsReleasedIfViewWasReused() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		DisplayBitmapTask task = newTask(listener);
+		RequestToken token = engine.getRequestTokenFor(imageAware, true);
+		engine.prepareDisplayTaskFor(imageAware, token, "http://example.com/another.png_100x100");
+		evictAll();
+
+		task.run();
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(configuration.bitmapReferences.getReferenceCount(bitmap)).isEqualTo(0);
+		Assertions.assertThat(configuration.bitmapPool.remove(bitmap)).isTrue();
+	}
+
+	private DisplayBitmapTask newTask(RecordingListener listener) {
+		RequestToken token = engine.getRequestTokenFor(imageAware, true);
+		int generation = engine.prepareDisplayTaskFor(imageAware, token, KEY);
+		ImageLoadingInfo info = new ImageLoadingInfo(URI, imageAware, new ImageSize(100, 100), KEY,
+				DisplayImageOptions.createSimple(), listener, null, 1, token, generation);
+		return new DisplayBitmapTask(bitmap, info, engine, LoadedFrom.MEMORY_CACHE);
+	}
+
+	private void evictAll() {
+		MemoryCacheUtils.trimMemoryCache(configuration.memoryCache, 0);
+		Assertions.assertThat(configuration.memoryCache.get(KEY)).isNull();
+	}
+}
@@ -0,0 +1,230 @@
+package com.nostra13.universalimageloader.core;
+
+import android.graphics.Bitmap;
+
+import com.nostra13.universalimageloader.cache.disc.DiskCache;
+import com.nostra13.universalimageloader.cache.disc.impl.UnlimitedDiskCache;
+import com.nostra13.universalimageloader.core.TestImageLoader.RecordingListener;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.imageaware.ImageAware;
+import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
+import com.nostra13.universalimageloader.utils.IoUtils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class ImageLoaderEngineTest {
+	private static final String BLOCKING_URI = "http://example.com/blocking.png";
+	private static final String URI_A = "http://example.com/a.png";
+	private static final String URI_B = "http://example.com/b.png";
+
+	private TestImageLoader imageLoader;
+	private DisplayImageOptions options;
+
+	@Before
+	public void setUp() throws Exception {
+		imageLoader = new TestImageLoader();
+		imageLoader.init(imageLoader.configuration().threadPoolSize(1).build());
+		options = new DisplayImageOptions.Builder().cacheInMemory(true).cacheOnDisk(true).build();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		imageLoader.downloader.open();
+		imageLoader.release();
+	}
+
+	@Test
+	public void testPurgedTaskFiresCancelEvent() throws Exception {
+		occupyNetworkThread();
+
+		ImageAware imageAware = newImageAware();
+		RecordingListener superseded = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, imageAware, options, superseded);
+		RecordingListener actual = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_B, imageAware, options, actual);
+
+		Assertions.assertThat(superseded.await()).isTrue();
+		Assertions.assertThat(superseded.cancellations.get()).isEqualTo(1);
+		Assertions.assertThat(superseded.completions.get()).isEqualTo(0);
+
+		imageLoader.downloader.open();
+		Assertions.assertThat(actual.await()).isTrue();
+		Assertions.assertThat(actual.completions.get()).isEqualTo(1);
+		Assertions.assertThat(imageLoader.downloader.requestsFor(URI_A)).isEqualTo(0);
+	}
+
+	@Test
+	public void testCancelledGroupFiresCancelEvent() throws Exception {
+		occupyNetworkThread();
+
+		Object groupTag = new Object();
+		DisplayImageOptions groupOptions = new DisplayImageOptions.Builder().cloneFrom(options).groupTag(groupTag)
+				.build();
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, newImageAware(), groupOptions, listener);
+		imageLoader.cancelGroup(groupTag);
+
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(listener.cancellations.get()).isEqualTo(1);
+		Assertions.assertThat(listener.completions.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void testCallbacksAreDeliveredAfterStop() throws Exception {
+		imageLoader.stop();
+
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, newImageAware(), options, listener);
+
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(listener.completions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testPausedEngineHoldsTasksUntilResume() throws Exception {
+		imageLoader.pause();
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, newImageAware(), options, listener);
+
+		Assertions.assertThat(listener.finished.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		Assertions.assertThat(imageLoader.downloader.requests.get()).isEqualTo(0);
+
+		imageLoader.resume();
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(listener.completions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testSyncLoadingIsNotHeldWhilePaused() throws Exception {
+		imageLoader.pause();
+		Bitmap bitmap = imageLoader.callOffMainThread(new Callable<Bitmap>() {
+			@Override
+			public Bitmap call() {
+				return imageLoader.loadImageSync(URI_A, options);
+			}
+		});
+
+		Assertions.assertThat(bitmap).isNotNull();
+		Assertions.assertThat(imageLoader.downloader.requests.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testPausedGroupIsResumedByEqualTag() throws Exception {
+		imageLoader.pauseGroup(new String("group"));
+		DisplayImageOptions groupOptions = new DisplayImageOptions.Builder().cloneFrom(options)
+				.groupTag(new String("group")).build();
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, newImageAware(), groupOptions, listener);
+		System.gc();
+
+		Assertions.assertThat(listener.finished.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		imageLoader.resumeGroup(new String("group"));
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(listener.completions.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testGroupIsCancelledByEqualTag() throws Exception {
+		occupyNetworkThread();
+
+		DisplayImageOptions groupOptions = new DisplayImageOptions.Builder().cloneFrom(options)
+				.groupTag(new String("group")).build();
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, newImageAware(), groupOptions, listener);
+		System.gc();
+		imageLoader.cancelGroup(new String("group"));
+
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(listener.cancellations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testNotIndexedDiskCacheIsLookedUpOffCallerThread() throws Exception {
+		imageLoader.destroy();
+		imageLoader.init(imageLoader.configuration().threadPoolSize(1)
+				.diskCache(new NotIndexedDiskCache(new UnlimitedDiskCache(imageLoader.cacheDir))).build());
+		RecordingListener first = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, newImageAware(), options, first);
+		Assertions.assertThat(first.await()).isTrue();
+		imageLoader.clearMemoryCache();
+
+		occupyNetworkThread();
+		RecordingListener second = new RecordingListener();
+		imageLoader.displayOffMainThread(URI_A, newImageAware(), options, second);
+
+		// Image was found on disk, so it's loaded by pool for cached images while network thread is busy
+		Assertions.assertThat(second.await()).isTrue();
+		Assertions.assertThat(second.completions.get()).isEqualTo(1);
+		Assertions.assertThat(imageLoader.downloader.requestsFor(URI_A)).isEqualTo(1);
+	}
+
+	/** Starts download which holds the only network thread until downloader is opened */
+	private void occupyNetworkThread() throws Exception {
+		imageLoader.downloader.close();
+		imageLoader.displayOffMainThread(BLOCKING_URI, newImageAware(), options, new RecordingListener());
+		Assertions.assertThat(imageLoader.downloader.requested.await(TestImageLoader.TIMEOUT_SECONDS,
+				TimeUnit.SECONDS)).isTrue();
+	}
+
+	private static ImageAware newImageAware() {
+		return new NonViewAware(new ImageSize(100, 100), ViewScaleType.CROP);
+	}
+
+	/** Disk cache of third-party kind: it doesn't keep index of cached images */
+	private static class NotIndexedDiskCache implements DiskCache {
+		private final DiskCache cache;
+
+		NotIndexedDiskCache(DiskCache cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		public File getDirectory() {
+			return cache.getDirectory();
+		}
+
+		@Override
+		public File get(String imageUri) {
+			return cache.get(imageUri);
+		}
+
+		@Override
+		public boolean save(String imageUri, InputStream imageStream, IoUtils.CopyListener listener)
+				throws IOException {
+			return cache.save(imageUri, imageStream, listener);
+		}
+
+		@Override
+		public boolean save(String imageUri, Bitmap bitmap) throws IOException {
+			return cache.save(imageUri, bitmap);
+		}
+
+		@Override
+		public boolean remove(String imageUri) {
+			return cache.remove(imageUri);
+		}
+
+		@Override
+		public void close() {
+			cache.close();
+		}
+
+		@Override
+		public void clear() {
+			cache.clear();
+		}
+	}
+}
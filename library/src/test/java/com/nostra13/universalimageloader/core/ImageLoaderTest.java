@@ -0,0 +1,212 @@
+package com.nostra13.universalimageloader.core;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.widget.ImageView;
+
+import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.core.TestImageLoader.RecordingListener;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.imageaware.ImageViewAware;
+import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
+import com.nostra13.universalimageloader.core.process.BitmapProcessor;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(RobolectricTestRunner.class)
+public class ImageLoaderTest {
+	private static final String URI = "http://example.com/image.png";
+	private static final int BITMAP_SIZE = 10 * 10 * 4;
+
+	private TestImageLoader imageLoader;
+	private ImageLoaderConfiguration configuration;
+	private DisplayImageOptions options;
+
+	@Before
+	public void setUp() throws Exception {
+		imageLoader = new TestImageLoader();
+		configuration = imageLoader.configuration().build();
+		imageLoader.init(configuration);
+		options = new DisplayImageOptions.Builder().cacheInMemory(true).build();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		imageLoader.release();
+	}
+
+	@Test
+	public void testKeysArePooledPerConfiguration() throws Exception {
+		display(URI);
+		display(URI);
+
+		Assertions.assertThat(configuration.memoryCacheKeys.size()).isEqualTo(1);
+		Assertions.assertThat(imageLoader.configuration().build().memoryCacheKeys.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testTrimMemoryClearsPooledKeys() throws Exception {
+		display(URI);
+		display(URI);
+		imageLoader.trimMemory(1f);
+		Assertions.assertThat(configuration.memoryCacheKeys.size()).isEqualTo(1);
+
+		imageLoader.trimMemory(0.5f);
+		Assertions.assertThat(configuration.memoryCacheKeys.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testDestroyClearsPooledKeys() throws Exception {
+		display(URI);
+		display(URI);
+		imageLoader.destroy();
+
+		Assertions.assertThat(configuration.memoryCacheKeys.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void testBitmapHandedToListenerIsNotPooled() throws Exception {
+		imageLoader.destroy();
+		configuration = imageLoader.configuration().bitmapPoolSize(1024 * 1024).build();
+		imageLoader.init(configuration);
+
+		Bitmap bitmap = display(URI).loadedImage;
+		MemoryCacheUtils.trimMemoryCache(configuration.memoryCache, 0);
+
+		Assertions.assertThat(bitmap).isNotNull();
+		Assertions.assertThat(configuration.bitmapPool.remove(bitmap)).isFalse();
+	}
+
+	@Test
+	public void testBitmapEvictedByItsOwnCachingIsNotPooledBeforeDisplay() throws Exception {
+		imageLoader.destroy();
+		// Memory cache is too small for loaded bitmap, so the bitmap is evicted right when it's cached
+		configuration = imageLoader.configuration()
+				.memoryCache(new LruMemoryCache(BITMAP_SIZE))
+				.bitmapPoolSize(1024 * 1024)
+				.build();
+		imageLoader.init(configuration);
+		final AtomicBoolean pooledBeforeDisplay = new AtomicBoolean();
+		options = new DisplayImageOptions.Builder().cacheInMemory(true).postProcessor(new BitmapProcessor() {
+			@Override
+			public Bitmap process(Bitmap bitmap) {
+				pooledBeforeDisplay.set(configuration.bitmapPool.remove(bitmap));
+				return bitmap;
+			}
+		}).build();
+
+		Bitmap bitmap = display(URI).loadedImage;
+
+		Assertions.assertThat(bitmap).isNotNull();
+		Assertions.assertThat(configuration.memoryCache.get(MemoryCacheUtils.generateKey(URI, new ImageSize(100, 100))))
+				.isNull();
+		Assertions.assertThat(pooledBeforeDisplay.get()).isFalse();
+		Assertions.assertThat(configuration.bitmapPool.remove(bitmap)).isFalse();
+	}
+
+	@Test
+	public void testBitmapCachedForSmallerSizeIsShownRightAway() throws Exception {
+		Bitmap smaller = Bitmap.createBitmap(50, 50, Bitmap.Config.ARGB_8888);
+		configuration.memoryCache.put(MemoryCacheUtils.generateKey(URI, new ImageSize(50, 50)), smaller);
+		ImageView imageView = new ImageView(RuntimeEnvironment.application);
+		imageLoader.downloader.close();
+
+		imageLoader.displayImage(URI, new ImageViewAware(imageView), options, new ImageSize(100, 100), null, null);
+
+		Assertions.assertThat(((BitmapDrawable) imageView.getDrawable()).getBitmap()).isSameAs(smaller);
+		imageLoader.downloader.open();
+	}
+
+	@Test
+	public void testOnTrimMemoryTrimsCacheAndPoolByLevel() throws Exception {
+		initWithPool(false);
+		fillMemoryCache();
+
+		imageLoader.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+		Assertions.assertThat(configuration.memoryCache.keys()).hasSize(8);
+
+		imageLoader.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+		Assertions.assertThat(configuration.memoryCache.keys()).hasSize(6);
+
+		imageLoader.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+		Assertions.assertThat(configuration.memoryCache.keys()).hasSize(4);
+		// Evicted bitmaps went to pool, pool is trimmed the same way
+		Assertions.assertThat(configuration.bitmapPool.getSize()).isEqualTo(4 * BITMAP_SIZE);
+
+		imageLoader.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+		Assertions.assertThat(configuration.memoryCache.keys()).isEmpty();
+		Assertions.assertThat(configuration.bitmapPool.getSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void testMemoryPressureOfApplicationTrimsMemory() throws Exception {
+		initWithPool(true);
+		fillMemoryCache();
+
+		RuntimeEnvironment.application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+		Assertions.assertThat(configuration.memoryCache.keys()).hasSize(4);
+
+		RuntimeEnvironment.application.onLowMemory();
+		Assertions.assertThat(configuration.memoryCache.keys()).isEmpty();
+	}
+
+	@Test
+	public void testMemoryPressureIsIgnoredIfTrimIsDenied() throws Exception {
+		initWithPool(false);
+		fillMemoryCache();
+
+		RuntimeEnvironment.application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+		Assertions.assertThat(configuration.memoryCache.keys()).hasSize(8);
+	}
+
+	@Test
+	public void testCallbacksAreUnregisteredOnDestroy() throws Exception {
+		initWithPool(true);
+		fillMemoryCache();
+		imageLoader.destroy();
+
+		RuntimeEnvironment.application.onLowMemory();
+		Assertions.assertThat(configuration.memoryCache.keys()).hasSize(8);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTrimMemoryRejectsWrongFraction() throws Exception {
+		imageLoader.trimMemory(1.5f);
+	}
+
+	/** Re-initializes ImageLoader with memory cache and pool of 8 bitmaps */
+	private void initWithPool(boolean trimMemoryOnPressure) {
+		imageLoader.destroy();
+		configuration = imageLoader.configuration(trimMemoryOnPressure)
+				.memoryCache(new LruMemoryCache(8 * BITMAP_SIZE))
+				.bitmapPoolSize(8 * BITMAP_SIZE)
+				.build();
+		imageLoader.init(configuration);
+	}
+
+	private void fillMemoryCache() {
+		for (int i = 0; i < 8; i++) {
+			configuration.memoryCache.put("key" + i, Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+		}
+		Assertions.assertThat(configuration.memoryCache.keys()).hasSize(8);
+	}
+
+	private RecordingListener display(String uri) throws Exception {
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(uri, new NonViewAware(new ImageSize(100, 100), ViewScaleType.CROP), options,
+				listener);
+		Assertions.assertThat(listener.await()).isTrue();
+		return listener;
+	}
+}
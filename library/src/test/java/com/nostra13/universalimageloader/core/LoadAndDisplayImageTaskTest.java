@@ -0,0 +1,201 @@
+package com.nostra13.universalimageloader.core;
+
+import android.graphics.Bitmap;
+
+import com.nostra13.universalimageloader.cache.disc.impl.ext.LruDiskCache;
+import com.nostra13.universalimageloader.cache.disc.naming.HashCodeFileNameGenerator;
+import com.nostra13.universalimageloader.core.TestImageLoader.RecordingListener;
+import com.nostra13.universalimageloader.core.assist.ImageScaleType;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
+import com.nostra13.universalimageloader.core.process.BitmapProcessor;
+import com.nostra13.universalimageloader.utils.MemoryCacheUtils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+@RunWith(RobolectricTestRunner.class)
+public class LoadAndDisplayImageTaskTest {
+	private static final String URI = "http://example.com/image.png";
+
+	private TestImageLoader imageLoader;
+	private DisplayImageOptions options;
+
+	@Before
+	public void setUp() throws Exception {
+		imageLoader = new TestImageLoader().initDefault();
+		options = new DisplayImageOptions.Builder().cacheInMemory(true).cacheOnDisk(true).build();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		imageLoader.release();
+	}
+
+	@Test
+	public void testConcurrentLoadsOfSameImageAreCoalesced() throws Exception {
+		imageLoader.downloader.close();
+		RecordingListener[] listeners = new RecordingListener[3];
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i] = new RecordingListener();
+			imageLoader.displayOffMainThread(URI, new NonViewAware(new ImageSize(100, 100), ViewScaleType.CROP),
+					options, listeners[i]);
+		}
+		imageLoader.downloader.open();
+
+		for (RecordingListener listener : listeners) {
+			Assertions.assertThat(listener.await()).isTrue();
+			Assertions.assertThat(listener.completions.get()).isEqualTo(1);
+			Assertions.assertThat(listener.loadedImage).isSameAs(listeners[0].loadedImage);
+		}
+		Assertions.assertThat(imageLoader.downloader.requests.get()).isEqualTo(1);
+		Assertions.assertThat(imageLoader.decoder.decodes.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testConcurrentDownloadsOfSameImageForDifferentSizesAreCoalesced() throws Exception {
+		imageLoader.downloader.close();
+		// Small image is scaled exactly either it's decoded or it's scaled from cached large one
+		options = new DisplayImageOptions.Builder().cloneFrom(options).imageScaleType(ImageScaleType.EXACTLY).build();
+		RecordingListener small = new RecordingListener();
+		RecordingListener large = new RecordingListener();
+		imageLoader.displayOffMainThread(URI, new NonViewAware(new ImageSize(50, 50), ViewScaleType.CROP), options,
+				small);
+		imageLoader.displayOffMainThread(URI, new NonViewAware(new ImageSize(200, 200), ViewScaleType.CROP), options,
+				large);
+		imageLoader.downloader.open();
+
+		Assertions.assertThat(small.await()).isTrue();
+		Assertions.assertThat(large.await()).isTrue();
+		Assertions.assertThat(small.loadedImage.getWidth()).isEqualTo(50);
+		Assertions.assertThat(large.loadedImage.getWidth()).isEqualTo(200);
+		Assertions.assertThat(imageLoader.downloader.requests.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testDownloadedImageIsDecodedOnDecodingStage() throws Exception {
+		imageLoader.destroy();
+		ExecutorService networkExecutor = Executors.newSingleThreadExecutor(namedThreads("network"));
+		ExecutorService decodingExecutor = Executors.newSingleThreadExecutor(namedThreads("decoding"));
+		try {
+			imageLoader.init(imageLoader.configuration().taskExecutor(networkExecutor)
+					.taskExecutorForCachedImages(decodingExecutor).build());
+			RecordingListener listener = new RecordingListener();
+			imageLoader.displayOffMainThread(URI, new NonViewAware(new ImageSize(100, 100), ViewScaleType.CROP),
+					options, listener);
+
+			Assertions.assertThat(listener.await()).isTrue();
+			Assertions.assertThat(listener.completions.get()).isEqualTo(1);
+			Assertions.assertThat(imageLoader.downloader.lastThread.getName()).isEqualTo("network");
+			Assertions.assertThat(imageLoader.decoder.lastThread.getName()).isEqualTo("decoding");
+		} finally {
+			networkExecutor.shutdownNow();
+			decodingExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testDecodingStageIsSizedAsNetworkStageByDefault() throws Exception {
+		ImageLoaderConfiguration configuration = imageLoader.configuration().threadPoolSize(2).build();
+
+		Assertions.assertThat(configuration.threadPoolSizeForCachedImages).isEqualTo(2);
+	}
+
+	@Test
+	public void testLargerCachedBitmapIsScaledForScaleType() throws Exception {
+		load(200, ImageScaleType.EXACTLY);
+		RecordingListener listener = load(100, ImageScaleType.EXACTLY);
+
+		Assertions.assertThat(listener.loadedImage.getWidth()).isEqualTo(100);
+		Assertions.assertThat(imageLoader.decoder.decodes.get()).isEqualTo(1);
+		Assertions.assertThat(cachedBitmap(100)).isSameAs(listener.loadedImage);
+	}
+
+	@Test
+	public void testLargerCachedBitmapIsSubsampledForInSampleScaleType() throws Exception {
+		load(200, ImageScaleType.IN_SAMPLE_POWER_OF_2);
+		RecordingListener listener = load(60, ImageScaleType.IN_SAMPLE_POWER_OF_2);
+
+		// 200 / 2 is the smallest power of 2 subsampling which still covers 60
+		Assertions.assertThat(listener.loadedImage.getWidth()).isEqualTo(100);
+		Assertions.assertThat(imageLoader.decoder.decodes.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testLargerCachedBitmapServedAsIsIsNotCachedForRequestedSize() throws Exception {
+		RecordingListener large = load(200, ImageScaleType.IN_SAMPLE_POWER_OF_2);
+		RecordingListener listener = load(150, ImageScaleType.IN_SAMPLE_POWER_OF_2);
+
+		Assertions.assertThat(listener.loadedImage).isSameAs(large.loadedImage);
+		// The same bitmap isn't cached twice
+		Assertions.assertThat(cachedBitmap(150)).isNull();
+		Assertions.assertThat(imageLoader.getMemoryCache().keys()).hasSize(1);
+		Assertions.assertThat(imageLoader.decoder.decodes.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testLargerCachedBitmapIsNotUsedIfOriginalImageIsNeeded() throws Exception {
+		load(200, ImageScaleType.IN_SAMPLE_POWER_OF_2);
+		load(100, ImageScaleType.NONE);
+
+		Assertions.assertThat(imageLoader.decoder.decodes.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testBitmapSavedOnDiskIsNotPooled() throws Exception {
+		imageLoader.destroy();
+		final List<Bitmap> savedBitmaps = new CopyOnWriteArrayList<Bitmap>();
+		// LruDiskCache doesn't recycle saved bitmap
+		ImageLoaderConfiguration configuration = imageLoader.configuration()
+				.diskCache(new LruDiskCache(imageLoader.cacheDir, new HashCodeFileNameGenerator(), 0))
+				.diskCacheExtraOptions(50, 50, new BitmapProcessor() {
+					@Override
+					public Bitmap process(Bitmap bitmap) {
+						savedBitmaps.add(bitmap);
+						return bitmap;
+					}
+				})
+				.bitmapPoolSize(1024 * 1024)
+				.build();
+		imageLoader.init(configuration);
+		load(100, ImageScaleType.EXACTLY);
+
+		Assertions.assertThat(savedBitmaps).hasSize(1);
+		Assertions.assertThat(configuration.bitmapPool.remove(savedBitmaps.get(0))).isFalse();
+	}
+
+	private RecordingListener load(int size, ImageScaleType scaleType) throws Exception {
+		DisplayImageOptions options = new DisplayImageOptions.Builder().cloneFrom(this.options)
+				.imageScaleType(scaleType).build();
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI, new NonViewAware(new ImageSize(size, size), ViewScaleType.CROP), options,
+				listener);
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(listener.completions.get()).isEqualTo(1);
+		return listener;
+	}
+
+	private Bitmap cachedBitmap(int size) {
+		return imageLoader.getMemoryCache().get(MemoryCacheUtils.generateKey(URI, new ImageSize(size, size)));
+	}
+
+	private static ThreadFactory namedThreads(final String name) {
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				return new Thread(r, name);
+			}
+		};
+	}
+}
@@ -0,0 +1,144 @@
+package com.nostra13.universalimageloader.core;
+
+import com.nostra13.universalimageloader.core.TestImageLoader.RecordingListener;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.assist.ViewScaleType;
+import com.nostra13.universalimageloader.core.imageaware.NonViewAware;
+import com.nostra13.universalimageloader.core.listener.PrefetchListener;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class PrefetchTaskTest {
+	private static final String URI = "http://example.com/image.png";
+	private static final String ANOTHER_URI = "http://example.com/another.png";
+
+	private TestImageLoader imageLoader;
+	private DisplayImageOptions options;
+
+	@Before
+	public void setUp() throws Exception {
+		imageLoader = new TestImageLoader();
+		imageLoader.init(imageLoader.configuration().threadPoolSize(2).build());
+		options = new DisplayImageOptions.Builder().cacheInMemory(true).cacheOnDisk(true).build();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		imageLoader.downloader.open();
+		imageLoader.release();
+	}
+
+	@Test
+	public void testPrefetchWaitsForDownloadOfDisplayTask() throws Exception {
+		imageLoader.downloader.close();
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI, newImageAware(), options, listener);
+		Assertions.assertThat(imageLoader.downloader.requested.await(1, TimeUnit.SECONDS)).isTrue();
+
+		RecordingPrefetchListener prefetchListener = prefetchOffMainThread();
+		Assertions.assertThat(imageLoader.awaitDownloadWaiters(URI, 1)).isTrue();
+		imageLoader.downloader.open();
+
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(prefetchListener.await()).isTrue();
+		Assertions.assertThat(prefetchListener.cachedCount).isEqualTo(1);
+		Assertions.assertThat(imageLoader.downloader.requestsFor(URI)).isEqualTo(1);
+	}
+
+	@Test
+	public void testDisplayTaskWaitsForDownloadOfPrefetch() throws Exception {
+		imageLoader.downloader.close();
+		RecordingPrefetchListener prefetchListener = prefetchOffMainThread();
+		Assertions.assertThat(imageLoader.downloader.requested.await(1, TimeUnit.SECONDS)).isTrue();
+
+		RecordingListener listener = new RecordingListener();
+		imageLoader.displayOffMainThread(URI, newImageAware(), options, listener);
+		Assertions.assertThat(imageLoader.awaitDownloadWaiters(URI, 1)).isTrue();
+		imageLoader.downloader.open();
+
+		Assertions.assertThat(prefetchListener.await()).isTrue();
+		Assertions.assertThat(listener.await()).isTrue();
+		Assertions.assertThat(listener.completions.get()).isEqualTo(1);
+		Assertions.assertThat(imageLoader.downloader.requestsFor(URI)).isEqualTo(1);
+	}
+
+	@Test
+	public void testPrefetchIsHeldWhilePaused() throws Exception {
+		imageLoader.pause();
+		RecordingPrefetchListener prefetchListener = prefetchOffMainThread();
+
+		Assertions.assertThat(prefetchListener.finished.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		Assertions.assertThat(imageLoader.downloader.requests.get()).isEqualTo(0);
+
+		imageLoader.resume();
+		Assertions.assertThat(prefetchListener.await()).isTrue();
+		Assertions.assertThat(prefetchListener.cachedCount).isEqualTo(1);
+		Assertions.assertThat(imageLoader.downloader.requestsFor(URI)).isEqualTo(1);
+	}
+
+	@Test
+	public void testStopFailsImagesWhichWereNotPrefetched() throws Exception {
+		imageLoader.downloader.close();
+		PrefetchOptions prefetchOptions = new PrefetchOptions.Builder().maxRequestsPerHost(1).build();
+		RecordingPrefetchListener prefetchListener = prefetchOffMainThread(Arrays.asList(URI, ANOTHER_URI),
+				prefetchOptions);
+		Assertions.assertThat(imageLoader.downloader.requested.await(1, TimeUnit.SECONDS)).isTrue();
+
+		imageLoader.stop();
+
+		Assertions.assertThat(prefetchListener.await()).isTrue();
+		Assertions.assertThat(prefetchListener.cachedCount).isEqualTo(0);
+		Assertions.assertThat(prefetchListener.failedUris).containsOnly(URI, ANOTHER_URI);
+	}
+
+	private RecordingPrefetchListener prefetchOffMainThread() throws Exception {
+		return prefetchOffMainThread(Collections.singletonList(URI), null);
+	}
+
+	private RecordingPrefetchListener prefetchOffMainThread(final List<String> uris,
+			final PrefetchOptions prefetchOptions) throws Exception {
+		final RecordingPrefetchListener prefetchListener = new RecordingPrefetchListener();
+		imageLoader.callOffMainThread(new Callable<Void>() {
+			@Override
+			public Void call() {
+				imageLoader.prefetch(uris, prefetchOptions, prefetchListener);
+				return null;
+			}
+		});
+		return prefetchListener;
+	}
+
+	private static NonViewAware newImageAware() {
+		return new NonViewAware(new ImageSize(100, 100), ViewScaleType.CROP);
+	}
+
+	private static class RecordingPrefetchListener implements PrefetchListener {
+		final CountDownLatch finished = new CountDownLatch(1);
+		volatile int cachedCount;
+		volatile List<String> failedUris;
+
+		@Override
+		public void onPrefetchComplete(int cachedCount, List<String> failedUris) {
+			this.cachedCount = cachedCount;
+			this.failedUris = failedUris;
+			finished.countDown();
+		}
+
+		boolean await() throws InterruptedException {
+			return finished.await(TestImageLoader.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+}
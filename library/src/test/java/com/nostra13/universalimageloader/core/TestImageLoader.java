@@ -0,0 +1,205 @@
+package com.nostra13.universalimageloader.core;
+
+import android.graphics.Bitmap;
+import android.view.View;
+
+import com.nostra13.universalimageloader.cache.disc.impl.UnlimitedDiskCache;
+import com.nostra13.universalimageloader.cache.memory.impl.LruMemoryCache;
+import com.nostra13.universalimageloader.core.assist.FailReason;
+import com.nostra13.universalimageloader.core.assist.ImageSize;
+import com.nostra13.universalimageloader.core.decode.ImageDecoder;
+import com.nostra13.universalimageloader.core.decode.ImageDecodingInfo;
+import com.nostra13.universalimageloader.core.download.ImageDownloader;
+import com.nostra13.universalimageloader.core.imageaware.ImageAware;
+import com.nostra13.universalimageloader.core.listener.ImageLoadingListener;
+
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ImageLoader with fake network and decoder for tests. Requests are made from worker thread, so listener callbacks
+ * aren't posted to main looper and tests can wait for them.
+ */
+class TestImageLoader extends ImageLoader {
+
+	static final long TIMEOUT_SECONDS = 5;
+
+	final File cacheDir = new File(System.getProperty("java.io.tmpdir"), "uil-test-" + System.nanoTime());
+	final CountingDownloader downloader = new CountingDownloader();
+	final CountingDecoder decoder = new CountingDecoder();
+
+	private final ExecutorService caller = Executors.newSingleThreadExecutor();
+
+	/** Returns configuration builder with fake network, fake decoder and disk cache in temporary dir */
+	ImageLoaderConfiguration.Builder configuration() {
+		return configuration(false);
+	}
+
+	/** @param trimMemoryOnPressure Whether ImageLoader should react on memory pressure of application */
+	ImageLoaderConfiguration.Builder configuration(boolean trimMemoryOnPressure) {
+		ImageLoaderConfiguration.Builder builder = new ImageLoaderConfiguration.Builder(RuntimeEnvironment.application)
+				.diskCache(new UnlimitedDiskCache(cacheDir))
+				.memoryCache(new LruMemoryCache(4 * 1024 * 1024))
+				.imageDownloader(downloader)
+				.imageDecoder(decoder);
+		if (!trimMemoryOnPressure) {
+			builder.denyTrimMemoryOnPressure();
+		}
+		return builder;
+	}
+
+	TestImageLoader initDefault() {
+		init(configuration().build());
+		return this;
+	}
+
+	/** Calls <b>callable</b> on worker thread and returns its result */
+	<T> T callOffMainThread(Callable<T> callable) throws Exception {
+		return caller.submit(callable).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/** Calls {@link #displayImage(String, ImageAware, DisplayImageOptions, ImageLoadingListener)} on worker thread */
+	void displayOffMainThread(final String uri, final ImageAware imageAware, final DisplayImageOptions options,
+			final ImageLoadingListener listener) throws Exception {
+		callOffMainThread(new Callable<Void>() {
+			@Override
+			public Void call() {
+				displayImage(uri, imageAware, options, listener);
+				return null;
+			}
+		});
+	}
+
+	/** Waits until <b>count</b> tasks are attached to the downloading of image for incoming <b>uri</b> */
+	boolean awaitDownloadWaiters(String uri, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (getDownloadWaiterCount(uri) < count) {
+			if (System.nanoTime() > deadline) return false;
+			Thread.sleep(10);
+		}
+		return true;
+	}
+
+	void release() {
+		caller.shutdownNow();
+		if (isInited()) {
+			destroy();
+		}
+		File[] files = cacheDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDir.delete();
+	}
+
+	/** Downloader which counts requests per URI and can hold them until it's opened */
+	static class CountingDownloader implements ImageDownloader {
+		final AtomicInteger requests = new AtomicInteger();
+		final Map<String, AtomicInteger> requestsPerUri = new ConcurrentHashMap<String, AtomicInteger>();
+		volatile CountDownLatch gate;
+		volatile CountDownLatch requested = new CountDownLatch(1);
+		volatile Thread lastThread;
+
+		@Override
+		public InputStream getStream(String imageUri, Object extra) throws IOException {
+			lastThread = Thread.currentThread();
+			requests.incrementAndGet();
+			AtomicInteger counter = requestsPerUri.get(imageUri);
+			if (counter == null) {
+				requestsPerUri.put(imageUri, counter = new AtomicInteger());
+			}
+			counter.incrementAndGet();
+			requested.countDown();
+			CountDownLatch gate = this.gate;
+			if (gate != null) {
+				try {
+					gate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			return new ByteArrayInputStream(new byte[]{1, 2, 3, 4});
+		}
+
+		int requestsFor(String uri) {
+			AtomicInteger counter = requestsPerUri.get(uri);
+			return counter == null ? 0 : counter.get();
+		}
+
+		void close() {
+			gate = new CountDownLatch(1);
+		}
+
+		void open() {
+			CountDownLatch gate = this.gate;
+			this.gate = null;
+			if (gate != null) {
+				gate.countDown();
+			}
+		}
+	}
+
+	/** Decoder which "decodes" every image into bitmap of target size */
+	static class CountingDecoder implements ImageDecoder {
+		final AtomicInteger decodes = new AtomicInteger();
+		volatile Thread lastThread;
+
+		@Override
+		public Bitmap decode(ImageDecodingInfo imageDecodingInfo) throws IOException {
+			lastThread = Thread.currentThread();
+			decodes.incrementAndGet();
+			ImageSize size = imageDecodingInfo.getTargetSize();
+			return Bitmap.createBitmap(size.getWidth(), size.getHeight(), Bitmap.Config.ARGB_8888);
+		}
+	}
+
+	/** Listener which remembers the final callback */
+	static class RecordingListener implements ImageLoadingListener {
+		final CountDownLatch finished = new CountDownLatch(1);
+		final AtomicInteger cancellations = new AtomicInteger();
+		final AtomicInteger completions = new AtomicInteger();
+		final AtomicInteger failures = new AtomicInteger();
+		volatile Bitmap loadedImage;
+
+		@Override
+		public void onLoadingStarted(String imageUri, View view) {
+		}
+
+		@Override
+		public void onLoadingFailed(String imageUri, View view, FailReason failReason) {
+			failures.incrementAndGet();
+			finished.countDown();
+		}
+
+		@Override
+		public void onLoadingComplete(String imageUri, View view, Bitmap loadedImage) {
+			this.loadedImage = loadedImage;
+			completions.incrementAndGet();
+			finished.countDown();
+		}
+
+		@Override
+		public void onLoadingCancelled(String imageUri, View view) {
+			cancellations.incrementAndGet();
+			finished.countDown();
+		}
+
+		boolean await() throws InterruptedException {
+			return finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+}
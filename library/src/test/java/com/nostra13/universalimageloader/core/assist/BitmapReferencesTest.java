@@ -0,0 +1,72 @@
+package com.nostra13.universalimageloader.core.assist;
+
+import android.graphics.Bitmap;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class BitmapReferencesTest {
+
+	private BitmapPool pool;
+	private BitmapReferences references;
+	private Bitmap bitmap;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new BitmapPool(1024 * 1024);
+		references = new BitmapReferences(pool);
+		bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+	}
+
+	@Test
+	public void testUnreferencedEvictedBitmapIsPooled() throws Exception {
+		references.onEvicted(bitmap);
+
+		Assertions.assertThat(pool.remove(bitmap)).isTrue();
+	}
+
+	@Test
+	public void testReferencedEvictedBitmapIsPooledOnLastRelease() throws Exception {
+		references.acquire(bitmap);
+		references.acquire(bitmap);
+		references.onEvicted(bitmap);
+		references.release(bitmap);
+		Assertions.assertThat(pool.remove(bitmap)).isFalse();
+
+		references.release(bitmap);
+		Assertions.assertThat(pool.remove(bitmap)).isTrue();
+	}
+
+	@Test
+	public void testAcquiredBitmapIsTakenBackFromPool() throws Exception {
+		references.onEvicted(bitmap);
+		references.acquire(bitmap);
+		Assertions.assertThat(pool.remove(bitmap)).isFalse();
+
+		references.release(bitmap);
+		Assertions.assertThat(pool.remove(bitmap)).isTrue();
+	}
+
+	@Test
+	public void testRetainedBitmapIsNeverPooled() throws Exception {
+		references.acquire(bitmap);
+		references.retain(bitmap);
+		references.onEvicted(bitmap);
+		references.release(bitmap);
+
+		Assertions.assertThat(pool.remove(bitmap)).isFalse();
+		Assertions.assertThat(references.getReferenceCount(bitmap)).isEqualTo(0);
+	}
+
+	@Test
+	public void testRetainTakesBitmapBackFromPool() throws Exception {
+		references.onEvicted(bitmap);
+		references.retain(bitmap);
+
+		Assertions.assertThat(pool.remove(bitmap)).isFalse();
+	}
+}